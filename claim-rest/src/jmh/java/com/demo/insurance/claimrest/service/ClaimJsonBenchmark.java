@@ -0,0 +1,82 @@
+package com.demo.insurance.claimrest.service;
+
+import com.demo.insurance.claimrest.model.Claim;
+import com.demo.insurance.claimrest.model.ClaimHistoryEvent;
+import com.demo.insurance.claimrest.model.ClaimStatus;
+import com.demo.insurance.claimrest.model.ClaimType;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * One claim with a typical history, written as part of a streamed listing: the mapper Spring Boot
+ * configures vs {@link ClaimJsonWriter}. Run with {@code mvn -Pjmh test-compile exec:exec}; the
+ * {@code gc.alloc.rate.norm} column of {@code -prof gc} is bytes allocated per claim.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClaimJsonBenchmark {
+
+  @Param({"1", "6"})
+  int historyEvents;
+
+  private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json()
+      .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+      .build();
+  private final OutputStream sink = OutputStream.nullOutputStream();
+  private Claim claim;
+  private JsonGenerator generator;
+  private ClaimJsonWriter writer;
+
+  @Setup
+  public void setup() throws IOException {
+    claim = new Claim();
+    claim.id = "CLM-0A8BM3NX40004";
+    claim.customerId = "C-10442";
+    claim.fullName = "Am\u00e9lie Laurent";
+    claim.policyNumber = "POL-2024-118";
+    claim.claimType = ClaimType.ACCIDENT;
+    claim.claimedAmount = new BigDecimal("1512.50");
+    claim.description = "Rear-ended at a red light, bumper and tail light replaced";
+    claim.status = ClaimStatus.IN_REVIEW;
+    claim.createdAt = Instant.parse("2026-10-17T04:32:57.321351Z");
+    claim.version = historyEvents;
+    for (int i = 0; i < historyEvents; i++) {
+      claim.history.add(new ClaimHistoryEvent(claim.createdAt.plusSeconds(i * 60L), ClaimStatus.IN_REVIEW, "step " + i));
+    }
+    // both stay open for the whole run, like one long streamed listing
+    generator = mapper.getFactory().createGenerator(sink);
+    generator.writeStartArray();
+    writer = ClaimJsonWriter.open(sink);
+    writer.startArray();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    writer.close();
+    generator.close();
+  }
+
+  @Benchmark
+  public void jackson() throws IOException {
+    mapper.writeValue(generator, claim);
+  }
+
+  @Benchmark
+  public void claimJsonWriter() throws IOException {
+    writer.claim(claim);
+  }
+}
@@ -2,8 +2,10 @@ package com.demo.insurance.claimrest;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ClaimRestApplication {
   public static void main(String[] args) {
     SpringApplication.run(ClaimRestApplication.class, args);
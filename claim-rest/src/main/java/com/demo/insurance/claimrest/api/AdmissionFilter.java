@@ -0,0 +1,177 @@
+package com.demo.insurance.claimrest.api;
+
+import com.demo.insurance.claimrest.cluster.ClusterClient;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Token-bucket admission for the claim API, per client and endpoint class: single-claim reads,
+ * bulk reads (listings, search, stats, export, event streams) and writes each have their own
+ * allowance, so a partner paging through every claim cannot use up its own writes, let alone
+ * anybody else's. A request over its allowance gets 429 with {@code Retry-After}.
+ *
+ * <p>Priority clients (the workflow engine's status callbacks) name themselves in
+ * {@code client-header} and prove it with their key in {@code client-key-header}; they draw from a
+ * separate, larger bucket and are never shed. Everyone else is keyed by remote address, whatever
+ * name they send, and their bulk reads are also turned away while this node has more than
+ * {@code bulk-shed-in-flight} requests in progress, which keeps room for the callbacks during a
+ * burst. Requests forwarded by another cluster node were admitted there and pass through, but only
+ * once {@link ClusterClient#isForwarded} recognizes the node.
+ *
+ * <p>Counted in {@code claims.admission.requests} (tags {@code class}, {@code outcome},
+ * {@code priority}); {@code claims.admission.in_flight} and {@code claims.admission.clients} are
+ * gauges.
+ */
+@Component
+// first in line: a rejected request should cost neither a forward nor an idempotency lookup
+@Order(Ordered.LOWEST_PRECEDENCE - 20)
+public class AdmissionFilter extends OncePerRequestFilter {
+
+  enum EndpointClass { READ, BULK, WRITE }
+
+  private enum Outcome { ADMITTED, REJECTED, SHED }
+
+  private static final Set<String> BULK_PATHS = Set.of("search", "stats", "export", "events");
+
+  private final AdmissionProperties props;
+  private final ClusterClient cluster;
+  private final TokenBuckets[] buckets = new TokenBuckets[EndpointClass.values().length];
+  private final TokenBuckets priority;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  // [class][outcome][priority ? 1 : 0]
+  private final Counter[][][] counters =
+      new Counter[EndpointClass.values().length][Outcome.values().length][2];
+
+  public AdmissionFilter(AdmissionProperties props, ClusterClient cluster, MeterRegistry registry) {
+    this.props = props;
+    this.cluster = cluster;
+    buckets[EndpointClass.READ.ordinal()] = new TokenBuckets(props.getRead(), props.getMaxClients());
+    buckets[EndpointClass.BULK.ordinal()] = new TokenBuckets(props.getBulk(), props.getMaxClients());
+    buckets[EndpointClass.WRITE.ordinal()] = new TokenBuckets(props.getWrite(), props.getMaxClients());
+    priority = new TokenBuckets(props.getPriority(), Math.max(1, props.getPriorityClients().size()));
+    props.getPriorityClients().forEach((id, key) -> {
+      if (key == null || key.isBlank()) {
+        System.out.printf("[admission] priority client %s has no key configured, it is admitted like any other client%n", id);
+      }
+    });
+
+    for (EndpointClass c : EndpointClass.values()) {
+      for (Outcome o : Outcome.values()) {
+        for (int p = 0; p < 2; p++) {
+          counters[c.ordinal()][o.ordinal()][p] = Counter.builder("claims.admission.requests")
+              .tag("class", c.name().toLowerCase())
+              .tag("outcome", o.name().toLowerCase())
+              .tag("priority", Boolean.toString(p == 1))
+              .register(registry);
+        }
+      }
+    }
+    Gauge.builder("claims.admission.in_flight", inFlight, AtomicInteger::get).register(registry);
+    Gauge.builder("claims.admission.clients", this, AdmissionFilter::clients).register(registry);
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    if (!props.isEnabled() || cluster.isForwarded(request)) return true;
+    String path = path(request);
+    return !path.equals("/claims") && !path.startsWith("/claims/") && !path.startsWith("/claims:");
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    EndpointClass cls = classify(request.getMethod(), path(request));
+    String priorityClient = priorityClient(request);
+    boolean prio = priorityClient != null;
+    String client = prio ? priorityClient : request.getRemoteAddr();
+    long now = System.nanoTime();
+
+    if (!prio && cls == EndpointClass.BULK && inFlight.get() >= props.getBulkShedInFlight()) {
+      count(cls, Outcome.SHED, false);
+      reject(response, TimeUnit.SECONDS.toNanos(1), "server busy, bulk reads are deferred");
+      return;
+    }
+    long wait = prio ? priority.acquire(client, now) : buckets[cls.ordinal()].acquire(client, now);
+    if (wait > 0) {
+      count(cls, Outcome.REJECTED, prio);
+      reject(response, wait, "rate limit exceeded for " + cls.name().toLowerCase() + " requests");
+      return;
+    }
+
+    count(cls, Outcome.ADMITTED, prio);
+    inFlight.incrementAndGet();
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      inFlight.decrementAndGet();
+    }
+  }
+
+  @Scheduled(fixedDelay = 60_000)
+  public void sweep() {
+    long now = System.nanoTime();
+    for (TokenBuckets b : buckets) b.sweep(now);
+    priority.sweep(now);
+  }
+
+  static EndpointClass classify(String method, String path) {
+    if (!"GET".equals(method) && !"HEAD".equals(method)) return EndpointClass.WRITE;
+    if (!path.startsWith("/claims/")) return EndpointClass.BULK;
+    int end = path.indexOf('/', "/claims/".length());
+    String first = path.substring("/claims/".length(), end < 0 ? path.length() : end);
+    return BULK_PATHS.contains(first) ? EndpointClass.BULK : EndpointClass.READ;
+  }
+
+  // the named client if it is a priority client and sent its key, else null
+  private String priorityClient(HttpServletRequest request) {
+    String id = request.getHeader(props.getClientHeader());
+    if (id == null) return null;
+    String expected = props.getPriorityClients().get(id.trim());
+    String key = request.getHeader(props.getClientKeyHeader());
+    if (expected == null || expected.isBlank() || key == null) return null;
+    return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), key.getBytes(StandardCharsets.UTF_8)) ? id.trim() : null;
+  }
+
+  private static String path(HttpServletRequest request) {
+    return request.getRequestURI().substring(request.getContextPath().length());
+  }
+
+  private int clients() {
+    int n = priority.size();
+    for (TokenBuckets b : buckets) n += b.size();
+    return n;
+  }
+
+  private void count(EndpointClass cls, Outcome outcome, boolean prio) {
+    counters[cls.ordinal()][outcome.ordinal()][prio ? 1 : 0].increment();
+  }
+
+  private static void reject(HttpServletResponse response, long waitNanos, String message) throws IOException {
+    // whole seconds, rounded up: retrying at the advertised time must succeed
+    long seconds = Math.max(1, (waitNanos + 999_999_999) / 1_000_000_000);
+    response.setStatus(429);
+    response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+    response.setContentType("application/json");
+    response.getOutputStream().write(
+        ("{\"status\":429,\"error\":\"" + message + "\"}").getBytes(StandardCharsets.UTF_8));
+  }
+}
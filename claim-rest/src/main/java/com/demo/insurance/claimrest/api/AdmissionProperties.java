@@ -0,0 +1,72 @@
+package com.demo.insurance.claimrest.api;
+
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "claims.admission")
+public class AdmissionProperties {
+
+  private boolean enabled = true;
+  // names a priority client; everyone else is keyed by remote address
+  private String clientHeader = "X-Client-Id";
+  // proves the named client is who it says; checked against priority-clients
+  private String clientKeyHeader = "X-Client-Key";
+  // client -> key of clients with their own, larger allowance that are never shed (the workflow
+  // engine's callbacks); a client with a blank key gets no priority
+  private Map<String, String> priorityClients = Map.of();
+  // requests in progress on this node above which bulk reads from other clients are turned away
+  private int bulkShedInFlight = 64;
+  // distinct client buckets kept per endpoint class; further clients share a few, by remote address
+  private int maxClients = 10_000;
+  private final Limit read = new Limit(500, 1_000);
+  private final Limit write = new Limit(200, 400);
+  private final Limit bulk = new Limit(20, 40);
+  private final Limit priority = new Limit(2_000, 4_000);
+
+  public boolean isEnabled() { return enabled; }
+  public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+  public String getClientHeader() { return clientHeader; }
+  public void setClientHeader(String clientHeader) { this.clientHeader = clientHeader; }
+
+  public String getClientKeyHeader() { return clientKeyHeader; }
+  public void setClientKeyHeader(String clientKeyHeader) { this.clientKeyHeader = clientKeyHeader; }
+
+  public Map<String, String> getPriorityClients() { return priorityClients; }
+  public void setPriorityClients(Map<String, String> priorityClients) { this.priorityClients = priorityClients; }
+
+  public int getBulkShedInFlight() { return bulkShedInFlight; }
+  public void setBulkShedInFlight(int bulkShedInFlight) { this.bulkShedInFlight = bulkShedInFlight; }
+
+  public int getMaxClients() { return maxClients; }
+  public void setMaxClients(int maxClients) { this.maxClients = maxClients; }
+
+  public Limit getRead() { return read; }
+
+  public Limit getWrite() { return write; }
+
+  public Limit getBulk() { return bulk; }
+
+  public Limit getPriority() { return priority; }
+
+  /** Sustained requests per second and how many may arrive at once after a quiet period. */
+  public static class Limit {
+
+    private double ratePerSecond;
+    private int burst;
+
+    Limit(double ratePerSecond, int burst) {
+      this.ratePerSecond = ratePerSecond;
+      this.burst = burst;
+    }
+
+    public double getRatePerSecond() { return ratePerSecond; }
+    public void setRatePerSecond(double ratePerSecond) { this.ratePerSecond = ratePerSecond; }
+
+    public int getBurst() { return burst; }
+    public void setBurst(int burst) { this.burst = burst; }
+  }
+}
@@ -0,0 +1,143 @@
+package com.demo.insurance.claimrest.api;
+
+import com.demo.insurance.claimrest.model.*;
+import com.demo.insurance.claimrest.service.ClaimStore;
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * {@code POST /claims:batch}: one {@link ClaimSubmissionRequest} per NDJSON line in, one result
+ * line per input line out ({@code {"line":n,"id":...}} or {@code {"line":n,"error":...}}), followed
+ * by a summary line. Blank lines are skipped but still count for line numbers. Lines are
+ * validated and inserted in chunks while the body is still arriving, so memory stays bounded by
+ * the chunk size regardless of the feed length.
+ */
+@RestController
+public class ClaimBatchController {
+
+  private static final String NDJSON = "application/x-ndjson";
+
+  private static final int CHUNK = 256;
+  private static final int MAX_LINE_BYTES = 1 << 20;
+
+  private final ClaimStore store;
+  private final ObjectMapper json;
+
+  public ClaimBatchController(ClaimStore store, ObjectMapper json) {
+    this.store = store;
+    this.json = json;
+  }
+
+  private record Line(int number, ClaimSubmissionRequest req, String error) {}
+
+  @PostMapping("/claims:batch")
+  public void batch(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    response.setContentType(NDJSON);
+    OutputStream out = response.getOutputStream();
+    var in = new BufferedInputStream(request.getInputStream(), 1 << 16);
+    var buf = new ByteArrayOutputStream(1024);
+
+    var chunk = new ArrayList<Line>(CHUNK);
+    int number = 0;
+    int records = 0;
+    int accepted = 0;
+    int read;
+    while ((read = readLine(in, buf)) != -1) {
+      number++;
+      if (read == -2) {
+        chunk.add(new Line(number, null, "line exceeds " + MAX_LINE_BYTES + " bytes"));
+      } else if (isBlank(buf)) {
+        continue;
+      } else {
+        chunk.add(parse(number, buf));
+      }
+      records++;
+      if (chunk.size() == CHUNK) {
+        accepted += flush(chunk, out);
+        chunk.clear();
+      }
+    }
+    accepted += flush(chunk, out);
+
+    var summary = new LinkedHashMap<String, Object>();
+    summary.put("done", true);
+    summary.put("accepted", accepted);
+    summary.put("rejected", records - accepted);
+    writeLine(out, summary);
+    out.flush();
+  }
+
+  private Line parse(int number, ByteArrayOutputStream buf) {
+    try {
+      ClaimSubmissionRequest req = json.readValue(buf.toByteArray(), ClaimSubmissionRequest.class);
+      ClaimController.validate(req);
+      return new Line(number, req, null);
+    } catch (JacksonException e) {
+      return new Line(number, null, "invalid JSON: " + e.getOriginalMessage());
+    } catch (IOException e) {
+      return new Line(number, null, "invalid JSON: " + e.getMessage());
+    } catch (ClaimController.BadRequest e) {
+      return new Line(number, null, e.getMessage());
+    }
+  }
+
+  // inserts the valid lines of the chunk with a single durability wait, then writes all results in order
+  private int flush(List<Line> chunk, OutputStream out) throws IOException {
+    var valid = new ArrayList<ClaimSubmissionRequest>();
+    for (Line l : chunk) if (l.req() != null) valid.add(l.req());
+    List<Claim> created = valid.isEmpty() ? List.of() : store.createAll(valid);
+
+    int next = 0;
+    for (Line l : chunk) {
+      var res = new LinkedHashMap<String, Object>();
+      res.put("line", l.number());
+      if (l.req() != null) {
+        Claim c = created.get(next++);
+        res.put("id", c.id);
+        res.put("status", c.status);
+      } else {
+        res.put("error", l.error());
+      }
+      writeLine(out, res);
+    }
+    out.flush();
+    return created.size();
+  }
+
+  private void writeLine(OutputStream out, Map<String, Object> value) throws IOException {
+    out.write(json.writeValueAsBytes(value));
+    out.write('\n');
+  }
+
+  /** Reads one line into {@code buf}; returns its length, -1 at end of input, -2 if it was too long. */
+  private static int readLine(InputStream in, ByteArrayOutputStream buf) throws IOException {
+    buf.reset();
+    int b = in.read();
+    if (b == -1) return -1;
+    boolean tooLong = false;
+    while (b != -1 && b != '\n') {
+      if (buf.size() < MAX_LINE_BYTES) buf.write(b);
+      else tooLong = true;
+      b = in.read();
+    }
+    return tooLong ? -2 : buf.size();
+  }
+
+  private static boolean isBlank(ByteArrayOutputStream buf) {
+    for (byte b : buf.toByteArray()) {
+      if (!Character.isWhitespace(b)) return false;
+    }
+    return true;
+  }
+}
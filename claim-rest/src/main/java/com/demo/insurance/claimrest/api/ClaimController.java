@@ -1,28 +1,63 @@
 package com.demo.insurance.claimrest.api;
 
+import com.demo.insurance.claimrest.cluster.ClaimScatterGather;
+import com.demo.insurance.claimrest.cluster.ClusterClient;
+import com.demo.insurance.claimrest.cluster.ClusterRouting;
 import com.demo.insurance.claimrest.model.*;
+import com.demo.insurance.claimrest.service.ClaimCursor;
+import com.demo.insurance.claimrest.service.ClaimFilter;
+import com.demo.insurance.claimrest.service.ClaimJsonWriter;
 import com.demo.insurance.claimrest.service.ClaimStore;
+import com.demo.insurance.claimrest.service.ClaimVersionConflictException;
+import com.demo.insurance.claimrest.service.PolicyTotalsProjection;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 @RestController
 @RequestMapping("/claims")
 public class ClaimController {
 
+  private static final int MAX_PAGE = 1000;
+  private static final int STREAM_FLUSH = 256;
+
   private final ClaimStore store;
+  private final ClusterRouting routing;
+  private final ClaimScatterGather cluster;
+  private final PolicyTotalsProjection policies;
 
-  public ClaimController(ClaimStore store) {
+  public ClaimController(ClaimStore store, ClusterRouting routing, ClaimScatterGather cluster,
+                         PolicyTotalsProjection policies) {
     this.store = store;
+    this.routing = routing;
+    this.cluster = cluster;
+    this.policies = policies;
   }
 
   @PostMapping
   @ResponseStatus(HttpStatus.CREATED)
   public Claim submit(@RequestBody ClaimSubmissionRequest req) {
-    // minimal validation (demo-ready)
+    validate(req);
+    return store.create(req);
+  }
+
+  // minimal validation (demo-ready); shared with the NDJSON batch endpoint
+  static void validate(ClaimSubmissionRequest req) {
     if (req == null || req.policyNumber == null || req.policyNumber.isBlank()) {
       throw new BadRequest("policyNumber is required");
     }
@@ -38,23 +73,189 @@ public class ClaimController {
     if (req.claimedAmount == null) {
       throw new BadRequest("claimedAmount is required");
     }
-    return store.create(req);
+    checkAmount(req.claimedAmount);
+  }
+
+  // amounts are totalled as long cents, so anything beyond that range is refused up front
+  private static final BigDecimal MAX_AMOUNT = BigDecimal.valueOf(Long.MAX_VALUE, 2);
+
+  static void checkAmount(BigDecimal amount) {
+    if (amount.abs().compareTo(MAX_AMOUNT) > 0) {
+      throw new BadRequest("claimedAmount out of range: " + amount);
+    }
   }
 
   @GetMapping("/{id}")
-  public Claim get(@PathVariable("id") String id) {
-    return store.get(id).orElseThrow(() -> new NotFound("Claim not found: " + id));
+  public ResponseEntity<Claim> get(@PathVariable("id") String id, WebRequest request) {
+    Claim c = store.get(id).orElseThrow(() -> new NotFound("Claim not found: " + id));
+    // sets ETag and answers If-None-Match with 304
+    if (request.checkNotModified(etag(c))) return null;
+    return ResponseEntity.ok(c);
 }
 
   @GetMapping("/{id}/history")
-  public List<ClaimHistoryEvent> history(@PathVariable("id") String id) {
+  public List<ClaimHistoryEvent> history(
+      @PathVariable("id") String id,
+      @RequestParam(name = "since", defaultValue = "0") long since
+  ) {
      store.get(id).orElseThrow(() -> new NotFound("Claim not found: " + id));
-    return store.history(id);
+    if (since < 0) throw new BadRequest("since must be >= 0");
+    return store.history(id, since);
 }
 
-  @GetMapping
-  public List<Claim> list() {
-    return store.list();
+  /** Counts and claimed amounts per status and type, plus the recent submission rate. */
+  @GetMapping("/stats")
+  public ResponseEntity<ClaimStatistics> stats(
+      @RequestHeader(name = ClusterClient.FORWARDED_BY, required = false) String forwardedBy
+  ) {
+    var res = ResponseEntity.ok();
+    if (!scatter(forwardedBy)) return res.body(store.stats());
+    var gathered = cluster.stats(store.stats());
+    unavailable(res, gathered.unavailable());
+    return res.body(gathered.stats());
+  }
+
+  /** Number and claimed amount of the claims against one policy, overall and per status. */
+  @GetMapping("/policies/{policyNumber}/totals")
+  public ResponseEntity<PolicyTotals> policyTotals(
+      @PathVariable("policyNumber") String policyNumber,
+      @RequestHeader(name = ClusterClient.FORWARDED_BY, required = false) String forwardedBy
+  ) {
+    var res = ResponseEntity.ok();
+    if (!scatter(forwardedBy)) return res.body(policies.totals(policyNumber));
+    var gathered = cluster.policyTotals(policies.totals(policyNumber));
+    unavailable(res, gathered.unavailable());
+    return res.body(gathered.totals());
+  }
+
+  /** Claims whose description matches any of the words in {@code q}, best match first. */
+  @GetMapping("/search")
+  public ResponseEntity<List<ClaimSearchHit>> search(
+      @RequestParam(name = "q") String q,
+      @RequestParam(name = "limit", defaultValue = "20") int limit,
+      @RequestHeader(name = ClusterClient.FORWARDED_BY, required = false) String forwardedBy,
+      WebRequest request
+  ) {
+    if (q.isBlank()) throw new BadRequest("q is required");
+    if (limit < 1 || limit > MAX_PAGE) throw new BadRequest("limit must be between 1 and " + MAX_PAGE);
+    var res = ResponseEntity.ok();
+    List<ClaimSearchHit> hits = store.search(q, limit);
+    if (!scatter(forwardedBy)) return res.body(hits);
+    var gathered = cluster.search(hits, queryString(request), limit);
+    unavailable(res, gathered.unavailable());
+    return res.body(gathered.hits());
+  }
+
+  /** Newest-first listing of the whole (filtered) store, streamed as one JSON array. */
+  @GetMapping(params = "!limit")
+  public ResponseEntity<StreamingResponseBody> list(
+      @RequestParam(name = "customerId", required = false) String customerId,
+      @RequestParam(name = "policyNumber", required = false) String policyNumber,
+      @RequestParam(name = "status", required = false) String status,
+      @RequestParam(name = "claimType", required = false) String claimType,
+      @RequestParam(name = "cursor", required = false) String cursor,
+      @RequestHeader(name = ClusterClient.FORWARDED_BY, required = false) String forwardedBy,
+      WebRequest request
+  ) {
+    var filter = filter(customerId, policyNumber, status, claimType);
+    Stream<Claim> claims = store.stream(filter, parseCursor(cursor));
+    var res = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+    if (scatter(forwardedBy)) {
+      var gathered = cluster.stream(claims, queryString(request));
+      claims = gathered.claims();
+      unavailable(res, gathered.unavailable());
+    }
+    Stream<Claim> listing = claims;
+    StreamingResponseBody body = out -> writeArray(out, listing);
+    return res.body(body);
+  }
+
+  /** One newest-first page; {@code X-Next-Cursor} and {@code Link} point at the next one. */
+  @GetMapping(params = "limit")
+  public ResponseEntity<List<Claim>> page(
+      @RequestParam(name = "customerId", required = false) String customerId,
+      @RequestParam(name = "policyNumber", required = false) String policyNumber,
+      @RequestParam(name = "status", required = false) String status,
+      @RequestParam(name = "claimType", required = false) String claimType,
+      @RequestParam(name = "cursor", required = false) String cursor,
+      @RequestParam(name = "limit") int limit,
+      @RequestHeader(name = ClusterClient.FORWARDED_BY, required = false) String forwardedBy,
+      WebRequest request
+  ) {
+    if (limit < 1 || limit > MAX_PAGE) throw new BadRequest("limit must be between 1 and " + MAX_PAGE);
+    var filter = filter(customerId, policyNumber, status, claimType);
+
+    List<Claim> local = store.stream(filter, parseCursor(cursor)).limit(limit + 1L).toList();
+    var page = local.size() > limit
+        ? new ClaimScatterGather.Page(local.subList(0, limit), true, List.of())
+        : new ClaimScatterGather.Page(local, false, List.of());
+    if (scatter(forwardedBy)) page = cluster.page(page, queryString(request), limit);
+
+    var res = ResponseEntity.ok();
+    unavailable(res, page.unavailable());
+    if (page.more() && !page.claims().isEmpty()) {
+      String next = ClaimCursor.of(page.claims().get(page.claims().size() - 1)).encode();
+      res.header("X-Next-Cursor", next);
+      res.header(HttpHeaders.LINK, "<" + ServletUriComponentsBuilder.fromCurrentRequest()
+          .replaceQueryParam("cursor", next).toUriString() + ">; rel=\"next\"");
+    }
+    return res.body(page.claims());
+  }
+
+  // a listing that reached this node from a peer covers only this node's claims
+  private boolean scatter(String forwardedBy) {
+    return routing.isEnabled() && forwardedBy == null;
+  }
+
+  private static String queryString(WebRequest request) {
+    return ((ServletWebRequest) request).getRequest().getQueryString();
+  }
+
+  private static void unavailable(ResponseEntity.BodyBuilder res, List<String> nodes) {
+    if (!nodes.isEmpty()) res.header("X-Claims-Unavailable-Nodes", String.join(",", nodes));
+  }
+
+  private static ClaimFilter filter(String customerId, String policyNumber, String status, String claimType) {
+    return new ClaimFilter(
+        blankToNull(customerId),
+        blankToNull(policyNumber),
+        parseEnum(ClaimStatus.class, "status", status),
+        parseEnum(ClaimType.class, "claimType", claimType));
+  }
+
+  // flushes every STREAM_FLUSH claims so large listings never sit in a buffer
+  private static void writeArray(OutputStream out, Stream<Claim> claims) throws IOException {
+    try (claims; var w = ClaimJsonWriter.open(out)) {
+      w.startArray();
+      int n = 0;
+      for (Iterator<Claim> it = claims.iterator(); it.hasNext(); ) {
+        w.claim(it.next());
+        if (++n % STREAM_FLUSH == 0) w.flush();
+      }
+      w.endArray();
+    }
+  }
+
+  private static ClaimCursor parseCursor(String cursor) {
+    if (cursor == null || cursor.isBlank()) return null;
+    try {
+      return ClaimCursor.decode(cursor.trim());
+    } catch (IllegalArgumentException e) {
+      throw new BadRequest(e.getMessage());
+    }
+  }
+
+  private static String blankToNull(String s) {
+    return s == null || s.isBlank() ? null : s.trim();
+  }
+
+  private static <E extends Enum<E>> E parseEnum(Class<E> type, String param, String value) {
+    if (value == null || value.isBlank()) return null;
+    try {
+      return Enum.valueOf(type, value.trim().toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new BadRequest("invalid " + param + ": " + value);
+    }
   }
 
   // helper exceptions
@@ -74,11 +275,40 @@ public class ClaimController {
     int status = (ex instanceof NotFound) ? 404 : 400;
     return Map.of("status", status, "error", ex.getMessage());
   }
+
+  @ExceptionHandler(ClaimVersionConflictException.class)
+  public ResponseEntity<Map<String, Object>> handleConflict(ClaimVersionConflictException ex) {
+    return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+        .eTag(etag(ex.getCurrentVersion()))
+        .body(Map.of("status", 412, "error", ex.getMessage(), "currentVersion", ex.getCurrentVersion()));
+  }
+
+  private static String etag(Claim c) {
+    return etag(c.version);
+  }
+
+  private static String etag(long version) {
+    return "\"" + version + "\"";
+  }
+
+  // If-Match: "<version>" (weak form accepted); absent or * means unconditional
+  private static long expectedVersion(String ifMatch) {
+    if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) return ClaimStore.ANY_VERSION;
+    String v = ifMatch.trim();
+    if (v.startsWith("W/")) v = v.substring(2);
+    v = v.replace("\"", "");
+    try {
+      return Long.parseLong(v);
+    } catch (NumberFormatException e) {
+      throw new BadRequest("invalid If-Match: " + ifMatch);
+    }
+  }
   public record StatusUpdateRequest(String status, String message) {}
 
 @PostMapping("/{id}/status")
-public Object updateStatus(
+public ResponseEntity<Claim> updateStatus(
     @PathVariable("id") String id,
+    @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
     @RequestBody StatusUpdateRequest body
 ) {
   if (body == null || body.status() == null || body.status().isBlank()) {
@@ -92,14 +322,22 @@ public Object updateStatus(
     throw new BadRequest("invalid status: " + body.status());
   }
 
-  var updated = store.updateStatus(id, st, body.message() == null ? "" : body.message());
-  return updated.orElseThrow(() -> new NotFound("Claim not found: " + id));
+  var updated = store.updateStatus(id, st, body.message() == null ? "" : body.message(), expectedVersion(ifMatch))
+      .orElseThrow(() -> new NotFound("Claim not found: " + id));
+  return ResponseEntity.ok().eTag(etag(updated)).body(updated);
 }
 
 @PutMapping("/{id}")
-public Claim update(@PathVariable String id, @RequestBody ClaimUpdateRequest body) {
+public ResponseEntity<Claim> update(
+    @PathVariable String id,
+    @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+    @RequestBody ClaimUpdateRequest body
+) {
   if (body == null) throw new BadRequest("body is required");
-  return store.updateClaim(id, body).orElseThrow(() -> new NotFound("Claim not found: " + id));
+  if (body.claimedAmount() != null) checkAmount(body.claimedAmount());
+  Claim updated = store.updateClaim(id, body, expectedVersion(ifMatch))
+      .orElseThrow(() -> new NotFound("Claim not found: " + id));
+  return ResponseEntity.ok().eTag(etag(updated)).body(updated);
 }
 
 @DeleteMapping("/{id}")
@@ -0,0 +1,137 @@
+package com.demo.insurance.claimrest.api;
+
+import com.demo.insurance.claimrest.model.ClaimChangeEvent;
+import com.demo.insurance.claimrest.service.ClaimEventBus;
+import com.demo.insurance.claimrest.service.ClaimStoreProperties;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Server-Sent Events feed of claim changes, optionally narrowed to one claim or one customer.
+ * The SSE id is {@code <epoch>-<seq>}, the bus sequence number qualified by the run it belongs
+ * to, so a reconnecting EventSource resumes automatically through {@code Last-Event-ID};
+ * {@code ?since=} does the same for other clients. An id from before a restart (or a bare
+ * number) cannot be resumed from: the feed starts with a {@code GAP} event asking for a resync.
+ */
+@RestController
+@RequestMapping("/claims/events")
+public class ClaimEventsController {
+
+  private static final long TIMEOUT_MS = 30 * 60_000L;
+  private static final long RECONNECT_MS = 2_000L;
+
+  private final ClaimEventBus bus;
+  private final AtomicInteger threads = new AtomicInteger();
+  // a feed has at most one drain queued or running, so the queue is bounded by the subscriber count
+  private final ExecutorService senders;
+
+  public ClaimEventsController(ClaimEventBus bus, ClaimStoreProperties props) {
+    this.bus = bus;
+    int n = props.getEvents().getSenderThreads();
+    this.senders = new ThreadPoolExecutor(n, n, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+      Thread t = new Thread(r, "claim-events-" + threads.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter events(
+      @RequestParam(name = "claimId", required = false) String claimId,
+      @RequestParam(name = "customerId", required = false) String customerId,
+      @RequestParam(name = "since", required = false) String since,
+      @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId
+  ) {
+    Predicate<ClaimChangeEvent> filter = e -> e.type() == ClaimChangeEvent.Type.GAP
+        || ((claimId == null || claimId.equals(e.claimId()))
+            && (customerId == null || customerId.equals(e.customerId())));
+
+    var feed = new Feed(new SseEmitter(TIMEOUT_MS));
+    String resume = lastEventId != null && !lastEventId.isBlank() ? lastEventId.trim() : since;
+    String epoch = null;
+    long seq = 0;
+    if (resume != null && !resume.isBlank()) {
+      int dash = resume.lastIndexOf('-');
+      epoch = dash < 0 ? null : resume.substring(0, dash);
+      seq = parseSeq(resume.substring(dash + 1), resume);
+    }
+    feed.subscription = bus.subscribe(filter, epoch, seq, s -> feed.schedule());
+    feed.emitter.onCompletion(feed.subscription::close);
+    feed.emitter.onTimeout(feed.subscription::close);
+    feed.emitter.onError(t -> feed.subscription.close());
+    feed.schedule();
+    return feed.emitter;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    senders.shutdownNow();
+  }
+
+  private static long parseSeq(String seq, String id) {
+    try {
+      return Long.parseLong(seq);
+    } catch (NumberFormatException e) {
+      throw new ClaimController.BadRequest("invalid event id: " + id);
+    }
+  }
+
+  /** One connected client: drains its subscription on a sender thread, never on the publisher. */
+  private final class Feed {
+    final SseEmitter emitter;
+    final AtomicBoolean scheduled = new AtomicBoolean();
+    volatile ClaimEventBus.Subscription subscription;
+    boolean greeted;
+
+    Feed(SseEmitter emitter) {
+      this.emitter = emitter;
+    }
+
+    void schedule() {
+      if (subscription != null && scheduled.compareAndSet(false, true)) senders.execute(this::drain);
+    }
+
+    private void drain() {
+      try {
+        if (!greeted) {
+          emitter.send(SseEmitter.event().reconnectTime(RECONNECT_MS).comment("claim events"));
+          greeted = true;
+        }
+        ClaimChangeEvent e;
+        while ((e = subscription.poll()) != null) {
+          emitter.send(SseEmitter.event()
+              .id(bus.epoch() + "-" + e.seq())
+              .name(e.type().name())
+              .data(e, MediaType.APPLICATION_JSON));
+        }
+        if (subscription.isDropped()) {
+          // too slow: close and let the client resume from its last id
+          emitter.send(SseEmitter.event().name("DROPPED")
+              .data(Map.of("reason", "subscriber buffer overflow"), MediaType.APPLICATION_JSON));
+          emitter.complete();
+          return;
+        }
+      } catch (IOException | IllegalStateException ex) {
+        subscription.close();
+        return;
+      } finally {
+        scheduled.set(false);
+      }
+      // an event may have arrived after the last poll but before the flag was cleared
+      if (subscription.hasPending()) schedule();
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.demo.insurance.claimrest.api;
+
+import com.demo.insurance.claimrest.model.ClaimStatus;
+import com.demo.insurance.claimrest.service.ClaimExporter;
+import com.demo.insurance.claimrest.service.ClaimStore;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Bulk export for reporting: every claim created in {@code [from, to)}, oldest first, streamed
+ * straight from the store's time index to the response. In a cluster each node exports its own
+ * claims.
+ */
+@RestController
+@RequestMapping("/claims/export")
+public class ClaimExportController {
+
+  private final ClaimStore store;
+  private final ClaimExporter exporter;
+
+  public ClaimExportController(ClaimStore store, ClaimExporter exporter) {
+    this.store = store;
+    this.exporter = exporter;
+  }
+
+  @GetMapping
+  public ResponseEntity<StreamingResponseBody> export(
+      @RequestParam(name = "format", defaultValue = "ndjson") String format,
+      @RequestParam(name = "from", required = false) String from,
+      @RequestParam(name = "to", required = false) String to,
+      @RequestParam(name = "status", required = false) String status
+  ) {
+    ClaimExporter.Format fmt = parseFormat(format);
+    Instant fromTime = parseInstant("from", from);
+    Instant toTime = parseInstant("to", to);
+    if (fromTime != null && toTime != null && !fromTime.isBefore(toTime)) {
+      throw new ClaimController.BadRequest("from must be before to");
+    }
+    ClaimStatus st = parseStatus(status);
+
+    StreamingResponseBody body = out -> exporter.write(fmt, store.createdBetween(fromTime, toTime, st), out);
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(fmt.contentType))
+        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"claims." + fmt.extension + "\"")
+        .body(body);
+  }
+
+  private static ClaimExporter.Format parseFormat(String format) {
+    try {
+      return ClaimExporter.Format.valueOf(format.trim().toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new ClaimController.BadRequest("invalid format: " + format + " (ndjson, csv or binary)");
+    }
+  }
+
+  private static ClaimStatus parseStatus(String status) {
+    if (status == null || status.isBlank()) return null;
+    try {
+      return ClaimStatus.valueOf(status.trim().toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new ClaimController.BadRequest("invalid status: " + status);
+    }
+  }
+
+  // ISO-8601 instants, e.g. 2024-05-01T00:00:00Z
+  private static Instant parseInstant(String param, String value) {
+    if (value == null || value.isBlank()) return null;
+    try {
+      return Instant.parse(value.trim());
+    } catch (DateTimeParseException e) {
+      throw new ClaimController.BadRequest("invalid " + param + ": " + value);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package com.demo.insurance.claimrest.api;
+
+import com.demo.insurance.claimrest.model.Claim;
+import com.demo.insurance.claimrest.model.ClaimHistoryEvent;
+import com.demo.insurance.claimrest.service.ClaimJsonWriter;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes {@code Claim}, {@code List<Claim>} and {@code List<ClaimHistoryEvent>} response bodies
+ * with {@link ClaimJsonWriter} instead of Jackson. As a bean it is placed ahead of the default
+ * converters; everything else, and all request bodies, still go through Jackson.
+ */
+@Component
+public class ClaimJsonConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+  public ClaimJsonConverter() {
+    super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+  }
+
+  // lists are only recognized from their generic type, see canWrite
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return Claim.class == clazz;
+  }
+
+  @Override
+  public boolean canRead(Class<?> clazz, MediaType mediaType) {
+    return false;
+  }
+
+  @Override
+  public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+    return false;
+  }
+
+  @Override
+  public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+    if (!canWrite(mediaType)) return false;
+    if (clazz == Claim.class) return true;
+    if (!(type instanceof ParameterizedType p) || !(p.getRawType() instanceof Class<?> raw)
+        || !Collection.class.isAssignableFrom(raw)) {
+      return false;
+    }
+    Type element = p.getActualTypeArguments()[0];
+    return element == Claim.class || element == ClaimHistoryEvent.class;
+  }
+
+  @Override
+  protected void writeInternal(Object body, Type type, HttpOutputMessage output) throws IOException {
+    try (var w = ClaimJsonWriter.open(output.getBody())) {
+      if (body instanceof Claim c) {
+        w.claim(c);
+        return;
+      }
+      w.startArray();
+      for (Object o : (Collection<?>) body) {
+        if (o instanceof Claim c) w.claim(c);
+        else w.event((ClaimHistoryEvent) o);
+      }
+      w.endArray();
+    }
+  }
+
+  @Override
+  public Object read(Type type, Class<?> contextClass, HttpInputMessage input) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  protected Object readInternal(Class<?> clazz, HttpInputMessage input) {
+    throw new UnsupportedOperationException();
+  }
+}
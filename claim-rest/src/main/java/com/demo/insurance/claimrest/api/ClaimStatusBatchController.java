@@ -0,0 +1,135 @@
+package com.demo.insurance.claimrest.api;
+
+import com.demo.insurance.claimrest.cluster.ClusterClient;
+import com.demo.insurance.claimrest.cluster.ClusterRouting;
+import com.demo.insurance.claimrest.model.ClaimStatus;
+import com.demo.insurance.claimrest.service.ClaimStore;
+import com.demo.insurance.claimrest.service.StatusTransition;
+import com.demo.insurance.claimrest.service.StatusTransition.Outcome;
+import com.demo.insurance.claimrest.service.StatusTransition.Result;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * {@code POST /claims/status:batch}: many status transitions in one request, for callers such as
+ * the workflow engine that would otherwise make one round trip each. Every transition is applied
+ * atomically for its claim, transitions of the same claim in request order, and each gets its own
+ * result; one failing does not affect the others. The whole batch waits for durability once.
+ *
+ * <p>In a cluster the transitions are grouped by owning node: each peer's share goes out as one
+ * forwarded batch while this node applies its own, so a batch costs one hop per node, not per claim.
+ */
+@RestController
+public class ClaimStatusBatchController {
+
+  private static final int MAX_ITEMS = 1000;
+  private static final Map<String, Set<String>> JSON = Map.of("Content-Type", Set.of("application/json"));
+
+  /** {@code version} is optional; when given, the transition applies only at that version. */
+  public record Item(String id, String status, String message, Long version) {}
+
+  public record BatchResponse(int applied, int failed, List<Result> results) {}
+
+  private final ClaimStore store;
+  private final ClusterRouting routing;
+  private final ClusterClient client;
+  private final ObjectMapper json;
+
+  public ClaimStatusBatchController(ClaimStore store, ClusterRouting routing, ClusterClient client, ObjectMapper json) {
+    this.store = store;
+    this.routing = routing;
+    this.client = client;
+    this.json = json;
+  }
+
+  @PostMapping("/claims/status:batch")
+  public BatchResponse batch(
+      @RequestBody List<Item> items,
+      @RequestHeader(name = ClusterClient.FORWARDED_BY, required = false) String forwardedBy
+  ) throws IOException {
+    if (items == null || items.isEmpty()) throw new ClaimController.BadRequest("at least one transition is required");
+    if (items.size() > MAX_ITEMS) throw new ClaimController.BadRequest("at most " + MAX_ITEMS + " transitions per batch");
+
+    var results = new Result[items.size()];
+    // positions in items, owned here or per peer; invalid items are answered right away
+    var local = new ArrayList<Integer>();
+    var byPeer = new LinkedHashMap<String, List<Integer>>();
+    boolean route = routing.isEnabled() && forwardedBy == null;
+    for (int i = 0; i < items.size(); i++) {
+      Item it = items.get(i);
+      String error = validate(it);
+      if (error != null) {
+        results[i] = Result.failed(it == null ? null : it.id(), Outcome.INVALID, error);
+        continue;
+      }
+      if (!route || routing.isLocal(it.id())) local.add(i);
+      else byPeer.computeIfAbsent(routing.owner(it.id()), k -> new ArrayList<>()).add(i);
+    }
+
+    // every peer's share goes out before the local one is applied
+    var remote = new LinkedHashMap<String, CompletableFuture<HttpResponse<InputStream>>>();
+    for (var e : byPeer.entrySet()) {
+      var share = e.getValue().stream().map(items::get).toList();
+      remote.put(e.getKey(), client.send(e.getKey(), "POST", "/claims/status:batch", JSON, json.writeValueAsBytes(share)));
+    }
+
+    if (!local.isEmpty()) {
+      var transitions = new ArrayList<StatusTransition>(local.size());
+      for (int i : local) transitions.add(transition(items.get(i)));
+      var applied = store.updateStatusAll(transitions);
+      for (int k = 0; k < local.size(); k++) results[local.get(k)] = applied.get(k);
+    }
+
+    for (var e : remote.entrySet()) {
+      List<Integer> share = byPeer.get(e.getKey());
+      List<Result> answered = null;
+      try {
+        HttpResponse<InputStream> res = e.getValue().join();
+        try (InputStream body = res.body()) {
+          if (res.statusCode() == 200) answered = json.readValue(body, BatchResponse.class).results();
+        }
+      } catch (IOException | RuntimeException ex) {
+        // answered stays null
+      }
+      for (int k = 0; k < share.size(); k++) {
+        int i = share.get(k);
+        results[i] = answered != null && k < answered.size()
+            ? answered.get(k)
+            : Result.failed(items.get(i).id(), Outcome.UNAVAILABLE, "owner node unavailable: " + e.getKey());
+      }
+    }
+
+    int ok = 0;
+    for (Result r : results) if (r.outcome() == Outcome.APPLIED) ok++;
+    return new BatchResponse(ok, results.length - ok, Arrays.asList(results));
+  }
+
+  private static String validate(Item it) {
+    if (it == null || it.id() == null || it.id().isBlank()) return "id is required";
+    if (it.status() == null || it.status().isBlank()) return "status is required";
+    try {
+      ClaimStatus.valueOf(it.status().trim().toUpperCase());
+    } catch (IllegalArgumentException e) {
+      return "invalid status: " + it.status();
+    }
+    return null;
+  }
+
+  private static StatusTransition transition(Item it) {
+    return new StatusTransition(
+        it.id(),
+        ClaimStatus.valueOf(it.status().trim().toUpperCase()),
+        it.message() == null ? "" : it.message(),
+        it.version() == null ? ClaimStore.ANY_VERSION : it.version());
+  }
+}
@@ -0,0 +1,91 @@
+package com.demo.insurance.claimrest.api;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Responses of requests that carried an {@code Idempotency-Key}, kept for a fixed time-to-live and
+ * capped at {@code maxEntries}. Since every entry lives equally long, insertion order is expiry
+ * order: a FIFO of tickets drives eviction without scanning the map. Entries whose request is still
+ * running are never evicted for capacity.
+ */
+final class IdempotencyCache {
+
+  /** A finished response as sent to the first caller. */
+  record Response(int status, Map<String, List<String>> headers, byte[] body) {}
+
+  /**
+   * One key's slot. {@code result} completes with the response, or with null if the first request
+   * failed in a way that should be retried for real.
+   */
+  record Entry(byte[] fingerprint, CompletableFuture<Response> result, long expiresAt) {}
+
+  /** The slot for a key and whether the caller created it and must now run the request. */
+  record Lease(Entry entry, boolean owner) {}
+
+  private record Ticket(String key, Entry entry) {}
+
+  private final long ttlNanos;
+  private final int maxEntries;
+  private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+  private final ConcurrentLinkedQueue<Ticket> tickets = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger ticketCount = new AtomicInteger();
+
+  IdempotencyCache(long ttlNanos, int maxEntries) {
+    this.ttlNanos = ttlNanos;
+    this.maxEntries = maxEntries;
+  }
+
+  Lease lease(String key, byte[] fingerprint) {
+    long now = System.nanoTime();
+    var fresh = new Entry(fingerprint, new CompletableFuture<>(), now + ttlNanos);
+    while (true) {
+      Entry cur = entries.putIfAbsent(key, fresh);
+      if (cur != null && cur.expiresAt() - now > 0) return new Lease(cur, false);
+      if (cur == null || entries.replace(key, cur, fresh)) break;
+    }
+    tickets.add(new Ticket(key, fresh));
+    ticketCount.incrementAndGet();
+    evict(now);
+    return new Lease(fresh, true);
+  }
+
+  void complete(Entry e, Response response) {
+    e.result().complete(response);
+  }
+
+  /** Forgets the key so the next request with it runs again; waiters are told to do the same. */
+  void abandon(String key, Entry e) {
+    entries.remove(key, e);
+    e.result().complete(null);
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  // a polled ticket whose entry was already replaced or abandoned removes nothing; one whose request
+  // is still running goes to the back, since dropping it would let a retry run the request twice
+  private void evict(long now) {
+    int requeued = 0;
+    while (true) {
+      Ticket head = tickets.peek();
+      if (head == null || (head.entry().expiresAt() - now > 0 && ticketCount.get() <= maxEntries)) return;
+      Ticket t = tickets.poll();
+      if (t == null) return;
+      Entry e = t.entry();
+      if (e.expiresAt() - now > 0 && !e.result().isDone() && entries.get(t.key()) == e) {
+        tickets.add(t);
+        // everything left is in flight: the cap is exceeded until some of it finishes
+        if (++requeued >= ticketCount.get()) return;
+        continue;
+      }
+      ticketCount.decrementAndGet();
+      entries.remove(t.key(), e);
+    }
+  }
+}
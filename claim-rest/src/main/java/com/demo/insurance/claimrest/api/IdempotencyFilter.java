@@ -0,0 +1,201 @@
+package com.demo.insurance.claimrest.api;
+
+import com.demo.insurance.claimrest.cluster.ClusterClient;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Makes {@code POST /claims} and {@code POST /claims/{id}/status} safe to retry: a request with an
+ * {@code Idempotency-Key} the node has already answered gets the first response again, marked with
+ * {@code Idempotent-Replayed: true}, without touching the store. A retry that arrives while the
+ * first request is still running waits for its response. Reusing a key for a different body or
+ * {@code If-Match} is a 422; only 2xx responses are kept, so a failed request can be retried for real.
+ * Keys belong to their caller (its {@code X-Client-Id}, else its address), so two clients that pick
+ * the same key never see each other's responses.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+  public static final String HEADER = "Idempotency-Key";
+
+  private static final Pattern PATHS = Pattern.compile("^/claims(/[^/]+/status)?$");
+  private static final int MAX_KEY = 255;
+  private static final Set<String> NOT_REPLAYED = Set.of("content-length", "transfer-encoding", "date");
+
+  private final IdempotencyProperties props;
+  private final AdmissionProperties admission;
+  private final ClusterClient cluster;
+  private final IdempotencyCache cache;
+
+  public IdempotencyFilter(IdempotencyProperties props, AdmissionProperties admission, ClusterClient cluster) {
+    this.props = props;
+    this.admission = admission;
+    this.cluster = cluster;
+    this.cache = new IdempotencyCache(props.getTtl().toNanos(), props.getMaxEntries());
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !props.isEnabled()
+        || !"POST".equals(request.getMethod())
+        || request.getHeader(HEADER) == null
+        || !PATHS.matcher(request.getRequestURI().substring(request.getContextPath().length())).matches();
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    String key = request.getHeader(HEADER).trim();
+    if (key.isEmpty() || key.length() > MAX_KEY) {
+      error(response, 400, HEADER + " must be 1-" + MAX_KEY + " characters");
+      return;
+    }
+    // scoped by caller and path so one key cannot collide across clients, endpoints or claims
+    String scoped = caller(request) + " " + request.getRequestURI() + " " + key;
+    byte[] body = request.getInputStream().readAllBytes();
+    byte[] fingerprint = fingerprint(request.getHeader(HttpHeaders.IF_MATCH), body);
+
+    while (true) {
+      var lease = cache.lease(scoped, fingerprint);
+      IdempotencyCache.Entry e = lease.entry();
+      if (!Arrays.equals(e.fingerprint(), fingerprint)) {
+        error(response, 422, HEADER + " was already used with a different request body or If-Match");
+        return;
+      }
+      if (lease.owner()) {
+        execute(new CachedBodyRequest(request, body), response, chain, scoped, e);
+        return;
+      }
+      IdempotencyCache.Response first;
+      try {
+        first = e.result().get(props.getInFlightWaitMs(), TimeUnit.MILLISECONDS);
+      } catch (TimeoutException ex) {
+        error(response, 409, "a request with this " + HEADER + " is still in progress");
+        return;
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new ServletException(ex);
+      } catch (ExecutionException ex) {
+        first = null;
+      }
+      if (first != null) {
+        replay(response, first);
+        return;
+      }
+      // the first attempt failed and gave up the key; this one runs the request itself
+    }
+  }
+
+  private String caller(HttpServletRequest request) {
+    String id = request.getHeader(admission.getClientHeader());
+    return id != null && !id.isBlank() ? "id:" + id.trim() : "addr:" + cluster.clientAddress(request);
+  }
+
+  private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+                       String key, IdempotencyCache.Entry e) throws ServletException, IOException {
+    var wrapper = new ContentCachingResponseWrapper(response);
+    boolean kept = false;
+    try {
+      chain.doFilter(request, wrapper);
+      int status = wrapper.getStatus();
+      if (status >= 200 && status < 300) {
+        cache.complete(e, new IdempotencyCache.Response(status, headers(wrapper), wrapper.getContentAsByteArray()));
+        kept = true;
+      }
+    } finally {
+      if (!kept) cache.abandon(key, e);
+    }
+    wrapper.copyBodyToResponse();
+  }
+
+  private static Map<String, List<String>> headers(HttpServletResponse response) {
+    var headers = new LinkedHashMap<String, List<String>>();
+    for (String name : response.getHeaderNames()) {
+      if (!NOT_REPLAYED.contains(name.toLowerCase())) headers.put(name, List.copyOf(response.getHeaders(name)));
+    }
+    if (response.getContentType() != null) headers.put("Content-Type", List.of(response.getContentType()));
+    return headers;
+  }
+
+  private static void replay(HttpServletResponse response, IdempotencyCache.Response first) throws IOException {
+    response.setStatus(first.status());
+    first.headers().forEach((name, values) -> {
+      for (String v : values) response.addHeader(name, v);
+    });
+    response.setHeader("Idempotent-Replayed", "true");
+    response.setContentLength(first.body().length);
+    response.getOutputStream().write(first.body());
+  }
+
+  private static void error(HttpServletResponse response, int status, String message) throws IOException {
+    response.setStatus(status);
+    response.setContentType("application/json");
+    response.getOutputStream().write(
+        ("{\"status\":" + status + ",\"error\":\"" + message + "\"}").getBytes(StandardCharsets.UTF_8));
+  }
+
+  // If-Match takes part: the same body against another version is a different request
+  private static byte[] fingerprint(String ifMatch, byte[] body) {
+    try {
+      var sha = MessageDigest.getInstance("SHA-256");
+      if (ifMatch != null) sha.update(ifMatch.trim().getBytes(StandardCharsets.UTF_8));
+      sha.update((byte) 0);
+      return sha.digest(body);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** The request with its body already read, so the fingerprint and the controller see the same bytes. */
+  private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+    private final byte[] body;
+
+    CachedBodyRequest(HttpServletRequest request, byte[] body) {
+      super(request);
+      this.body = body;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+      var in = new ByteArrayInputStream(body);
+      return new ServletInputStream() {
+        @Override public int read() { return in.read(); }
+        @Override public int read(byte[] b, int off, int len) { return in.read(b, off, len); }
+        @Override public boolean isFinished() { return in.available() == 0; }
+        @Override public boolean isReady() { return true; }
+        @Override public void setReadListener(ReadListener listener) { throw new UnsupportedOperationException(); }
+      };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+      String enc = getCharacterEncoding();
+      return new BufferedReader(new InputStreamReader(getInputStream(),
+          enc == null ? StandardCharsets.UTF_8 : Charset.forName(enc)));
+    }
+  }
+}
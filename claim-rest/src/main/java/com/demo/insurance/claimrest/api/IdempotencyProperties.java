@@ -0,0 +1,30 @@
+package com.demo.insurance.claimrest.api;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "claims.idempotency")
+public class IdempotencyProperties {
+
+  private boolean enabled = true;
+  // how long a key replays its first response
+  private Duration ttl = Duration.ofHours(24);
+  private int maxEntries = 100_000;
+  // how long a retry waits for the first request with the same key before answering 409
+  private long inFlightWaitMs = 30_000;
+
+  public boolean isEnabled() { return enabled; }
+  public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+  public Duration getTtl() { return ttl; }
+  public void setTtl(Duration ttl) { this.ttl = ttl; }
+
+  public int getMaxEntries() { return maxEntries; }
+  public void setMaxEntries(int maxEntries) { this.maxEntries = maxEntries; }
+
+  public long getInFlightWaitMs() { return inFlightWaitMs; }
+  public void setInFlightWaitMs(long inFlightWaitMs) { this.inFlightWaitMs = inFlightWaitMs; }
+}
@@ -0,0 +1,60 @@
+package com.demo.insurance.claimrest.api;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets for one endpoint class, one per client, up to {@code maxClients}; clients beyond
+ * that share {@value #OVERFLOW_BUCKETS} overflow buckets, picked by client, until idle ones are
+ * swept. A flood of new clients then only slows the few that share a bucket with it.
+ *
+ * <p>Each bucket is a single {@link AtomicLong} holding its theoretical arrival time (the GCRA
+ * form of a token bucket): a request advances it by one emission interval and is admitted if the
+ * result is no further than {@code burst} intervals ahead of now. Admission is one CAS, and the
+ * rejected request learns exactly how long until a token is free.
+ */
+final class TokenBuckets {
+
+  private static final String OVERFLOW = "\u0000overflow-";
+  private static final int OVERFLOW_BUCKETS = 64;
+
+  private final long intervalNanos;
+  private final long toleranceNanos;
+  private final int maxClients;
+  private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+  TokenBuckets(AdmissionProperties.Limit limit, int maxClients) {
+    this.intervalNanos = Math.max(1, (long) (1e9 / limit.getRatePerSecond()));
+    this.toleranceNanos = intervalNanos * Math.max(1, limit.getBurst());
+    this.maxClients = maxClients;
+  }
+
+  /** 0 if {@code client} may proceed now, else the nanoseconds until it may. */
+  long acquire(String client, long now) {
+    AtomicLong tat = buckets.get(client);
+    if (tat == null) {
+      if (buckets.size() >= maxClients) client = OVERFLOW + Math.floorMod(client.hashCode(), OVERFLOW_BUCKETS);
+      tat = buckets.computeIfAbsent(client, k -> new AtomicLong(Long.MIN_VALUE));
+    }
+    while (true) {
+      long t = tat.get();
+      long next = (t == Long.MIN_VALUE || t - now < 0 ? now : t) + intervalNanos;
+      long wait = next - now - toleranceNanos;
+      if (wait > 0) return wait;
+      if (tat.compareAndSet(t, next)) return 0;
+    }
+  }
+
+  int size() {
+    return buckets.size();
+  }
+
+  // a bucket whose arrival time has passed is full again, so forgetting it changes nothing; a
+  // request racing with the removal draws from the detached bucket and costs at most one token
+  void sweep(long now) {
+    buckets.forEach((client, tat) -> {
+      long t = tat.get();
+      if (t == Long.MIN_VALUE || t - now <= 0) buckets.remove(client, tat);
+    });
+  }
+}
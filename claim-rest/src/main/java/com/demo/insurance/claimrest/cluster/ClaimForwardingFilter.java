@@ -0,0 +1,100 @@
+package com.demo.insurance.claimrest.cluster;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Sends requests for a single claim ({@code /claims/CLM-...} and everything below it) to the node
+ * that owns the claim and relays the answer unchanged, so clients can talk to any node.
+ */
+@Component
+// ahead of the idempotency filter, so the owner is the node that remembers Idempotency-Keys
+@Order(Ordered.LOWEST_PRECEDENCE - 10)
+public class ClaimForwardingFilter extends OncePerRequestFilter {
+
+  private static final Pattern CLAIM_PATH = Pattern.compile("^/claims/(CLM-[^/]+)(/.*)?$");
+  private static final Set<String> HOP_BY_HOP = Set.of(
+      "connection", "keep-alive", "transfer-encoding", "content-length", "upgrade", "date");
+
+  private final ClusterRouting routing;
+  private final ClusterClient client;
+
+  public ClaimForwardingFilter(ClusterRouting routing, ClusterClient client) {
+    this.routing = routing;
+    this.client = client;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !routing.isEnabled() || request.getHeader(ClusterClient.FORWARDED_BY) != null;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    Matcher m = CLAIM_PATH.matcher(path);
+    if (!m.matches() || routing.isLocal(m.group(1))) {
+      chain.doFilter(request, response);
+      return;
+    }
+
+    String owner = routing.owner(m.group(1));
+    String target = path + (request.getQueryString() == null ? "" : "?" + request.getQueryString());
+    HttpResponse<InputStream> res;
+    try {
+      res = client.send(owner, request.getMethod(), target, headers(request), request.getInputStream().readAllBytes(),
+          request.getRemoteAddr()).get();
+    } catch (ExecutionException e) {
+      unavailable(response, owner);
+      return;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      unavailable(response, owner);
+      return;
+    }
+
+    response.setStatus(res.statusCode());
+    res.headers().map().forEach((name, values) -> {
+      if (HOP_BY_HOP.contains(name.toLowerCase()) || name.startsWith(":")) return;
+      for (String v : values) response.addHeader(name, v);
+    });
+    try (InputStream body = res.body()) {
+      body.transferTo(response.getOutputStream());
+    }
+  }
+
+  private static Map<String, List<String>> headers(HttpServletRequest request) {
+    var headers = new LinkedHashMap<String, List<String>>();
+    for (String name : Collections.list(request.getHeaderNames())) {
+      headers.put(name, Collections.list(request.getHeaders(name)));
+    }
+    return headers;
+  }
+
+  private static void unavailable(HttpServletResponse response, String owner) throws IOException {
+    response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    response.setContentType("application/json");
+    response.getOutputStream().write(
+        ("{\"status\":503,\"error\":\"owner node unavailable: " + owner + "\"}").getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,236 @@
+package com.demo.insurance.claimrest.cluster;
+
+import com.demo.insurance.claimrest.model.Claim;
+import com.demo.insurance.claimrest.model.ClaimSearchHit;
+import com.demo.insurance.claimrest.model.ClaimStatistics;
+import com.demo.insurance.claimrest.model.PolicyTotals;
+import com.demo.insurance.claimrest.service.ClaimCursor;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriUtils;
+
+/**
+ * Cluster-wide listings. Every node already returns its claims newest-first, so the local result
+ * and the peers' results are k-way merged on {@link ClaimCursor} order without buffering them.
+ * Peers that cannot be reached are reported instead of failing the whole listing.
+ */
+@Component
+public class ClaimScatterGather {
+
+  public record Gathered(Stream<Claim> claims, List<String> unavailable) {}
+
+  /** At most {@code limit} claims; {@code more} if any node has claims beyond them. */
+  public record Page(List<Claim> claims, boolean more, List<String> unavailable) {}
+
+  public record Stats(ClaimStatistics stats, List<String> unavailable) {}
+
+  public record Totals(PolicyTotals totals, List<String> unavailable) {}
+
+  public record Hits(List<ClaimSearchHit> hits, List<String> unavailable) {}
+
+  private static final TypeReference<List<Claim>> CLAIM_LIST = new TypeReference<>() {};
+  private static final TypeReference<List<ClaimSearchHit>> HIT_LIST = new TypeReference<>() {};
+
+  private final ClusterRouting routing;
+  private final ClusterClient client;
+  private final ObjectMapper json;
+
+  public ClaimScatterGather(ClusterRouting routing, ClusterClient client, ObjectMapper json) {
+    this.routing = routing;
+    this.client = client;
+    this.json = json;
+  }
+
+  /** Merges the local stream with the same listing ({@code query}) from every peer. */
+  public Gathered stream(Stream<Claim> local, String query) {
+    var unavailable = new ArrayList<String>();
+    var sources = new ArrayList<Iterator<Claim>>();
+    var open = new ArrayList<AutoCloseable>();
+    sources.add(local.iterator());
+    open.add(local);
+    for (var peer : fetch(query).entrySet()) {
+      try {
+        HttpResponse<InputStream> res = peer.getValue().join();
+        if (res.statusCode() != 200) {
+          res.body().close();
+          unavailable.add(peer.getKey());
+          continue;
+        }
+        MappingIterator<Claim> it = json.readerFor(Claim.class).readValues(res.body());
+        sources.add(it);
+        open.add(it);
+      } catch (IOException | RuntimeException e) {
+        unavailable.add(peer.getKey());
+      }
+    }
+    Stream<Claim> merged = StreamSupport.stream(
+        Spliterators.spliteratorUnknownSize(new MergingIterator(sources), Spliterator.ORDERED | Spliterator.NONNULL),
+        false);
+    return new Gathered(merged.onClose(() -> closeAll(open)), unavailable);
+  }
+
+  /** Merges the local page with the same page ({@code query}) from every peer. */
+  public Page page(Page local, String query, int limit) {
+    var unavailable = new ArrayList<String>();
+    var all = new ArrayList<>(local.claims());
+    boolean more = local.more();
+    for (var peer : fetch(query).entrySet()) {
+      try {
+        HttpResponse<InputStream> res = peer.getValue().join();
+        try (InputStream body = res.body()) {
+          if (res.statusCode() != 200) {
+            unavailable.add(peer.getKey());
+            continue;
+          }
+          all.addAll(json.readValue(body, CLAIM_LIST));
+        }
+        more |= res.headers().firstValue("X-Next-Cursor").isPresent();
+      } catch (IOException | RuntimeException e) {
+        unavailable.add(peer.getKey());
+      }
+    }
+    all.sort(Comparator.comparing(ClaimCursor::of));
+    if (all.size() > limit) {
+      return new Page(List.copyOf(all.subList(0, limit)), true, unavailable);
+    }
+    return new Page(all, more, unavailable);
+  }
+
+  /**
+   * Best {@code limit} search hits across all nodes. Scores are relative to each node's own
+   * index, which is close enough once claims are spread evenly by the hash ring.
+   */
+  public Hits search(List<ClaimSearchHit> local, String query, int limit) {
+    var unavailable = new ArrayList<String>();
+    var all = new ArrayList<>(local);
+    for (var peer : fetch("/claims/search", query).entrySet()) {
+      try {
+        HttpResponse<InputStream> res = peer.getValue().join();
+        try (InputStream body = res.body()) {
+          if (res.statusCode() != 200) {
+            unavailable.add(peer.getKey());
+            continue;
+          }
+          all.addAll(json.readValue(body, HIT_LIST));
+        }
+      } catch (IOException | RuntimeException e) {
+        unavailable.add(peer.getKey());
+      }
+    }
+    all.sort(Comparator.comparingDouble(ClaimSearchHit::score).reversed());
+    return new Hits(all.size() > limit ? List.copyOf(all.subList(0, limit)) : all, unavailable);
+  }
+
+  /** Adds up the statistics of every node. */
+  public Stats stats(ClaimStatistics local) {
+    var unavailable = new ArrayList<String>();
+    ClaimStatistics sum = local;
+    for (var peer : fetch("/claims/stats", null).entrySet()) {
+      try {
+        HttpResponse<InputStream> res = peer.getValue().join();
+        try (InputStream body = res.body()) {
+          if (res.statusCode() != 200) {
+            unavailable.add(peer.getKey());
+            continue;
+          }
+          sum = sum.plus(json.readValue(body, ClaimStatistics.class));
+        }
+      } catch (IOException | RuntimeException e) {
+        unavailable.add(peer.getKey());
+      }
+    }
+    return new Stats(sum, unavailable);
+  }
+
+  /** Adds up the totals of {@code local}'s policy on every node. */
+  public Totals policyTotals(PolicyTotals local) {
+    var unavailable = new ArrayList<String>();
+    PolicyTotals sum = local;
+    String path = "/claims/policies/" + UriUtils.encodePathSegment(local.policyNumber(), StandardCharsets.UTF_8) + "/totals";
+    for (var peer : fetch(path, null).entrySet()) {
+      try {
+        HttpResponse<InputStream> res = peer.getValue().join();
+        try (InputStream body = res.body()) {
+          if (res.statusCode() != 200) {
+            unavailable.add(peer.getKey());
+            continue;
+          }
+          sum = sum.plus(json.readValue(body, PolicyTotals.class));
+        }
+      } catch (IOException | RuntimeException e) {
+        unavailable.add(peer.getKey());
+      }
+    }
+    return new Totals(sum, unavailable);
+  }
+
+  private Map<String, CompletableFuture<HttpResponse<InputStream>>> fetch(String query) {
+    return fetch("/claims", query);
+  }
+
+  // all requests go out before any response is awaited
+  private Map<String, CompletableFuture<HttpResponse<InputStream>>> fetch(String path, String query) {
+    String target = path + (query == null || query.isEmpty() ? "" : "?" + query);
+    var pending = new LinkedHashMap<String, CompletableFuture<HttpResponse<InputStream>>>();
+    for (String peer : routing.peers()) pending.put(peer, client.get(peer, target));
+    return pending;
+  }
+
+  private static void closeAll(List<AutoCloseable> open) {
+    for (AutoCloseable c : open) {
+      try {
+        c.close();
+      } catch (Exception ignored) {
+        // peer connection already gone
+      }
+    }
+  }
+
+  private static final class MergingIterator implements Iterator<Claim> {
+    private record Head(Claim claim, ClaimCursor key, Iterator<Claim> source) {}
+
+    private final PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparing(Head::key));
+
+    MergingIterator(List<Iterator<Claim>> sources) {
+      for (Iterator<Claim> s : sources) advance(s);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !heads.isEmpty();
+    }
+
+    @Override
+    public Claim next() {
+      Head h = heads.poll();
+      if (h == null) throw new NoSuchElementException();
+      advance(h.source());
+      return h.claim();
+    }
+
+    private void advance(Iterator<Claim> source) {
+      try {
+        if (source.hasNext()) {
+          Claim c = source.next();
+          heads.add(new Head(c, ClaimCursor.of(c), source));
+        }
+      } catch (RuntimeException e) {
+        // a peer dropped mid-stream; a silently truncated listing would look complete
+        throw new UncheckedIOException(new IOException("cluster listing interrupted", e));
+      }
+    }
+  }
+}
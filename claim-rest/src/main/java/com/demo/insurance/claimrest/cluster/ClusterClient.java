@@ -0,0 +1,108 @@
+package com.demo.insurance.claimrest.cluster;
+
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.stereotype.Component;
+
+/** HTTP calls between cluster nodes; every call is marked so the receiver serves it locally. */
+@Component
+public class ClusterClient {
+
+  /** Set on node-to-node requests; the receiver must not route or scatter them again. */
+  public static final String FORWARDED_BY = "X-Claims-Forwarded-By";
+  /** Proves a node-to-node request comes from the cluster when {@code claims.cluster.secret} is set. */
+  public static final String SECRET = "X-Claims-Cluster-Secret";
+  /** Address of the client a forwarded request came from, trusted only on a forwarded request. */
+  public static final String FORWARDED_FOR = "X-Claims-Forwarded-For";
+
+  // the JDK client manages these itself and rejects them as request headers; ours are set per call
+  private static final Set<String> RESTRICTED = Set.of(
+      "connection", "content-length", "expect", "host", "upgrade", "keep-alive", "transfer-encoding",
+      FORWARDED_BY.toLowerCase(), SECRET.toLowerCase(), FORWARDED_FOR.toLowerCase());
+
+  private final HttpClient http;
+  private final Duration timeout;
+  private final String self;
+  private final boolean enabled;
+  private final byte[] secret;
+  private final Set<String> peerAddresses = new HashSet<>();
+
+  public ClusterClient(ClusterProperties props) {
+    this.timeout = Duration.ofMillis(props.getTimeoutMs());
+    this.self = props.getSelf();
+    this.enabled = props.isEnabled();
+    this.secret = props.getSecret().getBytes(StandardCharsets.UTF_8);
+    if (enabled && secret.length == 0) {
+      for (String node : props.getNodes()) {
+        String host = URI.create(node).getHost();
+        try {
+          for (InetAddress a : InetAddress.getAllByName(host)) peerAddresses.add(a.getHostAddress());
+        } catch (UnknownHostException e) {
+          System.out.printf("[cluster] cannot resolve node %s, requests from it count as external%n", node);
+        }
+      }
+    }
+    this.http = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(timeout)
+        .build();
+  }
+
+  public CompletableFuture<HttpResponse<InputStream>> send(
+      String node, String method, String pathAndQuery, Map<String, ? extends Iterable<String>> headers, byte[] body) {
+    return send(node, method, pathAndQuery, headers, body, null);
+  }
+
+  /** Like {@link #send}, passing on the address of the client the request came from. */
+  public CompletableFuture<HttpResponse<InputStream>> send(String node, String method, String pathAndQuery,
+      Map<String, ? extends Iterable<String>> headers, byte[] body, String clientAddress) {
+    var req = HttpRequest.newBuilder(URI.create(node + pathAndQuery))
+        .timeout(timeout)
+        .header(FORWARDED_BY, self)
+        .method(method, body == null || body.length == 0
+            ? HttpRequest.BodyPublishers.noBody()
+            : HttpRequest.BodyPublishers.ofByteArray(body));
+    if (secret.length > 0) req.header(SECRET, new String(secret, StandardCharsets.UTF_8));
+    if (clientAddress != null) req.header(FORWARDED_FOR, clientAddress);
+    headers.forEach((name, values) -> {
+      if (RESTRICTED.contains(name.toLowerCase())) return;
+      for (String v : values) req.header(name, v);
+    });
+    return http.sendAsync(req.build(), HttpResponse.BodyHandlers.ofInputStream());
+  }
+
+  /**
+   * Whether {@code request} was forwarded by another node of this cluster: it must carry
+   * {@link #FORWARDED_BY} and the cluster secret, or come from a node's address if no secret is set.
+   */
+  public boolean isForwarded(HttpServletRequest request) {
+    if (!enabled || request.getHeader(FORWARDED_BY) == null) return false;
+    if (secret.length == 0) return peerAddresses.contains(request.getRemoteAddr());
+    String given = request.getHeader(SECRET);
+    return given != null && MessageDigest.isEqual(secret, given.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** The address of the client behind {@code request}, also when another node forwarded it. */
+  public String clientAddress(HttpServletRequest request) {
+    String forwardedFor = request.getHeader(FORWARDED_FOR);
+    return forwardedFor != null && isForwarded(request) ? forwardedFor : request.getRemoteAddr();
+  }
+
+  public CompletableFuture<HttpResponse<InputStream>> get(String node, String pathAndQuery) {
+    return send(node, "GET", pathAndQuery, Map.of("Accept", Set.of("application/json")), null);
+  }
+}
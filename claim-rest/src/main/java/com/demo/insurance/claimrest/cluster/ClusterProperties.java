@@ -0,0 +1,39 @@
+package com.demo.insurance.claimrest.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "claims.cluster")
+public class ClusterProperties {
+
+  private boolean enabled = false;
+  // base URL of this node exactly as it appears in nodes
+  private String self = "http://localhost:8081";
+  private List<String> nodes = new ArrayList<>();
+  private int virtualNodes = 128;
+  private long timeoutMs = 5_000;
+  // sent with node-to-node requests and required of them; empty = trust requests from the nodes' addresses
+  private String secret = "";
+
+  public boolean isEnabled() { return enabled; }
+  public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+  public String getSelf() { return self; }
+  public void setSelf(String self) { this.self = self; }
+
+  public List<String> getNodes() { return nodes; }
+  public void setNodes(List<String> nodes) { this.nodes = nodes; }
+
+  public int getVirtualNodes() { return virtualNodes; }
+  public void setVirtualNodes(int virtualNodes) { this.virtualNodes = virtualNodes; }
+
+  public long getTimeoutMs() { return timeoutMs; }
+  public void setTimeoutMs(long timeoutMs) { this.timeoutMs = timeoutMs; }
+
+  public String getSecret() { return secret; }
+  public void setSecret(String secret) { this.secret = secret; }
+}
@@ -0,0 +1,52 @@
+package com.demo.insurance.claimrest.cluster;
+
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Which node owns which claim. With clustering disabled this node owns everything, so the rest of
+ * the application can ask unconditionally.
+ */
+@Component
+public class ClusterRouting {
+
+  private final ClusterProperties props;
+  private final HashRing ring;
+  private final List<String> peers;
+
+  public ClusterRouting(ClusterProperties props) {
+    this.props = props;
+    if (props.isEnabled()) {
+      if (!props.getNodes().contains(props.getSelf())) {
+        throw new IllegalStateException("claims.cluster.self " + props.getSelf() + " is not in claims.cluster.nodes");
+      }
+      this.ring = new HashRing(props.getNodes(), props.getVirtualNodes());
+      this.peers = props.getNodes().stream().filter(n -> !n.equals(props.getSelf())).toList();
+    } else {
+      this.ring = null;
+      this.peers = List.of();
+    }
+  }
+
+  public boolean isEnabled() {
+    return ring != null;
+  }
+
+  public String self() {
+    return props.getSelf();
+  }
+
+  public String owner(String claimId) {
+    return ring == null ? props.getSelf() : ring.owner(claimId);
+  }
+
+  public boolean isLocal(String claimId) {
+    return ring == null || ring.owner(claimId).equals(props.getSelf());
+  }
+
+  /** Every other node of the cluster, in configuration order. */
+  public List<String> peers() {
+    return peers;
+  }
+}
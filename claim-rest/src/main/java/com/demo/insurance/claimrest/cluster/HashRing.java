@@ -0,0 +1,51 @@
+package com.demo.insurance.claimrest.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring with virtual nodes. Adding or removing a node only moves the keys of the
+ * ring segments it gains or loses. Immutable once built, so lookups need no locking.
+ */
+public final class HashRing {
+
+  private final NavigableMap<Long, String> ring = new TreeMap<>();
+  private final List<String> nodes;
+
+  public HashRing(List<String> nodes, int virtualNodes) {
+    if (nodes.isEmpty()) throw new IllegalArgumentException("hash ring needs at least one node");
+    this.nodes = List.copyOf(nodes);
+    for (String node : this.nodes) {
+      for (int v = 0; v < virtualNodes; v++) {
+        ring.put(hash(node + "#" + v), node);
+      }
+    }
+  }
+
+  public String owner(String key) {
+    Map.Entry<Long, String> e = ring.ceilingEntry(hash(key));
+    return (e != null ? e : ring.firstEntry()).getValue();
+  }
+
+  public List<String> nodes() {
+    return nodes;
+  }
+
+  // FNV-1a followed by the murmur3 finalizer for a well-mixed 64-bit position
+  static long hash(String key) {
+    long h = 0xcbf29ce484222325L;
+    for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+      h ^= b;
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
@@ -2,8 +2,8 @@ package com.demo.insurance.claimrest.model;
 
 import java.math.BigDecimal;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 public class Claim {
   public String id;
@@ -18,5 +18,12 @@ public class Claim {
   public ClaimStatus status;
   public Instant createdAt;
 
-  public List<ClaimHistoryEvent> history = new ArrayList<>();
+  // bumped by every mutation; used for ETag / If-Match
+  public long version;
+
+  public ClaimHistory history = new ClaimHistory();
+
+  // journal sequence number of the last mutation applied to this claim
+  @JsonIgnore
+  public long lsn;
 }
@@ -0,0 +1,24 @@
+package com.demo.insurance.claimrest.model;
+
+import java.time.Instant;
+
+/** One change of a claim as seen by feed subscribers; {@code seq} orders all changes of the process. */
+public record ClaimChangeEvent(
+    long seq,
+    Type type,
+    String claimId,
+    String customerId,
+    ClaimStatus status,
+    String message,
+    long version,
+    Instant at
+) {
+  public enum Type {
+    CREATED,
+    STATUS_CHANGED,
+    UPDATED,
+    DELETED,
+    // events between the requested seq and this one are no longer available; re-read the claims
+    GAP
+  }
+}
@@ -0,0 +1,121 @@
+package com.demo.insurance.claimrest.model;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free, append-only event log of one claim.
+ *
+ * <p>Writers reserve a slot with a single {@code getAndIncrement} and publish the event with a
+ * volatile store into a fixed-size chunk; chunks are linked on demand with a CAS. Every event gets
+ * the 1-based sequence number of its slot. Readers walk the chunks and stop at the first slot that
+ * is not yet published, so they always see a gap-free prefix and never block a writer.
+ */
+public final class ClaimHistory extends AbstractCollection<ClaimHistoryEvent> {
+
+  private static final int CHUNK_SIZE = 16;
+
+  private static final class Chunk {
+    final long base;
+    final AtomicReferenceArray<ClaimHistoryEvent> slots = new AtomicReferenceArray<>(CHUNK_SIZE);
+    final AtomicReference<Chunk> next = new AtomicReference<>();
+
+    Chunk(long base) { this.base = base; }
+  }
+
+  private final Chunk head = new Chunk(0);
+  private final AtomicLong reserved = new AtomicLong();
+  // only a starting hint for appends; may briefly lag behind the real tail
+  private volatile Chunk tail = head;
+
+  @Override
+  public boolean add(ClaimHistoryEvent e) {
+    long idx = reserved.getAndIncrement();
+    e.seq = idx + 1;
+    Chunk c = chunkFor(idx);
+    c.slots.set((int) (idx - c.base), e);
+    return true;
+  }
+
+  /** Events with a sequence number greater than {@code seq}, oldest first. */
+  public List<ClaimHistoryEvent> since(long seq) {
+    var out = new ArrayList<ClaimHistoryEvent>();
+    Chunk c = head;
+    while (c != null && c.base + CHUNK_SIZE <= seq) c = c.next.get();
+    for (; c != null; c = c.next.get()) {
+      for (int i = (int) Math.max(0, seq - c.base); i < CHUNK_SIZE; i++) {
+        ClaimHistoryEvent e = c.slots.get(i);
+        if (e == null) return out;
+        out.add(e);
+      }
+    }
+    return out;
+  }
+
+  /** Sequence number of the newest published event, 0 if there is none. */
+  public long lastSeq() {
+    long last = 0;
+    for (ClaimHistoryEvent e : this) last = e.seq;
+    return last;
+  }
+
+  @Override
+  public Iterator<ClaimHistoryEvent> iterator() {
+    return new Iterator<>() {
+      Chunk chunk = head;
+      int slot;
+      ClaimHistoryEvent next = advance();
+
+      private ClaimHistoryEvent advance() {
+        if (chunk == null) return null;
+        if (slot == CHUNK_SIZE) {
+          chunk = chunk.next.get();
+          slot = 0;
+          if (chunk == null) return null;
+        }
+        ClaimHistoryEvent e = chunk.slots.get(slot);
+        if (e != null) slot++;
+        return e;
+      }
+
+      public boolean hasNext() {
+        return next != null;
+      }
+
+      public ClaimHistoryEvent next() {
+        if (next == null) throw new NoSuchElementException();
+        ClaimHistoryEvent e = next;
+        next = advance();
+        return e;
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    int n = 0;
+    for (ClaimHistoryEvent ignored : this) n++;
+    return n;
+  }
+
+  private Chunk chunkFor(long idx) {
+    Chunk c = tail;
+    if (c.base > idx) c = head;
+    while (idx >= c.base + CHUNK_SIZE) {
+      Chunk n = c.next.get();
+      if (n == null) {
+        Chunk fresh = new Chunk(c.base + CHUNK_SIZE);
+        n = c.next.compareAndSet(null, fresh) ? fresh : c.next.get();
+      }
+      c = n;
+    }
+    if (c.base > tail.base) tail = c;
+    return c;
+  }
+}
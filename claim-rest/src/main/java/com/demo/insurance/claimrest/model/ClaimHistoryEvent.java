@@ -3,6 +3,8 @@ package com.demo.insurance.claimrest.model;
 import java.time.Instant;
 
 public class ClaimHistoryEvent {
+  // position in the claim's history, assigned by ClaimHistory on append
+  public long seq;
   public Instant at;
   public ClaimStatus status;
   public String message;
@@ -0,0 +1,4 @@
+package com.demo.insurance.claimrest.model;
+
+/** A claim matching a description search, with its relevance (BM25, higher is better). */
+public record ClaimSearchHit(double score, Claim claim) {}
@@ -0,0 +1,50 @@
+package com.demo.insurance.claimrest.model;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** Aggregates over all live claims; amounts are summed in cents. */
+public record ClaimStatistics(
+    long total,
+    BigDecimal claimedAmount,
+    Map<ClaimStatus, Group> byStatus,
+    Map<ClaimType, Group> byType,
+    SubmissionRate submissions
+) {
+  public record Group(long count, BigDecimal claimedAmount) {
+    Group plus(Group o) {
+      return o == null ? this : new Group(count + o.count, claimedAmount.add(o.claimedAmount));
+    }
+  }
+
+  /** Submissions per minute over the last {@code windowMinutes}, oldest minute first. */
+  public record SubmissionRate(int windowMinutes, double perMinute, List<Minute> minutes) {}
+
+  public record Minute(Instant start, long count) {}
+
+  /** Sum of two nodes' statistics, used to answer for a whole cluster. */
+  public ClaimStatistics plus(ClaimStatistics o) {
+    var status = new EnumMap<ClaimStatus, Group>(ClaimStatus.class);
+    byStatus.forEach((k, g) -> status.put(k, g.plus(o.byStatus.get(k))));
+    o.byStatus.forEach(status::putIfAbsent);
+    var type = new EnumMap<ClaimType, Group>(ClaimType.class);
+    byType.forEach((k, g) -> type.put(k, g.plus(o.byType.get(k))));
+    o.byType.forEach(type::putIfAbsent);
+
+    var minutes = new TreeMap<Instant, Long>();
+    for (Minute m : submissions.minutes) minutes.merge(m.start, m.count, Long::sum);
+    for (Minute m : o.submissions.minutes) minutes.merge(m.start, m.count, Long::sum);
+    var merged = minutes.entrySet().stream().map(e -> new Minute(e.getKey(), e.getValue())).toList();
+
+    return new ClaimStatistics(
+        total + o.total,
+        claimedAmount.add(o.claimedAmount),
+        status,
+        type,
+        new SubmissionRate(submissions.windowMinutes, submissions.perMinute + o.submissions.perMinute, merged));
+  }
+}
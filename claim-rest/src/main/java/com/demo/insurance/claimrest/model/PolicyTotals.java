@@ -0,0 +1,21 @@
+package com.demo.insurance.claimrest.model;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+
+/** Claims filed against one policy, overall and per status; amounts are summed in cents. */
+public record PolicyTotals(
+    String policyNumber,
+    long claims,
+    BigDecimal claimedAmount,
+    Map<ClaimStatus, ClaimStatistics.Group> byStatus
+) {
+  /** Sum of two nodes' totals for the same policy, used to answer for a whole cluster. */
+  public PolicyTotals plus(PolicyTotals o) {
+    var status = new EnumMap<ClaimStatus, ClaimStatistics.Group>(ClaimStatus.class);
+    byStatus.forEach((k, g) -> status.put(k, g.plus(o.byStatus.get(k))));
+    o.byStatus.forEach(status::putIfAbsent);
+    return new PolicyTotals(policyNumber, claims + o.claims, claimedAmount.add(o.claimedAmount), status);
+  }
+}
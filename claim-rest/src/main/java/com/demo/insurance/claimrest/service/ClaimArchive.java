@@ -0,0 +1,335 @@
+package com.demo.insurance.claimrest.service;
+
+import com.demo.insurance.claimrest.model.Claim;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Cold tier of {@link ClaimStore}: immutable, memory-mapped segment files holding claims that
+ * reached a final status long ago and no longer need to live on the heap.
+ *
+ * <p>A {@code segment-N.seg} is {@code [int magic][short version]}, then deflated blocks of up to
+ * {@value #BLOCK_CLAIMS} claims sorted by id, each {@code [int count][int rawLength]} plus the
+ * compressed bytes of {@code [int length][long lsn][claim]} entries. A sparse index of every
+ * block's first and last id follows, and the file ends with {@code [long indexOffset][int magic]}.
+ * Only the sparse index is kept on the heap; a lookup binary-searches it and inflates a single
+ * block, and none at all in a segment whose blocks do not cover the id. Version 1 segments index
+ * first ids only, so there a lookup inflates the last block starting at or before the id.
+ *
+ * <p>A claim may appear in several segments if it was brought back to the live tier and archived
+ * again; the newest segment wins. Since segments are never rewritten, deleting an archived claim
+ * hides it at once and {@link #syncTombstones} appends its id to {@code tombstones.ids} after the
+ * delete itself is durable in the journal; replaying that delete hides the claim again if the
+ * process stopped in between.
+ */
+final class ClaimArchive {
+
+  private static final int MAGIC = 0x434c4d41;  // "CLMA"
+  private static final short VERSION = 2;
+  private static final int BLOCK_CLAIMS = 64;
+  private static final int CACHED_BLOCKS = 256;
+
+  private static final Pattern SEGMENT_FILE = Pattern.compile("segment-(\\d+)\\.seg");
+  private static final String TOMBSTONES = "tombstones.ids";
+
+  /** One claim as written at archive time, encoded with {@link ClaimCodec#writeClaim}. */
+  record Entry(String id, long lsn, byte[] claim) {}
+
+  // lastId is null in version 1 segments
+  private record Block(String firstId, String lastId, long offset, int compressed, int raw, int count) {}
+
+  private record Segment(long number, MappedByteBuffer data, Block[] blocks) {}
+
+  private record CachedBlock(long segment, int block, byte[] bytes) {}
+
+  private final Path dir;
+  private final Set<String> tombstones = ConcurrentHashMap.newKeySet();
+  // tombstoned but not in tombstones.ids yet
+  private final Set<String> unsynced = ConcurrentHashMap.newKeySet();
+  // newest first; replaced wholesale when a segment is added
+  private volatile List<Segment> segments = List.of();
+  private final AtomicReferenceArray<CachedBlock> cache = new AtomicReferenceArray<>(CACHED_BLOCKS);
+  private final ReentrantLock appendLock = new ReentrantLock();
+  private FileChannel tombstoneLog;
+
+  ClaimArchive(Path dir) throws IOException {
+    this.dir = dir;
+    Files.createDirectories(dir);
+    var open = new ArrayList<Segment>();
+    try (Stream<Path> files = Files.list(dir)) {
+      for (Path p : (Iterable<Path>) files::iterator) {
+        Matcher m = SEGMENT_FILE.matcher(p.getFileName().toString());
+        if (m.matches()) open.add(open(p, Long.parseLong(m.group(1))));
+      }
+    }
+    open.sort(Comparator.comparingLong(Segment::number).reversed());
+    segments = List.copyOf(open);
+
+    Path tomb = dir.resolve(TOMBSTONES);
+    if (Files.exists(tomb)) {
+      for (String id : Files.readAllLines(tomb, StandardCharsets.UTF_8)) {
+        if (!id.isEmpty()) tombstones.add(id);
+      }
+    }
+    tombstoneLog = FileChannel.open(tomb, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+  }
+
+  boolean isEmpty() {
+    return segments.isEmpty();
+  }
+
+  /** The newest archived copy of claim {@code id}, decoded afresh; null if absent or deleted. */
+  Claim get(String id) {
+    return tombstones.contains(id) ? null : getIncludingDeleted(id);
+  }
+
+  /** Like {@link #get}, but also for a deleted claim: what replaying its delete starts from. */
+  Claim getIncludingDeleted(String id) {
+    for (Segment s : segments) {
+      int b = blockFor(s, id);
+      if (b < 0) continue;
+      Claim c = find(s, b, id);
+      if (c != null) return c;
+    }
+    return null;
+  }
+
+  /** Every archived claim once, newest copy only, skipping deleted ones. Used to rebuild indexes. */
+  void forEach(Consumer<Claim> sink) {
+    var seen = new HashSet<String>();
+    for (Segment s : segments) {
+      for (int b = 0; b < s.blocks().length; b++) {
+        ByteBuffer in = ByteBuffer.wrap(inflate(s, b));
+        while (in.hasRemaining()) {
+          int len = in.getInt();
+          int next = in.position() + len;
+          long lsn = in.getLong();
+          String id = ClaimCodec.readString(in.duplicate());
+          if (!tombstones.contains(id) && seen.add(id)) {
+            Claim c = ClaimCodec.readClaim(in);
+            c.lsn = lsn;
+            sink.accept(c);
+          }
+          in.position(next);
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes {@code entries} as a new segment and makes it visible to readers. The file is synced
+   * before it is renamed into place, so once this returns the claims may leave the live tier.
+   */
+  void write(List<Entry> entries) throws IOException {
+    var sorted = new ArrayList<>(entries);
+    sorted.sort(Comparator.comparing(Entry::id));
+    appendLock.lock();
+    try {
+      long number = segments.isEmpty() ? 1 : segments.get(0).number() + 1;
+      Path target = dir.resolve(String.format("segment-%06d.seg", number));
+      Path tmp = dir.resolve(target.getFileName() + ".tmp");
+      try (var fos = new FileOutputStream(tmp.toFile());
+           var out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        long offset = 6;
+        var index = new ArrayList<Block>();
+        var raw = new ByteArrayOutputStream(1 << 16);
+        var rawOut = new DataOutputStream(raw);
+        var deflater = new Deflater(Deflater.BEST_SPEED);
+        byte[] buf = new byte[1 << 16];
+        for (int i = 0; i < sorted.size(); i += BLOCK_CLAIMS) {
+          var block = sorted.subList(i, Math.min(i + BLOCK_CLAIMS, sorted.size()));
+          raw.reset();
+          for (Entry e : block) {
+            rawOut.writeInt(8 + e.claim().length);
+            rawOut.writeLong(e.lsn());
+            rawOut.write(e.claim());
+          }
+          out.writeInt(block.size());
+          out.writeInt(raw.size());
+          deflater.reset();
+          deflater.setInput(raw.toByteArray());
+          deflater.finish();
+          int compressed = 0;
+          while (!deflater.finished()) {
+            int n = deflater.deflate(buf);
+            out.write(buf, 0, n);
+            compressed += n;
+          }
+          index.add(new Block(block.get(0).id(), block.get(block.size() - 1).id(), offset + 8, compressed, raw.size(), block.size()));
+          offset += 8 + compressed;
+        }
+        deflater.end();
+
+        out.writeInt(index.size());
+        for (Block b : index) {
+          writeId(out, b.firstId());
+          writeId(out, b.lastId());
+          out.writeLong(b.offset());
+          out.writeInt(b.compressed());
+          out.writeInt(b.raw());
+          out.writeInt(b.count());
+        }
+        out.writeLong(offset);
+        out.writeInt(MAGIC);
+        out.flush();
+        fos.getFD().sync();
+      } catch (IOException e) {
+        Files.deleteIfExists(tmp);
+        throw e;
+      }
+      Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+
+      var next = new ArrayList<Segment>(segments.size() + 1);
+      next.add(open(target, number));
+      next.addAll(segments);
+      segments = List.copyOf(next);
+      System.out.printf("[archive] %s written with %d claims%n", target.getFileName(), sorted.size());
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  /** Marks an archived claim deleted for readers right away; {@link #syncTombstones} persists it. */
+  void tombstone(String id) {
+    if (tombstones.add(id)) unsynced.add(id);
+  }
+
+  /**
+   * Appends every id tombstoned so far to {@code tombstones.ids} and syncs it, with one sync for
+   * all callers that arrive while another one's is in progress.
+   */
+  void syncTombstones() throws IOException {
+    if (unsynced.isEmpty()) return;
+    appendLock.lock();
+    try {
+      var ids = new StringBuilder();
+      for (var it = unsynced.iterator(); it.hasNext(); ) {
+        ids.append(it.next()).append('\n');
+        it.remove();
+      }
+      if (ids.isEmpty()) return;
+      tombstoneLog.write(ByteBuffer.wrap(ids.toString().getBytes(StandardCharsets.UTF_8)));
+      tombstoneLog.force(false);
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  void close() throws IOException {
+    syncTombstones();
+    tombstoneLog.close();
+  }
+
+  private static void writeId(DataOutputStream out, String id) throws IOException {
+    byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+    out.writeShort(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readId(ByteBuffer in) {
+    byte[] id = new byte[in.getShort()];
+    in.get(id);
+    return new String(id, StandardCharsets.UTF_8);
+  }
+
+  private static Segment open(Path p, long number) throws IOException {
+    try (FileChannel ch = FileChannel.open(p, StandardOpenOption.READ)) {
+      MappedByteBuffer data = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+      int size = data.capacity();
+      if (size < 18 || data.getInt(0) != MAGIC || data.getInt(size - 4) != MAGIC) {
+        throw new IOException("not an archive segment: " + p);
+      }
+      short version = data.getShort(4);
+      if (version < 1 || version > VERSION) throw new IOException("unsupported archive segment version " + version + ": " + p);
+      ByteBuffer in = data.duplicate().position((int) data.getLong(size - 12));
+      var blocks = new Block[in.getInt()];
+      for (int i = 0; i < blocks.length; i++) {
+        String firstId = readId(in);
+        String lastId = version >= 2 ? readId(in) : null;
+        blocks[i] = new Block(firstId, lastId, in.getLong(), in.getInt(), in.getInt(), in.getInt());
+      }
+      return new Segment(number, data, blocks);
+    }
+  }
+
+  // last block whose first id is <= id, or -1 if that block ends before id
+  private static int blockFor(Segment s, String id) {
+    Block[] blocks = s.blocks();
+    int lo = 0, hi = blocks.length - 1, found = -1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (blocks[mid].firstId().compareTo(id) <= 0) {
+        found = mid;
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    if (found >= 0 && blocks[found].lastId() != null && blocks[found].lastId().compareTo(id) < 0) return -1;
+    return found;
+  }
+
+  private Claim find(Segment s, int b, String id) {
+    ByteBuffer in = ByteBuffer.wrap(cached(s, b));
+    while (in.hasRemaining()) {
+      int len = in.getInt();
+      int next = in.position() + len;
+      long lsn = in.getLong();
+      int cmp = ClaimCodec.readString(in.duplicate()).compareTo(id);
+      if (cmp == 0) {
+        Claim c = ClaimCodec.readClaim(in);
+        c.lsn = lsn;
+        return c;
+      }
+      if (cmp > 0) return null;
+      in.position(next);
+    }
+    return null;
+  }
+
+  // direct-mapped cache of inflated blocks; a racing reader at worst inflates the same block twice
+  private byte[] cached(Segment s, int b) {
+    int slot = (int) ((s.number() * 31 + b) & (CACHED_BLOCKS - 1));
+    CachedBlock hit = cache.get(slot);
+    if (hit != null && hit.segment() == s.number() && hit.block() == b) return hit.bytes();
+    byte[] bytes = inflate(s, b);
+    cache.set(slot, new CachedBlock(s.number(), b, bytes));
+    return bytes;
+  }
+
+  private static byte[] inflate(Segment s, int b) {
+    Block block = s.blocks()[b];
+    byte[] compressed = new byte[block.compressed()];
+    s.data().get((int) block.offset(), compressed);
+    var inflater = new Inflater();
+    try {
+      inflater.setInput(compressed);
+      byte[] raw = new byte[block.raw()];
+      int n = 0;
+      while (n < raw.length && !inflater.finished()) n += inflater.inflate(raw, n, raw.length - n);
+      return raw;
+    } catch (DataFormatException e) {
+      throw new UncheckedIOException(new IOException("corrupt archive block " + b + " in segment " + s.number(), e));
+    } finally {
+      inflater.end();
+    }
+  }
+}
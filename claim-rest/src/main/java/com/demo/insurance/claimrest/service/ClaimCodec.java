@@ -0,0 +1,208 @@
+package com.demo.insurance.claimrest.service;
+
+import com.demo.insurance.claimrest.model.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Binary encoding of claims and mutations for the journal and snapshots.
+ * Enums are written by name so that reordering constants never corrupts old files.
+ */
+final class ClaimCodec {
+
+  private static final byte CREATED = 1;
+  private static final byte STATUS_CHANGED = 2;
+  private static final byte FIELDS_UPDATED = 3;
+  private static final byte DELETED = 4;
+  private static final byte ARCHIVED = 5;
+
+  private ClaimCodec() {}
+
+  static byte[] encode(long lsn, ClaimMutation m) {
+    var bytes = new ByteArrayOutputStream(256);
+    var out = new DataOutputStream(bytes);
+    try {
+      out.writeLong(lsn);
+      if (m instanceof ClaimMutation.ClaimSubmitted c) {
+        out.writeByte(CREATED);
+        writeClaim(out, c.claim());
+      } else if (m instanceof ClaimMutation.StatusChanged s) {
+        out.writeByte(STATUS_CHANGED);
+        writeString(out, s.claimId());
+        writeInstant(out, s.at());
+        writeEnum(out, s.status());
+        writeString(out, s.message());
+      } else if (m instanceof ClaimMutation.FieldsUpdated u) {
+        out.writeByte(FIELDS_UPDATED);
+        writeString(out, u.claimId());
+        writeInstant(out, u.at());
+        out.writeInt(u.changes().size());
+        for (ClaimMutation.FieldChange ch : u.changes()) {
+          writeEnum(out, ch.field());
+          writeValue(out, ch.field(), ch.from());
+          writeValue(out, ch.field(), ch.to());
+        }
+      } else if (m instanceof ClaimMutation.ClaimDeleted d) {
+        out.writeByte(DELETED);
+        writeString(out, d.claimId());
+        writeInstant(out, d.at());
+      } else if (m instanceof ClaimMutation.ClaimArchived a) {
+        out.writeByte(ARCHIVED);
+        writeString(out, a.claimId());
+        writeInstant(out, a.at());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /** Reads the mutation that follows the lsn at the current position of {@code in}. */
+  static ClaimMutation decode(ByteBuffer in) {
+    byte type = in.get();
+    return switch (type) {
+      case CREATED -> new ClaimMutation.ClaimSubmitted(readClaim(in));
+      case STATUS_CHANGED -> new ClaimMutation.StatusChanged(
+          readString(in), readInstant(in), readEnum(in, ClaimStatus.class), readString(in));
+      case FIELDS_UPDATED -> {
+        String id = readString(in);
+        Instant at = readInstant(in);
+        var changes = new ClaimMutation.FieldChange[in.getInt()];
+        for (int i = 0; i < changes.length; i++) {
+          var field = readEnum(in, ClaimMutation.Field.class);
+          changes[i] = new ClaimMutation.FieldChange(field, readValue(in, field), readValue(in, field));
+        }
+        yield new ClaimMutation.FieldsUpdated(id, at, List.of(changes));
+      }
+      case DELETED -> new ClaimMutation.ClaimDeleted(readString(in), readInstant(in));
+      case ARCHIVED -> new ClaimMutation.ClaimArchived(readString(in), readInstant(in));
+      default -> throw new IllegalStateException("unknown journal record type " + type);
+    };
+  }
+
+  static void writeClaim(DataOutputStream out, Claim c) throws IOException {
+    writeString(out, c.id);
+    writeString(out, c.customerId);
+    writeString(out, c.fullName);
+    writeString(out, c.policyNumber);
+    writeEnum(out, c.claimType);
+    writeDecimal(out, c.claimedAmount);
+    writeString(out, c.description);
+    writeEnum(out, c.status);
+    writeInstant(out, c.createdAt);
+    out.writeLong(c.version);
+    var events = c.history.since(0);
+    out.writeInt(events.size());
+    for (ClaimHistoryEvent e : events) {
+      writeInstant(out, e.at);
+      writeEnum(out, e.status);
+      writeString(out, e.message);
+    }
+  }
+
+  static Claim readClaim(ByteBuffer in) {
+    Claim c = new Claim();
+    c.id = readString(in);
+    c.customerId = readString(in);
+    c.fullName = readString(in);
+    c.policyNumber = readString(in);
+    c.claimType = readEnum(in, ClaimType.class);
+    c.claimedAmount = readDecimal(in);
+    c.description = readString(in);
+    c.status = readEnum(in, ClaimStatus.class);
+    c.createdAt = readInstant(in);
+    c.version = in.getLong();
+    int n = in.getInt();
+    for (int i = 0; i < n; i++) {
+      c.history.add(new ClaimHistoryEvent(readInstant(in), readEnum(in, ClaimStatus.class), readString(in)));
+    }
+    return c;
+  }
+
+  /** A deep copy of {@code c}, lsn included, that later in-place mutations of {@code c} do not reach. */
+  static Claim copy(Claim c) {
+    var bytes = new ByteArrayOutputStream(256);
+    try {
+      writeClaim(new DataOutputStream(bytes), c);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    Claim out = readClaim(ByteBuffer.wrap(bytes.toByteArray()));
+    out.lsn = c.lsn;
+    return out;
+  }
+
+  // every field value has a string form: the string itself, the enum name or the plain decimal
+  private static void writeValue(DataOutputStream out, ClaimMutation.Field field, Object value) throws IOException {
+    switch (field) {
+      case CLAIM_TYPE -> writeEnum(out, (ClaimType) value);
+      case CLAIMED_AMOUNT -> writeDecimal(out, (BigDecimal) value);
+      default -> writeString(out, (String) value);
+    }
+  }
+
+  private static Object readValue(ByteBuffer in, ClaimMutation.Field field) {
+    return switch (field) {
+      case CLAIM_TYPE -> readEnum(in, ClaimType.class);
+      case CLAIMED_AMOUNT -> readDecimal(in);
+      default -> readString(in);
+    };
+  }
+
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    if (s == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] b = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(b.length);
+    out.write(b);
+  }
+
+  static String readString(ByteBuffer in) {
+    int len = in.getInt();
+    if (len < 0) return null;
+    byte[] b = new byte[len];
+    in.get(b);
+    return new String(b, StandardCharsets.UTF_8);
+  }
+
+  private static void writeEnum(DataOutputStream out, Enum<?> e) throws IOException {
+    writeString(out, e == null ? null : e.name());
+  }
+
+  private static <E extends Enum<E>> E readEnum(ByteBuffer in, Class<E> type) {
+    String name = readString(in);
+    return name == null ? null : Enum.valueOf(type, name);
+  }
+
+  private static void writeDecimal(DataOutputStream out, BigDecimal d) throws IOException {
+    writeString(out, d == null ? null : d.toString());
+  }
+
+  private static BigDecimal readDecimal(ByteBuffer in) {
+    String s = readString(in);
+    return s == null ? null : new BigDecimal(s);
+  }
+
+  private static void writeInstant(DataOutputStream out, Instant t) throws IOException {
+    out.writeBoolean(t != null);
+    if (t != null) {
+      out.writeLong(t.getEpochSecond());
+      out.writeInt(t.getNano());
+    }
+  }
+
+  private static Instant readInstant(ByteBuffer in) {
+    if (in.get() == 0) return null;
+    return Instant.ofEpochSecond(in.getLong(), in.getInt());
+  }
+}
@@ -0,0 +1,44 @@
+package com.demo.insurance.claimrest.service;
+
+import com.demo.insurance.claimrest.model.Claim;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * Position in the newest-first claim ordering. Ordered by {@code createdAt} descending with the
+ * id as tie breaker, so keys are unique and a cursor stays valid while claims are added or removed.
+ */
+public record ClaimCursor(Instant createdAt, String id) implements Comparable<ClaimCursor> {
+
+  private static final Comparator<ClaimCursor> NEWEST_FIRST =
+      Comparator.comparing(ClaimCursor::createdAt, Comparator.reverseOrder())
+          .thenComparing(ClaimCursor::id);
+
+  public static ClaimCursor of(Claim c) {
+    return new ClaimCursor(c.createdAt, c.id);
+  }
+
+  @Override
+  public int compareTo(ClaimCursor o) {
+    return NEWEST_FIRST.compare(this, o);
+  }
+
+  /** Opaque, URL-safe form handed out to clients. */
+  public String encode() {
+    String raw = createdAt.getEpochSecond() + ":" + createdAt.getNano() + ":" + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static ClaimCursor decode(String token) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      String[] parts = raw.split(":", 3);
+      return new ClaimCursor(Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1])), parts[2]);
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("invalid cursor: " + token);
+    }
+  }
+}
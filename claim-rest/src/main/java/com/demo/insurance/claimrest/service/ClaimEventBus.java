@@ -0,0 +1,194 @@
+package com.demo.insurance.claimrest.service;
+
+import com.demo.insurance.claimrest.model.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process fan-out of claim changes. Every event gets a process-wide sequence number and is
+ * kept in a ring of the most recent {@code replay-buffer} events so subscribers can resume.
+ * Sequence numbers restart with the process, so they are only meaningful together with the
+ * {@link #epoch()} they were handed out in; a resume from another epoch is a full resync.
+ *
+ * <p>Publishing takes no lock shared between claims: the sequence number comes from a counter,
+ * the event is offered to every subscriber and then written to the ring, and the publisher that
+ * completes a run of written slots moves the {@code published} mark over it. Each subscriber has a
+ * bounded queue ordered by sequence number and hands out its head only once the head is
+ * published, since every earlier event has been offered by then; a client therefore sees events in
+ * sequence order and can resume from the last one it saw. Publishing never blocks: a subscriber
+ * whose queue is full is dropped and has to reconnect from its last seen sequence number.
+ */
+@Component
+public class ClaimEventBus {
+
+  /**
+   * Called on a publishing thread, inside some claim's critical section, whenever a subscription
+   * has new events or was dropped. Implementations must only hand off work, never block.
+   */
+  public interface Listener {
+    void onSignal(Subscription s);
+  }
+
+  public final class Subscription implements AutoCloseable {
+    private final Predicate<ClaimChangeEvent> filter;
+    private final PriorityBlockingQueue<ClaimChangeEvent> queue =
+        new PriorityBlockingQueue<>(16, Comparator.comparingLong(ClaimChangeEvent::seq));
+    private final Listener listener;
+    private volatile int capacity;
+    private volatile boolean dropped;
+    // last seq handed out; only the single consumer touches it
+    private long lastSeq;
+
+    private Subscription(Predicate<ClaimChangeEvent> filter, int capacity, Listener listener) {
+      this.filter = filter;
+      this.capacity = capacity;
+      this.listener = listener;
+    }
+
+    /** Next event in sequence order, or {@code null} if there is none right now. */
+    public ClaimChangeEvent poll() {
+      for (ClaimChangeEvent e; (e = queue.peek()) != null && e.seq() <= published.get(); ) {
+        queue.poll();
+        // a backlog event may also have been offered live
+        if (e.seq() <= lastSeq) continue;
+        lastSeq = e.seq();
+        return e;
+      }
+      return null;
+    }
+
+    public boolean hasPending() {
+      ClaimChangeEvent e = queue.peek();
+      return e != null && e.seq() <= published.get();
+    }
+
+    /** True once the subscriber fell behind by more than its buffer and stopped receiving events. */
+    public boolean isDropped() {
+      return dropped;
+    }
+
+    @Override
+    public void close() {
+      subscribers.remove(this);
+    }
+
+    private void offer(ClaimChangeEvent e) {
+      if (dropped || !filter.test(e)) return;
+      if (queue.size() >= capacity) {
+        dropped = true;
+        subscribers.remove(this);
+        listener.onSignal(this);
+        return;
+      }
+      queue.add(e);
+    }
+
+    // e was published; it is in the queue if it matched
+    private void signal(ClaimChangeEvent e) {
+      if (!dropped && filter.test(e)) listener.onSignal(this);
+    }
+  }
+
+  private final int bufferSize;
+  private final AtomicReferenceArray<ClaimChangeEvent> ring;
+  private final Set<Subscription> subscribers = ConcurrentHashMap.newKeySet();
+  private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+  private final AtomicLong nextSeq = new AtomicLong(1);
+  // every event up to this seq is in the ring and was offered to the subscribers of its time
+  private final AtomicLong published = new AtomicLong();
+
+  public ClaimEventBus(ClaimStoreProperties props) {
+    this.bufferSize = props.getEvents().getSubscriberBuffer();
+    this.ring = new AtomicReferenceArray<>(props.getEvents().getReplayBuffer());
+  }
+
+  public void publish(ClaimChangeEvent.Type type, Claim c, String message, Instant at) {
+    long seq = nextSeq.getAndIncrement();
+    var e = new ClaimChangeEvent(seq, type, c.id, c.customerId, c.status, message, c.version, at);
+    // offered before it can be published, so no subscriber hands out a later event ahead of it
+    for (Subscription s : subscribers) s.offer(e);
+    // a slot is reused only after the event it held was published; waits only with a full ring in flight
+    while (seq - published.get() > ring.length()) Thread.onSpinWait();
+    ring.set(slot(seq), e);
+    advance();
+  }
+
+  // publishers finish out of order: whoever fills the next slot moves the mark over every written one after it
+  private void advance() {
+    for (long p = published.get(); ; p = published.get()) {
+      ClaimChangeEvent e = ring.get(slot(p + 1));
+      if (e == null || e.seq() != p + 1) return;
+      if (published.compareAndSet(p, p + 1)) {
+        for (Subscription s : subscribers) s.signal(e);
+      }
+    }
+  }
+
+  private int slot(long seq) {
+    return (int) (seq % ring.length());
+  }
+
+  /** Identifies this run of the process; part of every resume position. */
+  public String epoch() {
+    return epoch;
+  }
+
+  /**
+   * Subscribes to events matching {@code filter}. With {@code afterSeq > 0} the retained events
+   * after it are queued first; if some of them were already evicted, or {@code afterEpoch} is not
+   * this run's epoch (the seq was handed out before a restart), a {@code GAP} event comes first and
+   * every retained event follows.
+   */
+  public Subscription subscribe(Predicate<ClaimChangeEvent> filter, String afterEpoch, long afterSeq, Listener listener) {
+    var s = new Subscription(filter, bufferSize, listener);
+    subscribers.add(s);
+    // every event from next on is offered to s; the earlier ones come from the ring once published
+    long next = nextSeq.get();
+    while (published.get() < next - 1) Thread.onSpinWait();
+
+    var backlog = new ArrayList<ClaimChangeEvent>();
+    if (afterSeq > 0) {
+      long oldest = Math.max(1, next - ring.length());
+      // a seq of another run says nothing about this one: resync, then replay everything we still have
+      if (!epoch.equals(afterEpoch) || afterSeq >= next) {
+        afterSeq = 0;
+        backlog.add(gap(oldest - 1, "resume position is from another run of the service; re-read the claims"));
+      } else if (afterSeq + 1 < oldest) {
+        backlog.add(gap(oldest - 1, "events up to " + (oldest - 1) + " are no longer retained"));
+      }
+      for (long seq = Math.max(afterSeq + 1, oldest); seq < next; seq++) {
+        ClaimChangeEvent e = ring.get(slot(seq));
+        if (e.seq() != seq) {
+          // overwritten by a publisher that started after us: everything up to here is gone
+          backlog.clear();
+          backlog.add(gap(seq, "events up to " + seq + " are no longer retained"));
+        } else if (filter.test(e)) {
+          backlog.add(e);
+        }
+      }
+    }
+    s.lastSeq = backlog.isEmpty() ? (afterSeq > 0 ? afterSeq : next - 1) : backlog.get(0).seq() - 1;
+    s.capacity = bufferSize + backlog.size();
+    s.queue.addAll(backlog);
+    if (!backlog.isEmpty()) listener.onSignal(s);
+    return s;
+  }
+
+  private static ClaimChangeEvent gap(long seq, String message) {
+    return new ClaimChangeEvent(seq, ClaimChangeEvent.Type.GAP, null, null, null, message, 0, Instant.now());
+  }
+
+  public int subscriberCount() {
+    return subscribers.size();
+  }
+}
@@ -0,0 +1,166 @@
+package com.demo.insurance.claimrest.service;
+
+import com.demo.insurance.claimrest.model.Claim;
+import com.demo.insurance.claimrest.model.ClaimHistoryEvent;
+
+import java.io.*;
+import java.time.Instant;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes a stream of claims in one of the export formats, one claim at a time: nothing but the
+ * current record is ever held, so an export of any size runs in constant memory.
+ */
+@Component
+public class ClaimExporter {
+
+  public enum Format {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv"),
+    // "CLMX", u16 format version, then [i32 length][claim]... and a 0 length; see writeBinaryClaim
+    BINARY("application/octet-stream", "bin");
+
+    public final String contentType;
+    public final String extension;
+
+    Format(String contentType, String extension) {
+      this.contentType = contentType;
+      this.extension = extension;
+    }
+  }
+
+  static final int BINARY_MAGIC = 0x434c4d58; // "CLMX"
+  // bump with every change to writeBinaryClaim; the format is public and independent of the journal's
+  static final short BINARY_VERSION = 1;
+
+  private static final int FLUSH_EVERY = 256;
+  private static final int BUFFER = 64 * 1024;
+  private static final String CSV_HEADER =
+      "id,customerId,fullName,policyNumber,claimType,claimedAmount,description,status,createdAt,version\n";
+
+  public void write(Format format, Stream<Claim> claims, OutputStream out) throws IOException {
+    try (claims) {
+      switch (format) {
+        case NDJSON -> writeNdjson(claims.iterator(), out);
+        case CSV -> writeCsv(claims.iterator(), out);
+        case BINARY -> writeBinary(claims.iterator(), out);
+      }
+    }
+  }
+
+  private static void writeNdjson(Iterator<Claim> it, OutputStream out) throws IOException {
+    try (var w = ClaimJsonWriter.open(out)) {
+      for (int n = 1; it.hasNext(); n++) {
+        w.claim(it.next());
+        w.separator('\n');
+        if (n % FLUSH_EVERY == 0) w.flush();
+      }
+    }
+  }
+
+  private static void writeCsv(Iterator<Claim> it, OutputStream out) throws IOException {
+    var w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER);
+    w.write(CSV_HEADER);
+    for (int n = 1; it.hasNext(); n++) {
+      Claim c = it.next();
+      csv(w, c.id).write(',');
+      csv(w, c.customerId).write(',');
+      csv(w, c.fullName).write(',');
+      csv(w, c.policyNumber).write(',');
+      csv(w, c.claimType == null ? null : c.claimType.name()).write(',');
+      csv(w, c.claimedAmount == null ? null : c.claimedAmount.toPlainString()).write(',');
+      csv(w, c.description).write(',');
+      csv(w, c.status == null ? null : c.status.name()).write(',');
+      csv(w, c.createdAt == null ? null : c.createdAt.toString()).write(',');
+      w.write(Long.toString(c.version));
+      w.write('\n');
+      if (n % FLUSH_EVERY == 0) w.flush();
+    }
+    w.flush();
+  }
+
+  // RFC 4180: quote fields containing separators, quotes or line breaks; double embedded quotes
+  private static Writer csv(Writer w, String value) throws IOException {
+    if (value == null) return w;
+    boolean quote = false;
+    for (int i = 0; i < value.length() && !quote; i++) {
+      char ch = value.charAt(i);
+      quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+    }
+    if (!quote) {
+      w.write(value);
+      return w;
+    }
+    w.write('"');
+    w.write(value.replace("\"", "\"\""));
+    w.write('"');
+    return w;
+  }
+
+  private static void writeBinary(Iterator<Claim> it, OutputStream out) throws IOException {
+    var data = new DataOutputStream(new BufferedOutputStream(out, BUFFER));
+    data.writeInt(BINARY_MAGIC);
+    data.writeShort(BINARY_VERSION);
+    // one record buffer reused for the whole export
+    var record = new ByteArrayOutputStream(512);
+    var recordOut = new DataOutputStream(record);
+    for (int n = 1; it.hasNext(); n++) {
+      record.reset();
+      writeBinaryClaim(recordOut, it.next());
+      data.writeInt(record.size());
+      record.writeTo(data);
+      if (n % FLUSH_EVERY == 0) data.flush();
+    }
+    data.writeInt(0);
+    data.flush();
+  }
+
+  /*
+   * Export format v1, big-endian. A string is an i32 byte length (-1 for null) and its UTF-8 bytes;
+   * enums and the amount are written as their name / plain decimal string; an instant is a
+   * presence byte, then i64 epoch seconds and i32 nanos. The fields: id, customerId, fullName,
+   * policyNumber, claimType, claimedAmount, description, status, createdAt, i64 version, then
+   * i32 history size and per event: at, status, message.
+   */
+  static void writeBinaryClaim(DataOutputStream out, Claim c) throws IOException {
+    writeString(out, c.id);
+    writeString(out, c.customerId);
+    writeString(out, c.fullName);
+    writeString(out, c.policyNumber);
+    writeString(out, c.claimType == null ? null : c.claimType.name());
+    writeString(out, c.claimedAmount == null ? null : c.claimedAmount.toPlainString());
+    writeString(out, c.description);
+    writeString(out, c.status == null ? null : c.status.name());
+    writeInstant(out, c.createdAt);
+    out.writeLong(c.version);
+    var events = c.history.since(0);
+    out.writeInt(events.size());
+    for (ClaimHistoryEvent e : events) {
+      writeInstant(out, e.at);
+      writeString(out, e.status == null ? null : e.status.name());
+      writeString(out, e.message);
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    if (s == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] b = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(b.length);
+    out.write(b);
+  }
+
+  private static void writeInstant(DataOutputStream out, Instant t) throws IOException {
+    out.writeBoolean(t != null);
+    if (t != null) {
+      out.writeLong(t.getEpochSecond());
+      out.writeInt(t.getNano());
+    }
+  }
+}
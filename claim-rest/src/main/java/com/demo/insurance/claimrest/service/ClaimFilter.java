@@ -0,0 +1,20 @@
+package com.demo.insurance.claimrest.service;
+
+import com.demo.insurance.claimrest.model.*;
+
+/** Optional equality filters for claim listings; {@code null} fields match everything. */
+public record ClaimFilter(String customerId, String policyNumber, ClaimStatus status, ClaimType claimType) {
+
+  public static final ClaimFilter ALL = new ClaimFilter(null, null, null, null);
+
+  public boolean isEmpty() {
+    return customerId == null && policyNumber == null && status == null && claimType == null;
+  }
+
+  public boolean matches(Claim c) {
+    return (customerId == null || customerId.equals(c.customerId))
+        && (policyNumber == null || policyNumber.equals(c.policyNumber))
+        && (status == null || status == c.status)
+        && (claimType == null || claimType == c.claimType);
+  }
+}
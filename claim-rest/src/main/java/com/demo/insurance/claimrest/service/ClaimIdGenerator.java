@@ -0,0 +1,92 @@
+package com.demo.insurance.claimrest.service;
+
+import com.demo.insurance.claimrest.cluster.ClusterProperties;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Snowflake-style claim ids: 41 bits of milliseconds since 2024-01-01, a 10-bit node id and a
+ * 12-bit sequence, written as 13 Crockford base32 characters after {@code CLM-}. The text form has
+ * a fixed width, so ids sort by creation time both as numbers and as strings.
+ *
+ * <p>Lock-free: time and sequence live in one {@link AtomicLong} advanced by CAS. A burst of more
+ * than 4096 ids in one millisecond carries into the next millisecond instead of waiting, and a
+ * clock that steps back is ignored, so ids are strictly increasing per node.
+ */
+@Component
+public class ClaimIdGenerator {
+
+  public static final String PREFIX = "CLM-";
+
+  static final long EPOCH_MS = 1_704_067_200_000L;
+  private static final int NODE_BITS = 10;
+  private static final int SEQ_BITS = 12;
+  private static final long SEQ_MASK = (1L << SEQ_BITS) - 1;
+  private static final int MAX_NODE = (1 << NODE_BITS) - 1;
+  private static final int CHARS = 13;
+  private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+  private final long node;
+  // (millis since EPOCH_MS << SEQ_BITS) | sequence of the last id handed out
+  private final AtomicLong last = new AtomicLong();
+
+  public ClaimIdGenerator(ClaimStoreProperties props, ClusterProperties cluster) {
+    int id = props.getNodeId();
+    if (id < 0) id = cluster.isEnabled() ? Math.max(0, cluster.getNodes().indexOf(cluster.getSelf())) : 0;
+    if (id > MAX_NODE) throw new IllegalStateException("claims.store.node-id must be between 0 and " + MAX_NODE);
+    this.node = id;
+  }
+
+  public String next() {
+    long now = System.currentTimeMillis() - EPOCH_MS;
+    long prev, next;
+    do {
+      prev = last.get();
+      next = now > (prev >>> SEQ_BITS) ? now << SEQ_BITS : prev + 1;
+    } while (!last.compareAndSet(prev, next));
+    long value = (next >>> SEQ_BITS) << (NODE_BITS + SEQ_BITS) | node << SEQ_BITS | (next & SEQ_MASK);
+    return PREFIX + encode(value);
+  }
+
+  /**
+   * Makes sure later ids sort after {@code id} if this node issued it; called for recovered claims
+   * so a clock that went back across a restart cannot reissue an id. Other ids are ignored.
+   */
+  public void observe(String id) {
+    long value = decode(id);
+    if (value < 0 || ((value >>> SEQ_BITS) & MAX_NODE) != node) return;
+    long issued = (value >>> (NODE_BITS + SEQ_BITS)) << SEQ_BITS | (value & SEQ_MASK);
+    last.accumulateAndGet(issued, Math::max);
+  }
+
+  static String encode(long value) {
+    char[] out = new char[CHARS];
+    for (int i = CHARS - 1; i >= 0; i--) {
+      out[i] = ALPHABET[(int) (value & 31)];
+      value >>>= 5;
+    }
+    return new String(out);
+  }
+
+  // -1 for anything that is not an id of this format, e.g. the older random CLM-xxxxxxxx ids
+  static long decode(String id) {
+    if (id == null || id.length() != PREFIX.length() + CHARS || !id.startsWith(PREFIX)) return -1;
+    long value = 0;
+    for (int i = PREFIX.length(); i < id.length(); i++) {
+      int digit = indexOf(id.charAt(i));
+      // the leading character only carries the top three bits
+      if (digit < 0 || (i == PREFIX.length() && digit > 7)) return -1;
+      value = value << 5 | digit;
+    }
+    return value;
+  }
+
+  private static int indexOf(char c) {
+    for (int i = 0; i < ALPHABET.length; i++) {
+      if (ALPHABET[i] == c) return i;
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,97 @@
+package com.demo.insurance.claimrest.service;
+
+import com.demo.insurance.claimrest.model.*;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Secondary indexes over the filterable claim attributes. {@link ClaimStore} calls
+ * {@link #update} inside the per-claim critical section, so an index never lags the claim. The
+ * description index only queues its change there and catches up before every search.
+ */
+final class ClaimIndexes {
+
+  /** The indexed attributes of a claim at one point in time. */
+  record Keys(String customerId, String policyNumber, ClaimStatus status, ClaimType claimType, Instant createdAt,
+              String description) {
+    static Keys of(Claim c) {
+      return c == null ? null : new Keys(c.customerId, c.policyNumber, c.status, c.claimType, c.createdAt, c.description);
+    }
+  }
+
+  private final SecondaryIndex<String> byCustomer = new SecondaryIndex<>();
+  private final SecondaryIndex<String> byPolicy = new SecondaryIndex<>();
+  private final SecondaryIndex<ClaimStatus> byStatus = new SecondaryIndex<>();
+  private final SecondaryIndex<ClaimType> byType = new SecondaryIndex<>();
+  private final ConcurrentSkipListSet<ClaimCursor> byTime = new ConcurrentSkipListSet<>();
+  private final DescriptionIndex byText = new DescriptionIndex();
+
+  void update(String id, Keys before, Keys after) {
+    if (before == null && after == null) return;
+    if (before == null) {
+      byCustomer.add(after.customerId(), id);
+      byPolicy.add(after.policyNumber(), id);
+      byStatus.add(after.status(), id);
+      byType.add(after.claimType(), id);
+      byTime.add(new ClaimCursor(after.createdAt(), id));
+      byText.put(id, null, after.description());
+    } else if (after == null) {
+      byCustomer.remove(before.customerId(), id);
+      byPolicy.remove(before.policyNumber(), id);
+      byStatus.remove(before.status(), id);
+      byType.remove(before.claimType(), id);
+      byTime.remove(new ClaimCursor(before.createdAt(), id));
+      byText.remove(id, before.description());
+    } else {
+      byCustomer.move(before.customerId(), after.customerId(), id);
+      byPolicy.move(before.policyNumber(), after.policyNumber(), id);
+      byStatus.move(before.status(), after.status(), id);
+      byType.move(before.claimType(), after.claimType(), id);
+      if (!before.createdAt().equals(after.createdAt())) {
+        byTime.remove(new ClaimCursor(before.createdAt(), id));
+        byTime.add(new ClaimCursor(after.createdAt(), id));
+      }
+      if (!Objects.equals(before.description(), after.description())) byText.put(id, before.description(), after.description());
+    }
+  }
+
+  /** Best {@code k} description matches for {@code query}, best first. */
+  List<DescriptionIndex.Hit> search(String query, int k) {
+    return byText.search(query, k);
+  }
+
+  /** Weakly consistent newest-first view, starting strictly after {@code after} when given. */
+  NavigableSet<ClaimCursor> newestFirst(ClaimCursor after) {
+    return after == null ? byTime : byTime.tailSet(after, false);
+  }
+
+  /**
+   * Weakly consistent oldest-first view of claims created in {@code [from, to)}; either bound may
+   * be null. A claim created at {@code t} sorts right after the probe {@code (t - 1ns, "")}.
+   */
+  NavigableSet<ClaimCursor> createdBetween(Instant from, Instant to) {
+    NavigableSet<ClaimCursor> range = byTime;
+    if (to != null) range = range.tailSet(new ClaimCursor(to.minusNanos(1), ""), true);
+    if (from != null) range = range.headSet(new ClaimCursor(from.minusNanos(1), ""), false);
+    return range.descendingSet();
+  }
+
+  /** Smallest posting set among the filter's constraints; callers re-check the full filter. */
+  Set<String> candidates(ClaimFilter f) {
+    Set<String> best = null;
+    if (f.customerId() != null) best = smaller(best, byCustomer.get(f.customerId()));
+    if (f.policyNumber() != null) best = smaller(best, byPolicy.get(f.policyNumber()));
+    if (f.claimType() != null) best = smaller(best, byType.get(f.claimType()));
+    if (f.status() != null) best = smaller(best, byStatus.get(f.status()));
+    return best;
+  }
+
+  private static Set<String> smaller(Set<String> a, Set<String> b) {
+    return a == null || b.size() < a.size() ? b : a;
+  }
+}
@@ -0,0 +1,463 @@
+package com.demo.insurance.claimrest.service;
+
+import com.demo.insurance.claimrest.model.Claim;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Append-only, memory-mapped write-ahead log for {@link ClaimStore} plus compacted snapshots.
+ *
+ * <p>Each generation is one {@code journal-N.log} file mapped in fixed-size segments. A record is
+ * {@code [int length][int crc32c][long lsn][mutation]}; a length of {@code -1} skips to the next
+ * segment and {@code 0} marks the end of the log. A {@code snapshot-N.bin} holds the saved state of
+ * each projection and every claim as they were when generation N was opened, so recovery loads the
+ * newest snapshot and replays generations {@code >= N}.
+ *
+ * <p>The generations a snapshot supersedes are deleted, or with {@code archive-events} trimmed to
+ * their last record and moved to {@code events/}, an append-only archive of every claim event.
+ * While the generations since the first are all still there, {@link #replayHistory} replays the
+ * full history from the first event.
+ *
+ * <p>Appends only copy bytes into the mapping. A single committer thread forces the mapping every
+ * {@code commit-interval-micros} and releases all writers covered by that force (group commit).
+ */
+@Component
+public class ClaimJournal implements Closeable {
+
+  private static final int LOG_MAGIC = 0x434c4d4c;       // "CLML"
+  private static final int SNAPSHOT_MAGIC = 0x434c4d53;  // "CLMS"
+  private static final int HEADER_BYTES = 8;
+  private static final int FRAME_BYTES = 8;
+  private static final int SKIP_SEGMENT = -1;
+
+  private static final Pattern LOG_FILE = Pattern.compile("journal-(\\d+)\\.log");
+  private static final Pattern SNAPSHOT_FILE = Pattern.compile("snapshot-(\\d+)\\.bin");
+  private static final String EVENTS_DIR = "events";
+
+  /** Receives replayed mutations together with their lsn. */
+  @FunctionalInterface
+  public interface Replay {
+    void apply(long lsn, ClaimMutation m);
+  }
+
+  /** Writes one claim, with the lsn of the last mutation applied to it, into a snapshot. */
+  @FunctionalInterface
+  public interface SnapshotSink {
+    void write(long lsn, Claim c);
+  }
+
+  /** Receives the state a projection saved under {@code name} in the snapshot. */
+  @FunctionalInterface
+  public interface StateSink {
+    void read(String name, byte[] state) throws IOException;
+  }
+
+  private final ClaimStoreProperties.Journal cfg;
+  private final Path dir;
+  private final Path events;
+  private final int segmentSize;
+
+  private final ReentrantLock appendLock = new ReentrantLock();
+  private final ReentrantLock commitLock = new ReentrantLock();
+  private final Condition committed = commitLock.newCondition();
+
+  private FileChannel channel;
+  private MappedByteBuffer segment;
+  private long segmentBase;
+  private long generation;
+  private long nextLsn = 1;
+  // first lsn the current generation can hold
+  private volatile long generationStart = 1;
+
+  private volatile long appendedLsn;
+  private volatile long durableLsn;
+  private volatile boolean running;
+  private Thread committer;
+
+  public ClaimJournal(ClaimStoreProperties props) {
+    this.cfg = props.getJournal();
+    this.dir = Path.of(cfg.getDataDir());
+    this.events = dir.resolve(EVENTS_DIR);
+    this.segmentSize = cfg.getSegmentSizeMb() * 1024 * 1024;
+  }
+
+  public boolean isEnabled() {
+    return cfg.isEnabled();
+  }
+
+  /**
+   * Loads the projection states of the newest snapshot into {@code states} and its claims into
+   * {@code snapshot}, replays every later log record into {@code replay} and opens a fresh
+   * generation for new appends.
+   */
+  public void recover(StateSink states, SnapshotSink snapshot, Replay replay) throws IOException {
+    if (!cfg.isEnabled()) return;
+    Files.createDirectories(dir);
+
+    long snapGen = 0;
+    Path snap = newest(SNAPSHOT_FILE);
+    if (snap != null) {
+      snapGen = generationOf(snap, SNAPSHOT_FILE);
+      nextLsn = Math.max(nextLsn, readSnapshot(snap, states, snapshot) + 1);
+    }
+
+    long lastGen = snapGen;
+    for (Path log : files(dir, LOG_FILE)) {
+      long gen = generationOf(log, LOG_FILE);
+      lastGen = Math.max(lastGen, gen);
+      if (gen >= snapGen) nextLsn = Math.max(nextLsn, replayLog(log, replay).maxLsn() + 1);
+    }
+
+    appendedLsn = durableLsn = nextLsn - 1;
+    openGeneration(lastGen + 1);
+
+    running = true;
+    committer = new Thread(this::commitLoop, "claim-journal-commit");
+    committer.setDaemon(true);
+    committer.start();
+  }
+
+  /** Appends {@code m} and returns its lsn. The record is durable once {@link #awaitDurable} returns. */
+  public long append(ClaimMutation m) {
+    appendLock.lock();
+    try {
+      long lsn = nextLsn++;
+      if (!cfg.isEnabled()) return lsn;
+
+      byte[] payload = ClaimCodec.encode(lsn, m);
+      int needed = FRAME_BYTES + payload.length;
+      if (needed + 4 > segmentSize) {
+        throw new IllegalStateException("journal record of " + needed + " bytes exceeds segment size");
+      }
+      if (segment.remaining() < needed + 4) nextSegment();
+
+      var crc = new CRC32C();
+      crc.update(payload);
+      segment.putInt(payload.length);
+      segment.putInt((int) crc.getValue());
+      segment.put(payload);
+      appendedLsn = lsn;
+      return lsn;
+    } catch (IOException e) {
+      throw new UncheckedIOException("journal append failed", e);
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  /** Blocks until {@code lsn} is covered by a group commit when running in {@code GROUP} sync mode. */
+  public void awaitDurable(long lsn) {
+    if (!cfg.isEnabled() || cfg.getSync() != ClaimStoreProperties.Journal.SyncMode.GROUP) return;
+    if (durableLsn >= lsn) return;
+    commitLock.lock();
+    try {
+      while (durableLsn < lsn && running) {
+        committed.await(10, TimeUnit.MILLISECONDS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      commitLock.unlock();
+    }
+  }
+
+  /** Whether nothing was appended since the current generation was opened. */
+  public boolean isGenerationEmpty() {
+    return appendedLsn < generationStart;
+  }
+
+  /** The first lsn of the current generation; every lsn before it belongs to an older one. */
+  public long generationStart() {
+    return generationStart;
+  }
+
+  /**
+   * Closes the current generation and opens the next one. The caller must make sure no mutation
+   * is between {@link #append} and its application to the store, then snapshot the store under the
+   * returned generation.
+   */
+  public long rotate() throws IOException {
+    appendLock.lock();
+    try {
+      openGeneration(generation + 1);
+      return generation;
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  /**
+   * Writes a snapshot for {@code gen} with the projection {@code states} and the claims from
+   * {@code contents} and, once it is durable, deletes all older snapshots and older log generations
+   * (or moves those to the event archive with {@code archive-events}).
+   */
+  public void writeSnapshot(long gen, Map<String, byte[]> states, Consumer<SnapshotSink> contents) throws IOException {
+    Path tmp = dir.resolve("snapshot-" + gen + ".tmp");
+    long maxLsn = 0;
+    try (var fos = new FileOutputStream(tmp.toFile());
+         var out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+      out.writeInt(SNAPSHOT_MAGIC);
+      out.writeLong(gen);
+      out.writeInt(states.size());
+      for (var e : states.entrySet()) {
+        out.writeUTF(e.getKey());
+        out.writeInt(e.getValue().length);
+        out.write(e.getValue());
+      }
+      var bytes = new ByteArrayOutputStream(512);
+      var rec = new DataOutputStream(bytes);
+      long[] max = { 0 };
+      contents.accept((lsn, c) -> {
+        try {
+          bytes.reset();
+          rec.writeLong(lsn);
+          ClaimCodec.writeClaim(rec, c);
+          out.writeInt(bytes.size());
+          bytes.writeTo(out);
+          max[0] = Math.max(max[0], lsn);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      out.writeInt(0);
+      out.flush();
+      fos.getFD().sync();
+      maxLsn = max[0];
+    } catch (UncheckedIOException e) {
+      Files.deleteIfExists(tmp);
+      throw e.getCause();
+    }
+    Files.move(tmp, snapshotPath(gen), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+    for (Path p : files(dir, SNAPSHOT_FILE)) {
+      if (generationOf(p, SNAPSHOT_FILE) < gen) Files.deleteIfExists(p);
+    }
+    for (Path p : files(dir, LOG_FILE)) {
+      if (generationOf(p, LOG_FILE) >= gen) continue;
+      if (cfg.isArchiveEvents()) archive(p); else Files.deleteIfExists(p);
+    }
+    System.out.println("[journal] snapshot " + gen + " written (max lsn " + maxLsn + ")");
+  }
+
+  /**
+   * Whether {@link #replayHistory} starts at the very first event: every generation since the first
+   * is still in the event archive or the live log.
+   */
+  public boolean hasFullHistory() throws IOException {
+    if (!cfg.isEnabled()) return false;
+    long expected = 1;
+    for (Path log : history()) {
+      if (generationOf(log, LOG_FILE) != expected++) return false;
+    }
+    return true;
+  }
+
+  /** Replays every archived, then every live event in journal order; see {@link #hasFullHistory}. */
+  public void replayHistory(Replay replay) throws IOException {
+    for (Path log : history()) replayLog(log, replay);
+  }
+
+  @PreDestroy
+  @Override
+  public void close() throws IOException {
+    if (!running) return;
+    running = false;
+    LockSupport.unpark(committer);
+    try {
+      committer.join(1000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    appendLock.lock();
+    try {
+      segment.force();
+      durableLsn = appendedLsn;
+      channel.close();
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  private void commitLoop() {
+    long intervalNanos = TimeUnit.MICROSECONDS.toNanos(cfg.getCommitIntervalMicros());
+    while (running) {
+      long target = appendedLsn;
+      if (target > durableLsn) {
+        MappedByteBuffer seg;
+        appendLock.lock();
+        try {
+          seg = segment;
+        } finally {
+          appendLock.unlock();
+        }
+        seg.force();
+        durableLsn = target;
+        commitLock.lock();
+        try {
+          committed.signalAll();
+        } finally {
+          commitLock.unlock();
+        }
+      }
+      LockSupport.parkNanos(intervalNanos);
+    }
+  }
+
+  // caller holds appendLock (or is still single-threaded during recovery)
+  private void openGeneration(long gen) throws IOException {
+    if (channel != null) {
+      segment.force();
+      channel.close();
+    }
+    generation = gen;
+    generationStart = nextLsn;
+    channel = FileChannel.open(logPath(gen),
+        StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    segmentBase = 0;
+    segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    segment.putInt(LOG_MAGIC);
+    segment.putInt(0);
+  }
+
+  private void nextSegment() throws IOException {
+    if (segment.remaining() >= 4) segment.putInt(SKIP_SEGMENT);
+    // a full segment is forced here so the committer only ever has to force the current one
+    segment.force();
+    segmentBase += segmentSize;
+    segment = channel.map(FileChannel.MapMode.READ_WRITE, segmentBase, segmentSize);
+  }
+
+  // archived and live generations, oldest first
+  private List<Path> history() throws IOException {
+    var all = new ArrayList<Path>();
+    if (Files.isDirectory(events)) all.addAll(files(events, LOG_FILE));
+    all.addAll(files(dir, LOG_FILE));
+    all.sort(Comparator.comparing(p -> p.getFileName().toString()));
+    return all;
+  }
+
+  // a closed generation is preallocated in whole segments; only the bytes up to its last record are kept
+  private void archive(Path log) throws IOException {
+    Files.createDirectories(events);
+    long end = replayLog(log, null).end();
+    try (var ch = FileChannel.open(log, StandardOpenOption.WRITE)) {
+      ch.truncate(end);
+      ch.force(true);
+    }
+    Files.move(log, events.resolve(log.getFileName()), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /** Highest lsn in a log and the offset just past its last intact record. */
+  private record Scan(long maxLsn, long end) {}
+
+  // a null replay only finds the end
+  private Scan replayLog(Path log, Replay replay) throws IOException {
+    long maxLsn = 0;
+    long end = HEADER_BYTES;
+    try (var ch = FileChannel.open(log, StandardOpenOption.READ)) {
+      long size = ch.size();
+      for (long base = 0; base < size; base += segmentSize) {
+        ByteBuffer seg = ch.map(FileChannel.MapMode.READ_ONLY, base, Math.min(segmentSize, size - base));
+        if (base == 0) {
+          if (seg.remaining() < HEADER_BYTES || seg.getInt() != LOG_MAGIC) {
+            throw new IOException("not a claim journal: " + log);
+          }
+          seg.getInt();
+        }
+        while (seg.remaining() >= 4) {
+          int len = seg.getInt();
+          if (len == SKIP_SEGMENT) break;
+          if (len <= 0 || seg.remaining() < 4 + len) return new Scan(maxLsn, end);
+
+          int crc = seg.getInt();
+          ByteBuffer payload = seg.slice(seg.position(), len);
+          var check = new CRC32C();
+          check.update(payload.duplicate());
+          if ((int) check.getValue() != crc) {
+            // torn write at the tail of a crashed generation
+            return new Scan(maxLsn, end);
+          }
+          seg.position(seg.position() + len);
+          end = base + seg.position();
+
+          long lsn = payload.getLong();
+          if (replay != null) replay.apply(lsn, ClaimCodec.decode(payload));
+          maxLsn = Math.max(maxLsn, lsn);
+        }
+      }
+    }
+    return new Scan(maxLsn, end);
+  }
+
+  private long readSnapshot(Path snap, StateSink states, SnapshotSink sink) throws IOException {
+    long maxLsn = 0;
+    try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snap), 1 << 16))) {
+      if (in.readInt() != SNAPSHOT_MAGIC) throw new IOException("not a claim snapshot: " + snap);
+      in.readLong();
+      for (int n = in.readInt(); n > 0; n--) {
+        String name = in.readUTF();
+        byte[] state = new byte[in.readInt()];
+        in.readFully(state);
+        states.read(name, state);
+      }
+      byte[] buf = new byte[512];
+      int len;
+      while ((len = in.readInt()) > 0) {
+        if (buf.length < len) buf = new byte[Math.max(len, buf.length * 2)];
+        in.readFully(buf, 0, len);
+        ByteBuffer rec = ByteBuffer.wrap(buf, 0, len);
+        long lsn = rec.getLong();
+        sink.write(lsn, ClaimCodec.readClaim(rec));
+        maxLsn = Math.max(maxLsn, lsn);
+      }
+    }
+    return maxLsn;
+  }
+
+  private Path logPath(long gen) {
+    return dir.resolve(String.format("journal-%010d.log", gen));
+  }
+
+  private Path snapshotPath(long gen) {
+    return dir.resolve(String.format("snapshot-%010d.bin", gen));
+  }
+
+  private Path newest(Pattern p) throws IOException {
+    List<Path> all = files(dir, p);
+    return all.isEmpty() ? null : all.get(all.size() - 1);
+  }
+
+  private static List<Path> files(Path dir, Pattern p) throws IOException {
+    try (Stream<Path> s = Files.list(dir)) {
+      List<Path> out = new ArrayList<>(s.filter(f -> p.matcher(f.getFileName().toString()).matches()).toList());
+      out.sort(null);
+      return out;
+    }
+  }
+
+  private static long generationOf(Path file, Pattern p) {
+    Matcher m = p.matcher(file.getFileName().toString());
+    if (!m.matches()) throw new IllegalArgumentException(file.toString());
+    return Long.parseLong(m.group(1));
+  }
+}
@@ -0,0 +1,354 @@
+package com.demo.insurance.claimrest.service;
+
+import com.demo.insurance.claimrest.model.Claim;
+import com.demo.insurance.claimrest.model.ClaimHistoryEvent;
+import com.demo.insurance.claimrest.model.ClaimStatus;
+import com.demo.insurance.claimrest.model.ClaimType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Writes {@link Claim}s and {@link ClaimHistoryEvent}s as UTF-8 JSON straight into an output
+ * stream, byte for byte what Jackson produces for them with Spring Boot's defaults (declaration
+ * order, nulls included, ISO-8601 instants, {@code BigDecimal.toString()}) but without going
+ * through bean introspection. Field names and enum values are encoded once; numbers, instants and
+ * ASCII strings are written into a pooled buffer without intermediate objects.
+ *
+ * <p>Not thread-safe; open one per response and close it to flush and hand the buffer back.
+ * Closing does not close the underlying stream.
+ */
+public final class ClaimJsonWriter implements Closeable {
+
+  private static final int BUFFER = 16 * 1024;
+  private static final ArrayBlockingQueue<byte[]> POOL = new ArrayBlockingQueue<>(64);
+
+  private static final byte[] ID = ascii("{\"id\":");
+  private static final byte[] CUSTOMER_ID = ascii(",\"customerId\":");
+  private static final byte[] FULL_NAME = ascii(",\"fullName\":");
+  private static final byte[] POLICY_NUMBER = ascii(",\"policyNumber\":");
+  private static final byte[] CLAIM_TYPE = ascii(",\"claimType\":");
+  private static final byte[] CLAIMED_AMOUNT = ascii(",\"claimedAmount\":");
+  private static final byte[] DESCRIPTION = ascii(",\"description\":");
+  private static final byte[] STATUS = ascii(",\"status\":");
+  private static final byte[] CREATED_AT = ascii(",\"createdAt\":");
+  private static final byte[] VERSION = ascii(",\"version\":");
+  private static final byte[] HISTORY = ascii(",\"history\":");
+  private static final byte[] SEQ = ascii("{\"seq\":");
+  private static final byte[] AT = ascii(",\"at\":");
+  private static final byte[] MESSAGE = ascii(",\"message\":");
+  private static final byte[] NULL = ascii("null");
+
+  private static final byte[][] STATUSES = quoted(ClaimStatus.values());
+  private static final byte[][] TYPES = quoted(ClaimType.values());
+  private static final byte[] HEX = ascii("0123456789ABCDEF");
+
+  private final OutputStream out;
+  private byte[] buf;
+  private int pos;
+  // per open array: no element written yet; claims nest at most two deep
+  private final boolean[] first = new boolean[4];
+  private int depth;
+
+  private ClaimJsonWriter(OutputStream out) {
+    this.out = out;
+    byte[] pooled = POOL.poll();
+    this.buf = pooled != null ? pooled : new byte[BUFFER];
+  }
+
+  public static ClaimJsonWriter open(OutputStream out) {
+    return new ClaimJsonWriter(out);
+  }
+
+  public void startArray() throws IOException {
+    separate();
+    ensure(1);
+    buf[pos++] = '[';
+    first[++depth] = true;
+  }
+
+  public void endArray() throws IOException {
+    ensure(1);
+    buf[pos++] = ']';
+    depth--;
+  }
+
+  /** Writes {@code c}, preceded by a comma if it is not the first element of the open array. */
+  public void claim(Claim c) throws IOException {
+    separate();
+    raw(ID);
+    string(c.id);
+    raw(CUSTOMER_ID);
+    string(c.customerId);
+    raw(FULL_NAME);
+    string(c.fullName);
+    raw(POLICY_NUMBER);
+    string(c.policyNumber);
+    raw(CLAIM_TYPE);
+    raw(c.claimType == null ? NULL : TYPES[c.claimType.ordinal()]);
+    raw(CLAIMED_AMOUNT);
+    decimal(c.claimedAmount);
+    raw(DESCRIPTION);
+    string(c.description);
+    raw(STATUS);
+    raw(c.status == null ? NULL : STATUSES[c.status.ordinal()]);
+    raw(CREATED_AT);
+    instant(c.createdAt);
+    raw(VERSION);
+    number(c.version);
+    raw(HISTORY);
+    if (c.history == null) {
+      raw(NULL);
+    } else {
+      ensure(1);
+      buf[pos++] = '[';
+      first[++depth] = true;
+      for (ClaimHistoryEvent e : c.history) event(e);
+      endArray();
+    }
+    ensure(1);
+    buf[pos++] = '}';
+    if (pos > BUFFER / 2) drain();
+  }
+
+  /** Writes {@code e}, preceded by a comma if it is not the first element of the open array. */
+  public void event(ClaimHistoryEvent e) throws IOException {
+    separate();
+    raw(SEQ);
+    number(e.seq);
+    raw(AT);
+    instant(e.at);
+    raw(STATUS);
+    raw(e.status == null ? NULL : STATUSES[e.status.ordinal()]);
+    raw(MESSAGE);
+    string(e.message);
+    ensure(1);
+    buf[pos++] = '}';
+  }
+
+  /** Writes a single byte outside any value, such as the newline between NDJSON records. */
+  public void separator(char ch) throws IOException {
+    ensure(1);
+    buf[pos++] = (byte) ch;
+  }
+
+  public void flush() throws IOException {
+    drain();
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (buf == null) return;
+    try {
+      drain();
+      out.flush();
+    } finally {
+      if (buf.length == BUFFER) POOL.offer(buf);
+      buf = null;
+    }
+  }
+
+  private void separate() throws IOException {
+    if (depth == 0) return;
+    if (first[depth]) {
+      first[depth] = false;
+      return;
+    }
+    ensure(1);
+    buf[pos++] = ',';
+  }
+
+  private void drain() throws IOException {
+    if (pos > 0) {
+      out.write(buf, 0, pos);
+      pos = 0;
+    }
+  }
+
+  private void ensure(int n) throws IOException {
+    if (pos + n <= buf.length) return;
+    drain();
+    if (n > buf.length) buf = new byte[Math.max(n, buf.length * 2)];
+  }
+
+  private void raw(byte[] b) throws IOException {
+    ensure(b.length);
+    System.arraycopy(b, 0, buf, pos, b.length);
+    pos += b.length;
+  }
+
+  private void string(String s) throws IOException {
+    if (s == null) {
+      raw(NULL);
+      return;
+    }
+    int len = s.length();
+    // worst case per char: a six-byte unicode escape
+    ensure(len * 6 + 2);
+    byte[] b = buf;
+    int p = pos;
+    b[p++] = '"';
+    for (int i = 0; i < len; i++) {
+      char ch = s.charAt(i);
+      if (ch >= 0x20 && ch < 0x80 && ch != '"' && ch != '\\') {
+        b[p++] = (byte) ch;
+      } else if (ch < 0x80) {
+        b[p++] = '\\';
+        switch (ch) {
+          case '"' -> b[p++] = '"';
+          case '\\' -> b[p++] = '\\';
+          case '\n' -> b[p++] = 'n';
+          case '\r' -> b[p++] = 'r';
+          case '\t' -> b[p++] = 't';
+          case '\b' -> b[p++] = 'b';
+          case '\f' -> b[p++] = 'f';
+          default -> {
+            b[p++] = 'u';
+            b[p++] = '0';
+            b[p++] = '0';
+            b[p++] = HEX[ch >> 4];
+            b[p++] = HEX[ch & 0xf];
+          }
+        }
+      } else if (ch < 0x800) {
+        b[p++] = (byte) (0xc0 | (ch >> 6));
+        b[p++] = (byte) (0x80 | (ch & 0x3f));
+      } else if (Character.isSurrogate(ch)) {
+        // like Jackson: each half of a pair (or a lone half) as its own escape
+        b[p++] = '\\';
+        b[p++] = 'u';
+        b[p++] = HEX[ch >> 12];
+        b[p++] = HEX[(ch >> 8) & 0xf];
+        b[p++] = HEX[(ch >> 4) & 0xf];
+        b[p++] = HEX[ch & 0xf];
+      } else {
+        b[p++] = (byte) (0xe0 | (ch >> 12));
+        b[p++] = (byte) (0x80 | ((ch >> 6) & 0x3f));
+        b[p++] = (byte) (0x80 | (ch & 0x3f));
+      }
+    }
+    b[p++] = '"';
+    pos = p;
+  }
+
+  private void decimal(BigDecimal d) throws IOException {
+    if (d == null) {
+      raw(NULL);
+      return;
+    }
+    // up to 18 digits in plain notation covers every realistic amount; the rest goes through
+    // toString(), which switches to an exponent for negative scales and tiny fractions
+    int scale = d.scale();
+    if (scale >= 0 && scale < 19 && d.precision() < 19 && d.precision() - scale - 1 >= -6) {
+      long unscaled = d.unscaledValue().longValue();
+      if (scale == 0) {
+        number(unscaled);
+        return;
+      }
+      ensure(22);
+      if (unscaled < 0) {
+        buf[pos++] = '-';
+        unscaled = -unscaled;
+      }
+      long pow = 1;
+      for (int i = 0; i < scale; i++) pow *= 10;
+      number(unscaled / pow);
+      buf[pos++] = '.';
+      long frac = unscaled % pow;
+      for (long p = pow / 10; p > 0; p /= 10) buf[pos++] = (byte) ('0' + (frac / p) % 10);
+      return;
+    }
+    raw(d.toString().getBytes(StandardCharsets.US_ASCII));
+  }
+
+  private void number(long v) throws IOException {
+    ensure(20);
+    if (v == Long.MIN_VALUE) {
+      raw(ascii(Long.toString(v)));
+      return;
+    }
+    if (v < 0) {
+      buf[pos++] = '-';
+      v = -v;
+    }
+    int digits = 1;
+    for (long t = v; t >= 10; t /= 10) digits++;
+    int end = pos + digits;
+    for (int p = end - 1; p >= pos; p--) {
+      buf[p] = (byte) ('0' + v % 10);
+      v /= 10;
+    }
+    pos = end;
+  }
+
+  // DateTimeFormatter.ISO_INSTANT: fraction omitted when zero, else 3, 6 or 9 digits
+  private void instant(Instant t) throws IOException {
+    if (t == null) {
+      raw(NULL);
+      return;
+    }
+    long secs = t.getEpochSecond();
+    long days = Math.floorDiv(secs, 86_400);
+    int secOfDay = Math.floorMod(secs, 86_400);
+    // civil-from-days, proleptic Gregorian (H. Hinnant)
+    long z = days + 719_468;
+    long era = Math.floorDiv(z, 146_097);
+    long doe = z - era * 146_097;
+    long yoe = (doe - doe / 1460 + doe / 36_524 - doe / 146_096) / 365;
+    long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+    long mp = (5 * doy + 2) / 153;
+    int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+    int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+    long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+    if (year < 0 || year > 9999) {
+      string(t.toString());
+      return;
+    }
+    ensure(32);
+    buf[pos++] = '"';
+    digits((int) year, 4);
+    buf[pos++] = '-';
+    digits(month, 2);
+    buf[pos++] = '-';
+    digits(day, 2);
+    buf[pos++] = 'T';
+    digits(secOfDay / 3600, 2);
+    buf[pos++] = ':';
+    digits(secOfDay / 60 % 60, 2);
+    buf[pos++] = ':';
+    digits(secOfDay % 60, 2);
+    int nano = t.getNano();
+    if (nano != 0) {
+      buf[pos++] = '.';
+      if (nano % 1_000_000 == 0) digits(nano / 1_000_000, 3);
+      else if (nano % 1000 == 0) digits(nano / 1000, 6);
+      else digits(nano, 9);
+    }
+    buf[pos++] = 'Z';
+    buf[pos++] = '"';
+  }
+
+  private void digits(int v, int width) {
+    for (int p = pos + width - 1; p >= pos; p--) {
+      buf[p] = (byte) ('0' + v % 10);
+      v /= 10;
+    }
+    pos += width;
+  }
+
+  private static byte[] ascii(String s) {
+    return s.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  private static byte[][] quoted(Enum<?>[] values) {
+    var out = new byte[values.length][];
+    for (Enum<?> v : values) out[v.ordinal()] = ascii("\"" + v.name() + "\"");
+    return out;
+  }
+}
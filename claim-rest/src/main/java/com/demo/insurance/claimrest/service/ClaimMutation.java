@@ -0,0 +1,131 @@
+package com.demo.insurance.claimrest.service;
+
+import com.demo.insurance.claimrest.model.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A domain event of the claim store: what happened to one claim, as it is written to the journal.
+ * A claim is the fold of its events through {@link #applyTo(Claim)}; live requests and journal
+ * replay both go through it, so a replayed claim ends up identical to the one that was served
+ * before the restart.
+ */
+public sealed interface ClaimMutation {
+
+  String claimId();
+
+  Instant at();
+
+  /** Returns the claim after this event, or {@code null} if it no longer exists. */
+  Claim applyTo(Claim current);
+
+  record ClaimSubmitted(Claim claim) implements ClaimMutation {
+    public String claimId() { return claim.id; }
+    public Instant at() { return claim.createdAt; }
+    public Claim applyTo(Claim current) { return claim; }
+  }
+
+  record StatusChanged(String claimId, Instant at, ClaimStatus status, String message) implements ClaimMutation {
+    public Claim applyTo(Claim c) {
+      c.status = status;
+      c.history.add(new ClaimHistoryEvent(at, status, message));
+      return c;
+    }
+  }
+
+  /** The claim attributes an admin update changed, each with its old and new value. */
+  record FieldsUpdated(String claimId, Instant at, List<FieldChange> changes) implements ClaimMutation {
+
+    /** What {@code req} changes on {@code c}; blank strings and equal values leave a field alone. */
+    static FieldsUpdated of(Claim c, Instant at, ClaimUpdateRequest req) {
+      var changes = new ArrayList<FieldChange>();
+      if (req.customerId() != null && !req.customerId().isBlank()) changes.add(Field.CUSTOMER_ID.change(c, req.customerId()));
+      if (req.fullName() != null && !req.fullName().isBlank()) changes.add(Field.FULL_NAME.change(c, req.fullName()));
+      if (req.policyNumber() != null && !req.policyNumber().isBlank()) changes.add(Field.POLICY_NUMBER.change(c, req.policyNumber()));
+      if (req.claimType() != null) changes.add(Field.CLAIM_TYPE.change(c, req.claimType()));
+      if (req.claimedAmount() != null) changes.add(Field.CLAIMED_AMOUNT.change(c, req.claimedAmount()));
+      if (req.description() != null) changes.add(Field.DESCRIPTION.change(c, req.description()));
+      changes.removeIf(Objects::isNull);
+      return new FieldsUpdated(c.id, at, List.copyOf(changes));
+    }
+
+    public Claim applyTo(Claim c) {
+      for (FieldChange ch : changes) ch.field().set(c, ch.to());
+      c.history.add(new ClaimHistoryEvent(at, c.status, message()));
+      return c;
+    }
+
+    /** "Claim updated (admin): claimedAmount 100.00 -> 150.00, description"; free text by name only. */
+    String message() {
+      var sb = new StringBuilder("Claim updated (admin)");
+      for (int i = 0; i < changes.size(); i++) {
+        FieldChange ch = changes.get(i);
+        sb.append(i == 0 ? ": " : ", ").append(ch.field().json);
+        if (!ch.field().freeText) sb.append(' ').append(ch.from()).append(" -> ").append(ch.to());
+      }
+      return sb.toString();
+    }
+  }
+
+  record FieldChange(Field field, Object from, Object to) {}
+
+  /** An attribute {@link FieldsUpdated} can change; values are Strings, {@link ClaimType} or {@link BigDecimal}. */
+  enum Field {
+    CUSTOMER_ID("customerId", false),
+    FULL_NAME("fullName", true),
+    POLICY_NUMBER("policyNumber", false),
+    CLAIM_TYPE("claimType", false),
+    CLAIMED_AMOUNT("claimedAmount", false),
+    DESCRIPTION("description", true);
+
+    final String json;
+    final boolean freeText;
+
+    Field(String json, boolean freeText) {
+      this.json = json;
+      this.freeText = freeText;
+    }
+
+    Object get(Claim c) {
+      return switch (this) {
+        case CUSTOMER_ID -> c.customerId;
+        case FULL_NAME -> c.fullName;
+        case POLICY_NUMBER -> c.policyNumber;
+        case CLAIM_TYPE -> c.claimType;
+        case CLAIMED_AMOUNT -> c.claimedAmount;
+        case DESCRIPTION -> c.description;
+      };
+    }
+
+    void set(Claim c, Object value) {
+      switch (this) {
+        case CUSTOMER_ID -> c.customerId = (String) value;
+        case FULL_NAME -> c.fullName = (String) value;
+        case POLICY_NUMBER -> c.policyNumber = (String) value;
+        case CLAIM_TYPE -> c.claimType = (ClaimType) value;
+        case CLAIMED_AMOUNT -> c.claimedAmount = (BigDecimal) value;
+        case DESCRIPTION -> c.description = (String) value;
+      }
+    }
+
+    // null when the value stays the same; amounts compare numerically, so 100 and 100.00 are equal
+    private FieldChange change(Claim c, Object to) {
+      Object from = get(c);
+      boolean same = from instanceof BigDecimal a && to instanceof BigDecimal b ? a.compareTo(b) == 0 : Objects.equals(from, to);
+      return same ? null : new FieldChange(this, from, to);
+    }
+  }
+
+  record ClaimDeleted(String claimId, Instant at) implements ClaimMutation {
+    public Claim applyTo(Claim current) { return null; }
+  }
+
+  /** Moved to the cold tier: leaves the live table but, unlike a delete, remains a claim. */
+  record ClaimArchived(String claimId, Instant at) implements ClaimMutation {
+    public Claim applyTo(Claim current) { return null; }
+  }
+}
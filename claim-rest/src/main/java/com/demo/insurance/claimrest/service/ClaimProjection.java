@@ -0,0 +1,48 @@
+package com.demo.insurance.claimrest.service;
+
+import com.demo.insurance.claimrest.model.Claim;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A read model derived from the claim events. Every bean of this type is fed by
+ * {@link ClaimStore} with every live event, and its state is saved in each journal snapshot
+ * under {@link #name}. Recovery restores that state and replays the journal events after the
+ * snapshot into it. A projection with no saved state yet is built instead: from the whole history
+ * while the journal still reaches back to the first event, otherwise from each claim loaded from
+ * the snapshot or the archive. A new projection therefore needs no migration of stored data.
+ *
+ * <p>Like the store's own indexes, a projection sees a claim as the part of its state it
+ * depends on ({@link #key}), taken before and after each event inside the claim's critical
+ * section. Calls for different claims arrive concurrently, including during recovery, which
+ * replays claims in parallel.
+ *
+ * @param <K> the state of one claim this projection depends on
+ */
+public interface ClaimProjection<K> {
+
+  /** The part of {@code c} this projection depends on; {@code null} for no claim. */
+  K key(Claim c);
+
+  /**
+   * Moves claim {@code id} from {@code before} to {@code after}, either of which is {@code null}
+   * when the claim appears or goes away. {@code event} caused the change; it is {@code null}
+   * when an existing claim is loaded from a snapshot or the archive, or when a write the database
+   * rejected is reverted.
+   */
+  void update(String id, ClaimMutation event, K before, K after);
+
+  /** Forgets all state; the store feeds every claim again right after. */
+  void reset();
+
+  /** Stable name of this projection's state in snapshots; a renamed projection is built again. */
+  String name();
+
+  /** Writes the current state; the store calls this while no event is being applied. */
+  void writeState(DataOutputStream out) throws IOException;
+
+  /** Replaces the state with one {@link #writeState} wrote, before any event is replayed. */
+  void readState(DataInputStream in) throws IOException;
+}
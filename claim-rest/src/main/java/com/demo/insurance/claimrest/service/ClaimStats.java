@@ -0,0 +1,128 @@
+package com.demo.insurance.claimrest.service;
+
+import com.demo.insurance.claimrest.model.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts and amount sums per status and per type, kept current by {@link ClaimStore} on every
+ * mutation so reading them costs the same whatever the store size. Amounts are summed as cents in
+ * {@link LongAdder}s; under concurrent writes a snapshot may be a few mutations apart between groups.
+ */
+final class ClaimStats {
+
+  record Entry(ClaimStatus status, ClaimType type, long cents) {
+    static Entry of(Claim c) {
+      return c == null ? null : new Entry(c.status, c.claimType, toCents(c.claimedAmount));
+    }
+  }
+
+  private record Bucket(long minute, LongAdder count) {}
+
+  private static final ClaimStatus[] STATUSES = ClaimStatus.values();
+  private static final ClaimType[] TYPES = ClaimType.values();
+
+  private final LongAdder[] statusCount = adders(STATUSES.length);
+  private final LongAdder[] statusCents = adders(STATUSES.length);
+  private final LongAdder[] typeCount = adders(TYPES.length);
+  private final LongAdder[] typeCents = adders(TYPES.length);
+
+  // submissions per minute since the epoch; slot = minute % window, replaced when a new minute starts
+  private final int window;
+  private final AtomicReferenceArray<Bucket> minutes;
+
+  ClaimStats(int windowMinutes) {
+    if (windowMinutes <= 0) throw new IllegalStateException("claims.store.stats.rate-window-minutes must be > 0, got " + windowMinutes);
+    this.window = windowMinutes;
+    this.minutes = new AtomicReferenceArray<>(windowMinutes);
+  }
+
+  void update(Entry before, Entry after) {
+    if (before != null) add(before, -1);
+    if (after != null) add(after, 1);
+  }
+
+  /** Counts a submission in the minute of its creation time, if that is still inside the window. */
+  void submitted(Instant createdAt) {
+    if (createdAt == null) return;
+    long minute = createdAt.getEpochSecond() / 60;
+    if (minute <= currentMinute() - window) return;
+    int slot = (int) (minute % window);
+    Bucket b = minutes.get(slot);
+    while (b == null || b.minute() < minute) {
+      var fresh = new Bucket(minute, new LongAdder());
+      if (minutes.compareAndSet(slot, b, fresh)) {
+        b = fresh;
+        break;
+      }
+      b = minutes.get(slot);
+    }
+    // a bucket already holding a newer minute means this creation time fell out of the window
+    if (b.minute() == minute) b.count().increment();
+  }
+
+  ClaimStatistics snapshot() {
+    long total = 0, totalCents = 0;
+    var byStatus = new EnumMap<ClaimStatus, ClaimStatistics.Group>(ClaimStatus.class);
+    for (ClaimStatus s : STATUSES) {
+      long n = statusCount[s.ordinal()].sum();
+      if (n == 0) continue;
+      long c = statusCents[s.ordinal()].sum();
+      byStatus.put(s, new ClaimStatistics.Group(n, amount(c)));
+      total += n;
+      totalCents += c;
+    }
+    var byType = new EnumMap<ClaimType, ClaimStatistics.Group>(ClaimType.class);
+    for (ClaimType t : TYPES) {
+      long n = typeCount[t.ordinal()].sum();
+      if (n != 0) byType.put(t, new ClaimStatistics.Group(n, amount(typeCents[t.ordinal()].sum())));
+    }
+
+    long now = currentMinute();
+    long inWindow = 0;
+    var perMinute = new ArrayList<ClaimStatistics.Minute>(window);
+    for (long m = now - window + 1; m <= now; m++) {
+      Bucket b = minutes.get((int) (m % window));
+      long n = b != null && b.minute() == m ? b.count().sum() : 0;
+      inWindow += n;
+      perMinute.add(new ClaimStatistics.Minute(Instant.ofEpochSecond(m * 60), n));
+    }
+    var rate = new ClaimStatistics.SubmissionRate(window, (double) inWindow / window, perMinute);
+    return new ClaimStatistics(total, amount(totalCents), byStatus, byType, rate);
+  }
+
+  private void add(Entry e, int sign) {
+    if (e.status() != null) {
+      statusCount[e.status().ordinal()].add(sign);
+      statusCents[e.status().ordinal()].add(sign * e.cents());
+    }
+    if (e.type() != null) {
+      typeCount[e.type().ordinal()].add(sign);
+      typeCents[e.type().ordinal()].add(sign * e.cents());
+    }
+  }
+
+  private static long currentMinute() {
+    return System.currentTimeMillis() / 60_000;
+  }
+
+  static long toCents(BigDecimal amount) {
+    return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+  }
+
+  static BigDecimal amount(long cents) {
+    return BigDecimal.valueOf(cents, 2);
+  }
+
+  private static LongAdder[] adders(int n) {
+    var a = new LongAdder[n];
+    for (int i = 0; i < n; i++) a[i] = new LongAdder();
+    return a;
+  }
+}
@@ -1,20 +1,214 @@
 package com.demo.insurance.claimrest.service;
 
+import com.demo.insurance.claimrest.cluster.ClusterRouting;
 import com.demo.insurance.claimrest.model.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 @Service
 public class ClaimStore {
 
-  private final Map<String, Claim> claims = new ConcurrentHashMap<>();
+  /** Expected version that matches any current version. */
+  public static final long ANY_VERSION = -1;
+
+  private static final Set<ClaimStatus> FINAL = EnumSet.of(ClaimStatus.APPROVED, ClaimStatus.REJECTED, ClaimStatus.SUSPENDED);
+
+  private final ClaimTable claims;
+  // cold tier for old claims in a final status; null for persistent tables or without a journal
+  private final ClaimArchive archive;
+  private final ClaimStoreProperties.Tiering tiering;
+  private final int rateWindow;
+  // replaced once during recovery when archived claims are indexed alongside the live ones
+  private ClaimIndexes indexes = new ClaimIndexes();
+  private ClaimStats stats;
+  private final ClaimJournal journal;
+  private final ClaimEventBus events;
+  private final ClusterRouting routing;
+  private final ClaimIdGenerator ids;
+  // read models fed with every event; see ClaimProjection
+  private final List<ClaimProjection<?>> projections;
+  // the projections recovery restored from the snapshot; the others are built from the claims or the history
+  private final Set<ClaimProjection<?>> restored = ConcurrentHashMap.newKeySet();
+  // a projection's state is not in the newest snapshot yet, so the next one is due even when idle
+  private volatile boolean unsavedProjections;
+  private final int replayThreads;
+
+  // lsn source when the table is persistent and the journal is bypassed
+  private final AtomicLong tableLsn = new AtomicLong();
+
+  // mutations hold the read side from journal append until the map reflects it; rotation takes the write side
+  private final ReadWriteLock rotation = new ReentrantReadWriteLock();
+  // while a snapshot is written: the state at the cut of each claim changed since (see preserve)
+  private volatile Map<String, Claim> preimages;
+  private volatile long snapshotCut;
+
+  public ClaimStore(ClaimJournal journal, ClaimEventBus events, ClaimStoreProperties props, ClusterRouting routing,
+                    ClaimIdGenerator ids, ObjectProvider<ClaimProjection<?>> projections) throws IOException {
+    this.journal = journal;
+    this.events = events;
+    this.routing = routing;
+    this.ids = ids;
+    this.projections = projections.orderedStream().toList();
+    int threads = props.getJournal().getReplayThreads();
+    this.replayThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    this.tiering = props.getTiering();
+    this.rateWindow = props.getStats().getRateWindowMinutes();
+    this.stats = new ClaimStats(rateWindow);
+    this.claims = switch (props.getMode()) {
+      case HEAP -> new HeapClaimTable();
+      case COMPACT -> new CompactClaimTable();
+      case JDBC -> new JdbcClaimTable(props.getJdbc(), this::reverted);
+    };
+    boolean archiving = journal.isEnabled() && !claims.isPersistent();
+    this.archive = archiving ? new ClaimArchive(Path.of(props.getJournal().getDataDir(), "archive")) : null;
+  }
+
+  /**
+   * Rebuilds the live table, indexes, stats and projections from the newest snapshot and the
+   * journal events after it. Claims are independent of each other, so the work is spread over
+   * {@code journal.replay-threads} by claim id; the events of one claim stay in journal order.
+   * Projections start from the state saved in the snapshot; one without saved state is built from
+   * the recovered claims or, while the journal still holds every event since its first, from that
+   * history.
+   */
+  @PostConstruct
+  void recover() throws IOException {
+    long start = System.nanoTime();
+    if (claims.isPersistent()) {
+      try (var replay = new ParallelReplay(replayThreads)) {
+        claims.forEach(c -> replay.submit(c.id, () -> {
+          ids.observe(c.id);
+          index(c);
+          tableLsn.accumulateAndGet(c.lsn, Math::max);
+        }));
+      }
+      System.out.printf("[jdbc] indexed %d claims in %d ms%n", claims.size(), (System.nanoTime() - start) / 1_000_000);
+      return;
+    }
+    int threads;
+    try (var replay = new ParallelReplay(replayThreads)) {
+      threads = replay.threads();
+      journal.recover(
+          this::restore,
+          (lsn, c) -> replay.submit(c.id, () -> {
+            // a claim changed while the snapshot was written is in it twice, both times as it was at the cut
+            if (claims.get(c.id) != null) return;
+            c.lsn = lsn;
+            ids.observe(c.id);
+            claims.put(c);
+            index(c);
+          }),
+          (lsn, m) -> replay.submit(m.claimId(), () -> replay(lsn, m)));
+    }
+    if (journal.isEnabled()) {
+      System.out.printf("[journal] recovered %d claims in %d ms on %d threads%n",
+          claims.size(), (System.nanoTime() - start) / 1_000_000, threads);
+    }
+    if (archive != null) {
+      // deletes replayed from the log hid their archived copies again
+      archive.syncTombstones();
+      if (!archive.isEmpty()) indexArchive();
+    }
+    unsavedProjections = restored.size() < projections.size();
+    if (unsavedProjections && journal.hasFullHistory()) projectHistory();
+  }
+
+  private void restore(String name, byte[] state) throws IOException {
+    for (ClaimProjection<?> p : projections) {
+      if (!p.name().equals(name)) continue;
+      p.readState(new DataInputStream(new ByteArrayInputStream(state)));
+      restored.add(p);
+    }
+  }
+
+  /**
+   * Feeds the projections without saved state every event since the first one, in place of the
+   * recovered end state, so a read model sees each change as it happened. The claims are folded
+   * again on the side for the projection keys; the live table is left alone.
+   */
+  private void projectHistory() throws IOException {
+    long start = System.nanoTime();
+    building().forEach(ClaimProjection::reset);
+    var folded = new ConcurrentHashMap<String, Claim>();
+    var count = new AtomicLong();
+    try (var replay = new ParallelReplay(replayThreads)) {
+      journal.replayHistory((lsn, m) -> replay.submit(m.claimId(), () -> {
+        count.incrementAndGet();
+        // archiving moves a claim out of the live table but does not change it
+        if (m instanceof ClaimMutation.ClaimArchived) return;
+        Claim cur = folded.get(m.claimId());
+        if (cur == null && !(m instanceof ClaimMutation.ClaimSubmitted)) return;
+        Object[] before = keys(cur);
+        Claim next = m.applyTo(cur);
+        if (next == null) folded.remove(m.claimId()); else folded.put(m.claimId(), next);
+        project(m.claimId(), m, before, next, true);
+      }));
+    }
+    System.out.printf("[journal] projections rebuilt from %d events in %d ms%n",
+        count.get(), (System.nanoTime() - start) / 1_000_000);
+  }
+
+  // replay indexed live claims only, some of them against archived state; start over with both tiers
+  private void indexArchive() {
+    long start = System.nanoTime();
+    indexes = new ClaimIndexes();
+    stats = new ClaimStats(rateWindow);
+    building().forEach(ClaimProjection::reset);
+    claims.forEach(this::index);
+    long[] archived = { 0 };
+    archive.forEach(c -> {
+      ids.observe(c.id);
+      if (claims.get(c.id) != null) return;
+      index(c);
+      archived[0]++;
+    });
+    System.out.printf("[archive] indexed %d archived claims in %d ms%n",
+        archived[0], (System.nanoTime() - start) / 1_000_000);
+  }
+
+  private void index(Claim c) {
+    indexes.update(c.id, null, ClaimIndexes.Keys.of(c));
+    stats.update(null, ClaimStats.Entry.of(c));
+    stats.submitted(c.createdAt);
+    if (!projections.isEmpty()) project(c.id, null, null, c, true);
+  }
+
+  private List<ClaimProjection<?>> building() {
+    return projections.stream().filter(p -> !restored.contains(p)).toList();
+  }
 
   public Claim create(ClaimSubmissionRequest req) {
-    String id = "CLM-" + UUID.randomUUID().toString().substring(0, 8);
+    return commit(new ClaimMutation.ClaimSubmitted(newClaim(req)), ANY_VERSION);
+  }
+
+  private Claim newClaim(ClaimSubmissionRequest req) {
+    // in a cluster, draw ids until one hashes to this node so submissions never need a forward
+    String id;
+    do {
+      id = ids.next();
+    } while (!routing.isLocal(id));
+    Instant now = now();
 
     Claim c = new Claim();
     c.id = id;
@@ -25,56 +219,463 @@ public class ClaimStore {
     c.claimedAmount = req.claimedAmount;
     c.description = req.description;
 
-    c.createdAt = Instant.now();
+    c.createdAt = now;
     c.status = ClaimStatus.SUBMITTED;
-    c.history.add(new ClaimHistoryEvent(Instant.now(), ClaimStatus.SUBMITTED, "Claim submitted"));
-
-    claims.put(id, c);
+    c.history.add(new ClaimHistoryEvent(now, ClaimStatus.SUBMITTED, "Claim submitted"));
     return c;
   }
 
+  /**
+   * Creates all claims and waits for durability once for the whole batch instead of once per
+   * claim. Results are in request order.
+   */
+  public List<Claim> createAll(List<ClaimSubmissionRequest> reqs) {
+    var out = new ArrayList<Claim>(reqs.size());
+    var lsns = new long[reqs.size()];
+    for (ClaimSubmissionRequest req : reqs) {
+      var done = journalAndApply(new ClaimMutation.ClaimSubmitted(newClaim(req)), ANY_VERSION);
+      lsns[out.size()] = done.lsn();
+      out.add(done.claim());
+    }
+    // newest first: one wait covers the batch, the rest only report a write a persistent table rejected
+    for (int i = lsns.length - 1; i >= 0; i--) awaitDurable(lsns[i]);
+    return out;
+  }
+
   public Optional<Claim> get(String id) {
-    return Optional.ofNullable(claims.get(id));
+    return Optional.ofNullable(lookup(id));
   }
 
   public List<Claim> list() {
-    var out = new ArrayList<>(claims.values());
-    out.sort(Comparator.comparing((Claim c) -> c.createdAt).reversed());
+    return stream(ClaimFilter.ALL, null).toList();
+  }
+
+  /**
+   * Lazily walks claims matching {@code f}, newest first, strictly after {@code after}.
+   * Unfiltered walks read the time index directly; filtered ones cost time proportional to the
+   * smallest matching index entry.
+   */
+  public Stream<Claim> stream(ClaimFilter f, ClaimCursor after) {
+    if (f.isEmpty()) {
+      return indexes.newestFirst(after).stream()
+          .map(k -> lookup(k.id()))
+          .filter(Objects::nonNull);
+    }
+    var matches = new ArrayList<Claim>();
+    for (String id : indexes.candidates(f)) {
+      Claim c = lookup(id);
+      if (c != null && f.matches(c) && (after == null || ClaimCursor.of(c).compareTo(after) > 0)) matches.add(c);
+    }
+    matches.sort(Comparator.comparing(ClaimCursor::of));
+    return matches.stream();
+  }
+
+  /**
+   * Oldest-first claims created in {@code [from, to)} (null bounds are open), optionally with
+   * {@code status}. Walks the time index lazily, so memory stays constant however many match.
+   */
+  public Stream<Claim> createdBetween(Instant from, Instant to, ClaimStatus status) {
+    return indexes.createdBetween(from, to).stream()
+        .map(k -> lookup(k.id()))
+        .filter(c -> c != null && (status == null || c.status == status));
+  }
+
+  /**
+   * Up to {@code limit} claims whose description matches any term of {@code query}, best match
+   * first. Served from the inverted index; cost grows with the matching postings, not the store.
+   */
+  public List<ClaimSearchHit> search(String query, int limit) {
+    var out = new ArrayList<ClaimSearchHit>();
+    for (var hit : indexes.search(query, limit)) {
+      Claim c = lookup(hit.id());
+      if (c != null) out.add(new ClaimSearchHit(hit.score(), c));
+    }
     return out;
   }
 
+  /** Counts and sums per status and type plus the recent submission rate; cost independent of size. */
+  public ClaimStatistics stats() {
+    return stats.snapshot();
+  }
+
   public List<ClaimHistoryEvent> history(String id) {
-    Claim c = claims.get(id);
+    return history(id, 0);
+  }
+
+  /** Events of claim {@code id} with a sequence number greater than {@code since}. */
+  public List<ClaimHistoryEvent> history(String id, long since) {
+    Claim c = lookup(id);
     if (c == null) return List.of();
-    return c.history;
+    return c.history.since(since);
   }
 
   // later: used by workflow-engine to push updates
   public Optional<Claim> updateStatus(String id, ClaimStatus status, String message) {
-    Claim c = claims.get(id);
-    if (c == null) return Optional.empty();
-    c.status = status;
-    c.history.add(new ClaimHistoryEvent(Instant.now(), status, message));
-    return Optional.of(c);
+    return updateStatus(id, status, message, ANY_VERSION);
+  }
+
+  /**
+   * Compare-and-set status change: applied only if the claim is still at {@code expectedVersion}
+   * ({@link #ANY_VERSION} skips the check), otherwise {@link ClaimVersionConflictException}.
+   */
+  public Optional<Claim> updateStatus(String id, ClaimStatus status, String message, long expectedVersion) {
+    return Optional.ofNullable(commit(new ClaimMutation.StatusChanged(id, now(), status, message), expectedVersion));
+  }
+
+  /**
+   * Applies each transition atomically for its claim, in list order, and waits for durability once
+   * for the whole batch instead of once per transition. A conflict, a missing claim or any other
+   * failure fails only its own transition, so the ones applied before it are still awaited and
+   * reported. Results are in list order.
+   */
+  public List<StatusTransition.Result> updateStatusAll(List<StatusTransition> transitions) {
+    var out = new ArrayList<StatusTransition.Result>(transitions.size());
+    var lsns = new long[transitions.size()];
+    for (StatusTransition t : transitions) {
+      try {
+        var m = new ClaimMutation.StatusChanged(t.claimId(), now(), t.status(), t.message());
+        var done = journalAndApply(m, t.expectedVersion());
+        if (done.claim() == null) {
+          out.add(StatusTransition.Result.failed(t.claimId(), StatusTransition.Outcome.NOT_FOUND, "Claim not found: " + t.claimId()));
+          continue;
+        }
+        // read here, before a later transition of the same claim in this batch changes it
+        lsns[out.size()] = done.lsn();
+        out.add(new StatusTransition.Result(t.claimId(), StatusTransition.Outcome.APPLIED, done.claim().status, done.claim().version, null));
+      } catch (ClaimVersionConflictException e) {
+        out.add(new StatusTransition.Result(
+            t.claimId(), StatusTransition.Outcome.CONFLICT, null, e.getCurrentVersion(), e.getMessage()));
+      } catch (RuntimeException e) {
+        out.add(StatusTransition.Result.failed(t.claimId(), StatusTransition.Outcome.UNAVAILABLE, String.valueOf(e.getMessage())));
+      }
+    }
+    // newest first, as in createAll; a transition the table rejected fails on its own
+    for (int i = out.size() - 1; i >= 0; i--) {
+      if (lsns[i] == 0) continue;
+      try {
+        awaitDurable(lsns[i]);
+      } catch (RuntimeException e) {
+        out.set(i, StatusTransition.Result.failed(out.get(i).id(), StatusTransition.Outcome.UNAVAILABLE, String.valueOf(e.getMessage())));
+      }
+    }
+    return out;
   }
 
   public Optional<Claim> updateClaim(String id, ClaimUpdateRequest body) {
-    Claim c = claims.get(id);
-    if (c == null) return Optional.empty();
-  
-    if (body.customerId() != null && !body.customerId().isBlank()) c.customerId = body.customerId();
-    if (body.fullName() != null && !body.fullName().isBlank()) c.fullName = body.fullName();
-    if (body.policyNumber() != null && !body.policyNumber().isBlank()) c.policyNumber = body.policyNumber();
-    if (body.claimType() != null) c.claimType = body.claimType();
-    if (body.claimedAmount() != null) c.claimedAmount = body.claimedAmount();
-    if (body.description() != null) c.description = body.description();
-  
-    c.history.add(new ClaimHistoryEvent(Instant.now(), c.status, "Claim updated (admin)"));
-    return Optional.of(c);
-  }
-  
+    return updateClaim(id, body, ANY_VERSION);
+  }
+
+  /**
+   * Records the fields {@code body} actually changes, compared with the claim's current state; an
+   * update that changes nothing records no event and leaves the version as it is.
+   */
+  public Optional<Claim> updateClaim(String id, ClaimUpdateRequest body, long expectedVersion) {
+    Instant at = now();
+    Applied done = journalAndApply(id, false, expectedVersion, cur -> {
+      var update = ClaimMutation.FieldsUpdated.of(cur, at, body);
+      return update.changes().isEmpty() ? null : update;
+    });
+    awaitDurable(done.lsn());
+    return Optional.ofNullable(done.claim());
+  }
+
   public boolean delete(String id) {
-    return claims.remove(id) != null;
+    Claim deleted = commit(new ClaimMutation.ClaimDeleted(id, now()), ANY_VERSION);
+    // the delete is durable, so the tombstone hiding an archived copy may be too
+    if (deleted != null && archive != null) {
+      try {
+        archive.syncTombstones();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return deleted != null;
+  }
+
+  @Scheduled(
+      initialDelayString = "${claims.store.journal.snapshot-interval-ms:300000}",
+      fixedDelayString = "${claims.store.journal.snapshot-interval-ms:300000}")
+  public synchronized void snapshot() throws IOException {
+    // an idle store would only add empty generations, unless a projection still has to be saved
+    if (!journal.isEnabled() || claims.isPersistent() || (journal.isGenerationEmpty() && !unsavedProjections)) return;
+    long gen;
+    long cut;
+    var states = new LinkedHashMap<String, byte[]>();
+    rotation.writeLock().lock();
+    try {
+      gen = journal.rotate();
+      cut = journal.generationStart();
+      snapshotCut = cut;
+      preimages = new ConcurrentHashMap<>();
+      // no event is being applied, so each state reflects exactly the events before the cut
+      for (ClaimProjection<?> p : projections) states.put(p.name(), state(p));
+    } finally {
+      rotation.writeLock().unlock();
+    }
+    // deletes in the generations this snapshot retires must not depend on their replay any more
+    if (archive != null) archive.syncTombstones();
+    try {
+      // claims keep changing while we write; one changed since the cut is written as it was then,
+      // so that replaying the new generation moves claims and projection states alike
+      journal.writeSnapshot(gen, states, sink -> {
+        claims.forEach(c -> {
+          if (c.lsn < cut) sink.write(c.lsn, c);
+        });
+        Map<String, Claim> changed;
+        rotation.writeLock().lock();
+        try {
+          changed = preimages;
+          preimages = null;
+        } finally {
+          rotation.writeLock().unlock();
+        }
+        changed.values().forEach(c -> sink.write(c.lsn, c));
+      });
+      unsavedProjections = false;
+    } finally {
+      preimages = null;
+    }
+  }
+
+  private static byte[] state(ClaimProjection<?> p) throws IOException {
+    var bytes = new ByteArrayOutputStream(4096);
+    var out = new DataOutputStream(bytes);
+    p.writeState(out);
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  // before the first change after a snapshot's cut, keeps a copy of the claim as it was at the cut
+  private void preserve(Claim cur) {
+    Map<String, Claim> pre = preimages;
+    if (pre != null && cur != null && cur.lsn < snapshotCut) pre.computeIfAbsent(cur.id, id -> ClaimCodec.copy(cur));
+  }
+
+  /**
+   * Moves claims that have been in a final status for longer than {@code tiering.min-age} (by
+   * creation time) out of the live table into an archive segment. Each is removed only if it did
+   * not change while the segment was written; one that did stays live until the next run.
+   */
+  @Scheduled(
+      initialDelayString = "${claims.store.tiering.interval-ms:3600000}",
+      fixedDelayString = "${claims.store.tiering.interval-ms:3600000}")
+  public void tier() throws IOException {
+    if (archive == null || !tiering.isEnabled()) return;
+    Instant cutoff = now().minus(tiering.getMinAge());
+    var batch = new ArrayList<ClaimArchive.Entry>();
+    var encoded = new ByteArrayOutputStream(512);
+    var out = new DataOutputStream(encoded);
+    for (ClaimCursor k : indexes.createdBetween(null, cutoff)) {
+      if (claims.get(k.id()) == null) continue;  // archived already
+      // encoded inside the claim's compute block so a concurrent mutation cannot tear the copy
+      claims.compute(k.id(), (id, cur) -> {
+        if (cur == null || !FINAL.contains(cur.status)) return cur;
+        encoded.reset();
+        try {
+          ClaimCodec.writeClaim(out, cur);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        batch.add(new ClaimArchive.Entry(id, cur.lsn, encoded.toByteArray()));
+        return cur;
+      });
+      if (batch.size() >= tiering.getSegmentClaims()) {
+        evict(batch);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) evict(batch);
+  }
+
+  private void evict(List<ClaimArchive.Entry> batch) throws IOException {
+    archive.write(batch);
+    long lastLsn = 0;
+    int moved = 0;
+    rotation.readLock().lock();
+    try {
+      for (ClaimArchive.Entry e : batch) {
+        long[] lsn = new long[1];
+        // indexes and stats keep the claim: it is still served, only from the archive
+        claims.compute(e.id(), (id, cur) -> {
+          if (cur == null || cur.lsn != e.lsn()) return cur;
+          lsn[0] = journal.append(new ClaimMutation.ClaimArchived(id, now()));
+          return null;
+        });
+        if (lsn[0] != 0) moved++;
+        lastLsn = Math.max(lastLsn, lsn[0]);
+      }
+    } finally {
+      rotation.readLock().unlock();
+    }
+    awaitDurable(lastLsn);
+    System.out.printf("[archive] moved %d of %d claims out of the live table%n", moved, batch.size());
+  }
+
+  @PreDestroy
+  void close() throws IOException {
+    claims.close();
+    if (archive != null) archive.close();
+  }
+
+  // live tier first: a claim changed after it was archived is live again and newer
+  private Claim lookup(String id) {
+    Claim c = claims.get(id);
+    if (c == null && archive != null) c = archive.get(id);
+    return c;
+  }
+
+  // lsn is the table's write ticket for a persistent table, see journalAndApply
+  private void awaitDurable(long lsn) {
+    if (lsn == 0) return;
+    if (claims.isPersistent()) {
+      claims.awaitDurable(lsn);
+    } else {
+      journal.awaitDurable(lsn);
+    }
   }
 
+  // microseconds: the finest resolution every storage backend keeps, so timestamps survive a round trip
+  private static Instant now() {
+    return Instant.now().truncatedTo(ChronoUnit.MICROS);
+  }
+
+  /**
+   * Result of an applied mutation: the claim (or the removed one for deletes) and its lsn, or the
+   * write ticket of a persistent table; 0 if nothing changed.
+   */
+  private record Applied(Claim claim, long lsn) {}
+
+  /**
+   * Journals {@code m}, applies it and waits until it is durable. Returns the claim after the
+   * mutation, or the removed claim for deletes; {@code null} if the claim does not exist.
+   */
+  private Claim commit(ClaimMutation m, long expectedVersion) {
+    Applied done = journalAndApply(m, expectedVersion);
+    awaitDurable(done.lsn());
+    return done.claim();
+  }
+
+  private Applied journalAndApply(ClaimMutation m, long expectedVersion) {
+    return journalAndApply(m.claimId(), m instanceof ClaimMutation.ClaimSubmitted, expectedVersion, cur -> m);
+  }
+
+  /**
+   * Decides the event for claim {@code claimId} from its current state ({@code null} when
+   * {@code submits}), then journals and applies it atomically for the claim, without waiting for
+   * durability. The version check and the decision happen inside the claim's compute block, so
+   * neither can race with another writer of the same claim. A {@code null} event changes nothing.
+   */
+  private Applied journalAndApply(String claimId, boolean submits, long expectedVersion,
+                                  Function<Claim, ClaimMutation> decide) {
+    Claim[] result = new Claim[1];
+    long[] lsn = new long[1];
+    rotation.readLock().lock();
+    try {
+      claims.compute(claimId, (id, live) -> {
+        Claim cur = live;
+        // a change to an archived claim brings it back into the live table
+        if (cur == null && archive != null && !submits) cur = archive.get(id);
+        if (cur == null && !submits) return null;
+        if (expectedVersion != ANY_VERSION && cur.version != expectedVersion) {
+          throw new ClaimVersionConflictException(id, expectedVersion, cur.version);
+        }
+        ClaimMutation m = decide.apply(cur);
+        if (m == null) {
+          result[0] = cur;
+          return live;
+        }
+        preserve(cur);
+        lsn[0] = claims.isPersistent() ? tableLsn.incrementAndGet() : journal.append(m);
+        Claim next = apply(cur, m, lsn[0]);
+        // segments are immutable; an older archived copy would otherwise resurface. Only hidden here,
+        // delete() persists the tombstone once the delete is durable
+        if (m instanceof ClaimMutation.ClaimDeleted && archive != null && archive.get(id) != null) archive.tombstone(id);
+        result[0] = next != null ? next : cur;
+        publish(m, result[0]);
+        return next;
+      });
+    } finally {
+      rotation.readLock().unlock();
+    }
+    return new Applied(result[0], lsn[0] != 0 && claims.isPersistent() ? claims.lastWrite() : lsn[0]);
+  }
+
+  // a write the database rejected for good: what was derived from it follows the claim back, and
+  // subscribers that saw the change are told it did not stick
+  private void reverted(String id, Claim rejected, Claim committed) {
+    indexes.update(id, ClaimIndexes.Keys.of(rejected), ClaimIndexes.Keys.of(committed));
+    stats.update(ClaimStats.Entry.of(rejected), ClaimStats.Entry.of(committed));
+    if (!projections.isEmpty()) project(id, null, keys(rejected), committed, false);
+    var type = committed == null ? ClaimChangeEvent.Type.DELETED
+        : rejected == null ? ClaimChangeEvent.Type.CREATED : ClaimChangeEvent.Type.UPDATED;
+    events.publish(type, committed != null ? committed : rejected, "Change rejected by the database, reverted", now());
+  }
+
+  // inside the compute block, so events of one claim reach subscribers in mutation order
+  private void publish(ClaimMutation m, Claim c) {
+    if (m instanceof ClaimMutation.ClaimSubmitted) {
+      events.publish(ClaimChangeEvent.Type.CREATED, c, "Claim submitted", m.at());
+    } else if (m instanceof ClaimMutation.StatusChanged s) {
+      events.publish(ClaimChangeEvent.Type.STATUS_CHANGED, c, s.message(), m.at());
+    } else if (m instanceof ClaimMutation.FieldsUpdated u) {
+      events.publish(ClaimChangeEvent.Type.UPDATED, c, u.message(), m.at());
+    } else if (m instanceof ClaimMutation.ClaimDeleted) {
+      events.publish(ClaimChangeEvent.Type.DELETED, c, "Claim deleted", m.at());
+    }
+  }
+
+  private void replay(long lsn, ClaimMutation m) {
+    boolean submits = m instanceof ClaimMutation.ClaimSubmitted;
+    if (submits) ids.observe(m.claimId());
+    claims.compute(m.claimId(), (id, cur) -> {
+      if (cur != null && cur.lsn >= lsn) return cur;
+      if (m instanceof ClaimMutation.ClaimArchived) return null;
+      boolean deletes = m instanceof ClaimMutation.ClaimDeleted;
+      if (cur == null && archive != null && !submits) {
+        // a delete is folded even when its tombstone was synced: restored projections still count the claim
+        Claim archived = deletes ? archive.getIncludingDeleted(id) : archive.get(id);
+        if (archived == null || archived.lsn >= lsn) return null;
+        cur = archived;
+      }
+      if (cur == null && !submits) return null;
+      // the process may have stopped between the delete becoming durable and its tombstone
+      if (deletes && archive != null && archive.get(id) != null) archive.tombstone(id);
+      return apply(cur, m, lsn);
+    });
+  }
+
+  // runs inside the claim's compute block, which keeps the indexes in step with the claim
+  private Claim apply(Claim cur, ClaimMutation m, long lsn) {
+    var before = ClaimIndexes.Keys.of(cur);
+    var counted = ClaimStats.Entry.of(cur);
+    // applyTo mutates the claim in place, so projection keys are taken first
+    Object[] projected = projections.isEmpty() ? null : keys(cur);
+    long version = cur == null ? 0 : cur.version;
+    Claim next = m.applyTo(cur);
+    if (next != null) {
+      next.lsn = lsn;
+      next.version = m instanceof ClaimMutation.ClaimSubmitted ? 1 : version + 1;
+    }
+    indexes.update(m.claimId(), before, ClaimIndexes.Keys.of(next));
+    stats.update(counted, ClaimStats.Entry.of(next));
+    if (m instanceof ClaimMutation.ClaimSubmitted) stats.submitted(next.createdAt);
+    if (projected != null) project(m.claimId(), m, projected, next, false);
+    return next;
+  }
+
+  private Object[] keys(Claim c) {
+    var out = new Object[projections.size()];
+    for (int i = 0; i < out.length; i++) out[i] = projections.get(i).key(c);
+    return out;
+  }
+
+  // building: only the projections recovery did not restore
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private void project(String id, ClaimMutation m, Object[] before, Claim after, boolean building) {
+    for (int i = 0; i < projections.size(); i++) {
+      ClaimProjection p = projections.get(i);
+      if (building && restored.contains(p)) continue;
+      p.update(id, m, before == null ? null : before[i], p.key(after));
+    }
+  }
 }
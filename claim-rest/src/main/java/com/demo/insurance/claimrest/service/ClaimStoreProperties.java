@@ -0,0 +1,166 @@
+package com.demo.insurance.claimrest.service;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "claims.store")
+public class ClaimStoreProperties {
+
+  public enum Mode {
+    // live Claim objects, mutated in place
+    HEAP,
+    // packed immutable rows; Claim objects are materialized per request
+    COMPACT,
+    // rows in a SQL database with a cache of hot claims; the database replaces the journal
+    JDBC
+  }
+
+  private Mode mode = Mode.HEAP;
+  // 0-1023, embedded in claim ids; -1 derives it from claims.cluster.self's position in claims.cluster.nodes
+  private int nodeId = -1;
+  private final Journal journal = new Journal();
+  private final Events events = new Events();
+  private final Stats stats = new Stats();
+  private final Jdbc jdbc = new Jdbc();
+  private final Tiering tiering = new Tiering();
+
+  public Mode getMode() { return mode; }
+  public void setMode(Mode mode) { this.mode = mode; }
+
+  public int getNodeId() { return nodeId; }
+  public void setNodeId(int nodeId) { this.nodeId = nodeId; }
+
+  public Journal getJournal() { return journal; }
+
+  public Events getEvents() { return events; }
+
+  public Stats getStats() { return stats; }
+
+  public Jdbc getJdbc() { return jdbc; }
+
+  public Tiering getTiering() { return tiering; }
+
+  public static class Tiering {
+
+    private boolean enabled = false;
+    private Duration minAge = Duration.ofDays(30);
+    private long intervalMs = 3_600_000;
+    private int segmentClaims = 50_000;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public Duration getMinAge() { return minAge; }
+    public void setMinAge(Duration minAge) { this.minAge = minAge; }
+
+    public long getIntervalMs() { return intervalMs; }
+    public void setIntervalMs(long intervalMs) { this.intervalMs = intervalMs; }
+
+    public int getSegmentClaims() { return segmentClaims; }
+    public void setSegmentClaims(int segmentClaims) { this.segmentClaims = segmentClaims; }
+  }
+
+  public static class Jdbc {
+
+    private String url = "jdbc:h2:file:./data/claims-db/claims;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;WRITE_DELAY=0";
+    private String username = "sa";
+    private String password = "";
+    private int poolSize = 8;
+    private int batchSize = 1_000;
+    private long commitIntervalMicros = 1_000;
+    private int cacheSize = 100_000;
+
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getPassword() { return password; }
+    public void setPassword(String password) { this.password = password; }
+
+    public int getPoolSize() { return poolSize; }
+    public void setPoolSize(int poolSize) { this.poolSize = poolSize; }
+
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+    public long getCommitIntervalMicros() { return commitIntervalMicros; }
+    public void setCommitIntervalMicros(long commitIntervalMicros) { this.commitIntervalMicros = commitIntervalMicros; }
+
+    public int getCacheSize() { return cacheSize; }
+    public void setCacheSize(int cacheSize) { this.cacheSize = cacheSize; }
+  }
+
+  public static class Stats {
+
+    private int rateWindowMinutes = 60;
+
+    public int getRateWindowMinutes() { return rateWindowMinutes; }
+    public void setRateWindowMinutes(int rateWindowMinutes) { this.rateWindowMinutes = rateWindowMinutes; }
+  }
+
+  public static class Events {
+
+    private int replayBuffer = 10_000;
+    private int subscriberBuffer = 1_024;
+    private int senderThreads = 8;
+
+    public int getReplayBuffer() { return replayBuffer; }
+    public void setReplayBuffer(int replayBuffer) { this.replayBuffer = replayBuffer; }
+
+    public int getSubscriberBuffer() { return subscriberBuffer; }
+    public void setSubscriberBuffer(int subscriberBuffer) { this.subscriberBuffer = subscriberBuffer; }
+
+    public int getSenderThreads() { return senderThreads; }
+    public void setSenderThreads(int senderThreads) { this.senderThreads = senderThreads; }
+  }
+
+  public static class Journal {
+
+    public enum SyncMode {
+      // callers wait until the group commit that covers their record has been forced
+      GROUP,
+      // records are forced in the background; mapped pages still survive a process crash
+      ASYNC
+    }
+
+    private boolean enabled = true;
+    private String dataDir = "data/claims";
+    private SyncMode sync = SyncMode.GROUP;
+    private long commitIntervalMicros = 500;
+    private int segmentSizeMb = 64;
+    private long snapshotIntervalMs = 300_000;
+    // threads that apply the snapshot and the log on startup; 0 = one per available processor
+    private int replayThreads = 0;
+    // keep log generations a snapshot supersedes under events/ instead of deleting them; grows without bound
+    private boolean archiveEvents = false;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public String getDataDir() { return dataDir; }
+    public void setDataDir(String dataDir) { this.dataDir = dataDir; }
+
+    public SyncMode getSync() { return sync; }
+    public void setSync(SyncMode sync) { this.sync = sync; }
+
+    public long getCommitIntervalMicros() { return commitIntervalMicros; }
+    public void setCommitIntervalMicros(long commitIntervalMicros) { this.commitIntervalMicros = commitIntervalMicros; }
+
+    public int getSegmentSizeMb() { return segmentSizeMb; }
+    public void setSegmentSizeMb(int segmentSizeMb) { this.segmentSizeMb = segmentSizeMb; }
+
+    public long getSnapshotIntervalMs() { return snapshotIntervalMs; }
+    public void setSnapshotIntervalMs(long snapshotIntervalMs) { this.snapshotIntervalMs = snapshotIntervalMs; }
+
+    public int getReplayThreads() { return replayThreads; }
+    public void setReplayThreads(int replayThreads) { this.replayThreads = replayThreads; }
+
+    public boolean isArchiveEvents() { return archiveEvents; }
+    public void setArchiveEvents(boolean archiveEvents) { this.archiveEvents = archiveEvents; }
+  }
+}
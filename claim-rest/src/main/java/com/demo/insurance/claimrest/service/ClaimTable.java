@@ -0,0 +1,53 @@
+package com.demo.insurance.claimrest.service;
+
+import com.demo.insurance.claimrest.model.Claim;
+
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Primary storage of {@link ClaimStore}: claims by id, with atomic per-claim updates.
+ * Implementations decide how a claim is laid out in memory, or whether it is kept there at all.
+ */
+interface ClaimTable extends AutoCloseable {
+
+  Claim get(String id);
+
+  void put(Claim c);
+
+  /**
+   * Atomically recomputes the claim for {@code id}, like {@link java.util.Map#compute}. The
+   * function may mutate the claim it is given; returning {@code null} removes the claim.
+   */
+  Claim compute(String id, BiFunction<String, Claim, Claim> fn);
+
+  /** Visits every claim; each one is observed in a state not torn by concurrent writers. */
+  void forEach(Consumer<Claim> action);
+
+  int size();
+
+  /**
+   * True if the table stores claims durably itself. {@link ClaimStore} then neither journals
+   * mutations nor snapshots, and rebuilds its indexes from {@link #forEach} on startup.
+   */
+  default boolean isPersistent() {
+    return false;
+  }
+
+  /**
+   * For persistent tables: the ticket of the write the calling thread's last {@link #compute}
+   * queued, for {@link #awaitDurable}; 0 if it changed nothing.
+   */
+  default long lastWrite() {
+    return 0;
+  }
+
+  /**
+   * For persistent tables: blocks until the write {@code ticket} and every write before it are
+   * durable, and throws if the store rejected that write.
+   */
+  default void awaitDurable(long ticket) {}
+
+  @Override
+  default void close() {}
+}
@@ -0,0 +1,22 @@
+package com.demo.insurance.claimrest.service;
+
+/** Thrown when a conditional mutation expected a different version than the claim currently has. */
+public class ClaimVersionConflictException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String claimId;
+  private final long expectedVersion;
+  private final long currentVersion;
+
+  public ClaimVersionConflictException(String claimId, long expectedVersion, long currentVersion) {
+    super("Claim " + claimId + " is at version " + currentVersion + ", expected " + expectedVersion);
+    this.claimId = claimId;
+    this.expectedVersion = expectedVersion;
+    this.currentVersion = currentVersion;
+  }
+
+  public String getClaimId() { return claimId; }
+  public long getExpectedVersion() { return expectedVersion; }
+  public long getCurrentVersion() { return currentVersion; }
+}
@@ -0,0 +1,185 @@
+package com.demo.insurance.claimrest.service;
+
+import com.demo.insurance.claimrest.model.*;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Claims packed into small immutable rows: amounts as long cents, enums as byte ordinals,
+ * customer/policy as dictionary codes, timestamps as epoch nanos and the whole history as one
+ * {@code long[]} plus its messages as one UTF-8 {@code byte[]}. Names and messages stay inline as
+ * UTF-8 because they are close to unique per claim (and every update writes new ones): in the
+ * dictionary they would never be reclaimed. {@link Claim} objects are only materialized when a
+ * caller asks for one, so the heap holds a fraction of the objects of {@link HeapClaimTable}.
+ *
+ * <p>A mutation materializes the row, applies the change and packs a new row under the id's stripe
+ * lock; readers always see a complete row without locking.
+ */
+final class CompactClaimTable implements ClaimTable {
+
+  private static final long NO_AMOUNT = Long.MIN_VALUE;
+  private static final long NO_TIME = Long.MIN_VALUE;
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  private static final ClaimType[] TYPES = ClaimType.values();
+  private static final ClaimStatus[] STATUSES = ClaimStatus.values();
+
+  // history entry = 2 longs: [at epoch nanos, status ordinal << 32 | message length in bytes, -1 = null];
+  // the messages follow each other in historyMessages
+  private record Row(
+      long amountCents,
+      BigDecimal exactAmount,
+      byte type,
+      byte status,
+      int customer,
+      int policy,
+      byte[] name,
+      byte[] description,
+      long createdAt,
+      long version,
+      long lsn,
+      long[] history,
+      byte[] historyMessages
+  ) {}
+
+  private final ConcurrentHashMap<String, Row> rows = new ConcurrentHashMap<>();
+  private final StringDictionary dict = new StringDictionary();
+  private final StripedLocks locks = new StripedLocks(1024);
+
+  @Override
+  public Claim get(String id) {
+    Row r = rows.get(id);
+    return r == null ? null : materialize(id, r);
+  }
+
+  @Override
+  public void put(Claim c) {
+    rows.put(c.id, pack(c));
+  }
+
+  @Override
+  public Claim compute(String id, BiFunction<String, Claim, Claim> fn) {
+    ReentrantLock lock = locks.of(id);
+    lock.lock();
+    try {
+      Row r = rows.get(id);
+      Claim next = fn.apply(id, r == null ? null : materialize(id, r));
+      if (next == null) {
+        if (r != null) rows.remove(id);
+      } else {
+        rows.put(id, pack(next));
+      }
+      return next;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void forEach(Consumer<Claim> action) {
+    rows.forEach((id, r) -> action.accept(materialize(id, r)));
+  }
+
+  @Override
+  public int size() {
+    return rows.size();
+  }
+
+  private Row pack(Claim c) {
+    long cents = NO_AMOUNT;
+    BigDecimal exact = null;
+    if (c.claimedAmount != null) {
+      try {
+        cents = c.claimedAmount.movePointRight(2).longValueExact();
+      } catch (ArithmeticException e) {
+        // sub-cent precision or out of long range: keep the exact value instead
+        exact = c.claimedAmount;
+      }
+    }
+
+    var events = c.history.since(0);
+    long[] history = new long[events.size() * 2];
+    byte[][] messages = new byte[events.size()][];
+    int messageBytes = 0;
+    for (int i = 0; i < events.size(); i++) {
+      ClaimHistoryEvent e = events.get(i);
+      messages[i] = e.message == null ? null : e.message.getBytes(StandardCharsets.UTF_8);
+      int length = messages[i] == null ? -1 : messages[i].length;
+      messageBytes += Math.max(0, length);
+      history[2 * i] = nanos(e.at);
+      history[2 * i + 1] = ((long) ordinal(e.status) << 32) | (length & 0xffffffffL);
+    }
+    byte[] historyMessages = new byte[messageBytes];
+    int at = 0;
+    for (byte[] m : messages) {
+      if (m == null) continue;
+      System.arraycopy(m, 0, historyMessages, at, m.length);
+      at += m.length;
+    }
+
+    return new Row(
+        cents,
+        exact,
+        ordinal(c.claimType),
+        ordinal(c.status),
+        dict.encode(c.customerId),
+        dict.encode(c.policyNumber),
+        c.fullName == null ? null : c.fullName.getBytes(StandardCharsets.UTF_8),
+        c.description == null ? null : c.description.getBytes(StandardCharsets.UTF_8),
+        nanos(c.createdAt),
+        c.version,
+        c.lsn,
+        history,
+        historyMessages);
+  }
+
+  private Claim materialize(String id, Row r) {
+    Claim c = new Claim();
+    c.id = id;
+    c.customerId = dict.decode(r.customer());
+    c.fullName = r.name() == null ? null : new String(r.name(), StandardCharsets.UTF_8);
+    c.policyNumber = dict.decode(r.policy());
+    c.claimType = r.type() < 0 ? null : TYPES[r.type()];
+    c.claimedAmount = r.exactAmount() != null ? r.exactAmount()
+        : r.amountCents() == NO_AMOUNT ? null : BigDecimal.valueOf(r.amountCents(), 2);
+    c.description = r.description() == null ? null : new String(r.description(), StandardCharsets.UTF_8);
+    c.status = r.status() < 0 ? null : STATUSES[r.status()];
+    c.createdAt = instant(r.createdAt());
+    c.version = r.version();
+    c.lsn = r.lsn();
+
+    long[] h = r.history();
+    byte[] messages = r.historyMessages();
+    int offset = 0;
+    for (int i = 0; i < h.length; i += 2) {
+      int st = (int) (h[i + 1] >> 32);
+      int length = (int) h[i + 1];
+      String message = null;
+      if (length >= 0) {
+        message = new String(messages, offset, length, StandardCharsets.UTF_8);
+        offset += length;
+      }
+      c.history.add(new ClaimHistoryEvent(instant(h[i]), st < 0 ? null : STATUSES[st], message));
+    }
+    return c;
+  }
+
+  private static byte ordinal(Enum<?> e) {
+    return e == null ? -1 : (byte) e.ordinal();
+  }
+
+  private static long nanos(Instant t) {
+    return t == null ? NO_TIME : t.getEpochSecond() * NANOS_PER_SECOND + t.getNano();
+  }
+
+  private static Instant instant(long nanos) {
+    return nanos == NO_TIME ? null
+        : Instant.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND), Math.floorMod(nanos, NANOS_PER_SECOND));
+  }
+}
@@ -0,0 +1,490 @@
+package com.demo.insurance.claimrest.service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Inverted index over claim descriptions, ranked with BM25.
+ *
+ * <p>Every indexed description gets a fresh int doc id; changing or removing it only marks the old
+ * doc dead. A term's postings are therefore append-only and ascending, stored as
+ * {@code [varint docDelta][varint termFrequency]} pairs in one byte array, cut into blocks of
+ * {@value #BLOCK} with a skip entry each (first doc, offset, max tf, min doc length). Writers are
+ * serialized so doc ids reach every posting list in order; readers take a published
+ * {@link Postings} snapshot and never lock. Dead docs are dropped from a posting list whenever it
+ * has to grow, which keeps the cost amortized per append. Once as many docs are dead as live, the
+ * live ones are renumbered densely, in their old order, into a new {@link Generation} without any
+ * dead postings, so doc ids and their chunks are reclaimed and ids stay far from overflowing.
+ *
+ * <p>Changes are queued rather than applied under the caller's lock: whoever gets the writer lock
+ * applies what is queued, and nobody waits for it except {@link #search}, which first applies every
+ * change queued before it started. A claim's compute block therefore never blocks on another's.
+ *
+ * <p>Queries use MaxScore: once the top k are known, terms whose best possible contribution cannot
+ * lift a doc into them are only probed through the skip entries, and whole blocks whose bound falls
+ * short are skipped without being decoded.
+ */
+final class DescriptionIndex {
+
+  /** One ranked match. */
+  record Hit(String id, double score) {}
+
+  private static final double K1 = 1.2;
+  private static final double B = 0.75;
+  private static final int BLOCK = 64;
+  private static final int NO_MORE = Integer.MAX_VALUE;
+  private static final int CHUNK_BITS = 16;
+  private static final int CHUNK = 1 << CHUNK_BITS;
+  private static final Set<String> STOPWORDS = Set.of(
+      "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it", "its", "of", "on",
+      "or", "that", "the", "to", "was", "were", "with", "my", "me", "i", "we", "our", "has", "had", "have");
+
+  private record Scored(int doc, String id, double score) {}
+
+  // on equal scores the doc indexed first is stronger, so a later tie never displaces it and can be pruned
+  private static final Comparator<Scored> WEAKEST_FIRST = (a, b) -> {
+    int c = Double.compare(a.score(), b.score());
+    return c != 0 ? c : Integer.compare(b.doc(), a.doc());
+  };
+
+  /**
+   * Immutable view of a posting list: {@code length} valid bytes of {@code data} and {@code blocks}
+   * skip entries of four ints {@code [base doc, offset, max tf, min length]} in {@code skip}. The
+   * arrays are shared with later snapshots, which only write past these bounds; the max tf and min
+   * length of the last block may still loosen, which keeps them valid upper bounds. {@code entries}
+   * counts encoded docs, dead ones included; {@code live} is the document frequency used for idf.
+   */
+  private record Postings(byte[] data, int length, int[] skip, int blocks, int entries, int live, int lastDoc) {}
+
+  // doc id -> claim id (null once dead) and token count, in chunks so growth never copies them
+  private record Chunk(AtomicReferenceArray<String> ids, int[] lengths) {}
+
+  /** One numbering of the docs: postings and chunks are only ever read from the same generation. */
+  private static final class Generation {
+    final ConcurrentHashMap<String, Postings> postings = new ConcurrentHashMap<>();
+    volatile Chunk[] chunks = new Chunk[0];
+  }
+
+  // a queued replacement of the terms last indexed for id; terms is empty for a removal
+  private record Change(String id, Map<String, Integer> old, Map<String, Integer> terms) {}
+
+  // changes applied per turn by a writer that got the lock on its own behalf
+  private static final int APPLY_BATCH = 1_024;
+
+  private volatile Generation gen = new Generation();
+  private final ConcurrentHashMap<String, Integer> docOf = new ConcurrentHashMap<>();
+  private final ReentrantLock writer = new ReentrantLock();
+  private final ConcurrentLinkedQueue<Change> queue = new ConcurrentLinkedQueue<>();
+  private final AtomicLong queued = new AtomicLong();
+  private long applied;
+  private int nextDoc;
+  private final AtomicLong liveDocs = new AtomicLong();
+  private final AtomicLong liveTokens = new AtomicLong();
+
+  /**
+   * Replaces {@code previous}, the text last indexed for {@code id} (null if none), with
+   * {@code text}; a null or blank text just removes it. Changes of one id must not race.
+   */
+  void put(String id, String previous, String text) {
+    enqueue(new Change(id, terms(previous), terms(text)));
+  }
+
+  void remove(String id, String previous) {
+    enqueue(new Change(id, terms(previous), Map.of()));
+  }
+
+  private void enqueue(Change change) {
+    queued.incrementAndGet();
+    queue.add(change);
+    if (!writer.tryLock()) return;  // the holder or a later writer picks it up
+    try {
+      applyQueued(applied + APPLY_BATCH);
+    } finally {
+      writer.unlock();
+    }
+  }
+
+  // applies queued changes in order until {@code upTo} have been applied in total or none are left
+  private void applyQueued(long upTo) {
+    Change c;
+    while (applied < upTo && (c = queue.poll()) != null) {
+      applied++;
+      removeLocked(c.id(), c.old());
+      if (!c.terms().isEmpty()) addLocked(c.id(), c.terms());
+    }
+    long live = liveDocs.get();
+    if (nextDoc - live > Math.max(CHUNK, live)) renumber();
+  }
+
+  private void addLocked(String id, Map<String, Integer> terms) {
+    int doc = nextDoc++;
+    int length = 0;
+    for (int tf : terms.values()) length += tf;
+    Generation g = gen;
+    Chunk c = chunk(g, doc);
+    c.lengths()[doc & (CHUNK - 1)] = length;
+    c.ids().set(doc & (CHUNK - 1), id);
+    docOf.put(id, doc);
+    for (var e : terms.entrySet()) append(g, e.getKey(), doc, e.getValue(), length);
+    liveDocs.incrementAndGet();
+    liveTokens.addAndGet(length);
+  }
+
+  /** The {@code k} best matches for any of the query's terms, best first. */
+  List<Hit> search(String query, int k) {
+    if (!queue.isEmpty()) {
+      long upTo = queued.get();
+      writer.lock();
+      try {
+        applyQueued(upTo);
+      } finally {
+        writer.unlock();
+      }
+    }
+    Generation g = gen;
+    long docs = Math.max(1, liveDocs.get());
+    double avgLength = Math.max(1.0, (double) liveTokens.get() / docs);
+    var list = new ArrayList<Cursor>();
+    for (String t : terms(query).keySet()) {
+      Postings p = g.postings.get(t);
+      if (p == null || p.live() == 0) continue;
+      double idf = Math.max(Math.log(1 + (docs - p.live() + 0.5) / (p.live() + 0.5)), 0.0001);
+      var c = new Cursor(p, idf, avgLength);
+      if (c.next()) list.add(c);
+    }
+    // read after the postings: a chunk is published before any posting that points into it
+    Chunk[] table = g.chunks;
+
+    // cheapest terms first; cs[0, essential) are the ones that cannot reach the top k on their own
+    list.sort(Comparator.comparingDouble(c -> c.bound));
+    Cursor[] cs = list.toArray(new Cursor[0]);
+    double[] below = new double[cs.length + 1];  // below[i] = sum of bounds of cs[0, i)
+    for (int i = 0; i < cs.length; i++) below[i + 1] = below[i] + cs[i].bound;
+    int essential = 0;
+
+    var top = new PriorityQueue<Scored>(k + 1, WEAKEST_FIRST);
+    double threshold = -1;
+    while (essential < cs.length) {
+      int doc = NO_MORE;
+      for (int i = essential; i < cs.length; i++) doc = Math.min(doc, cs[i].doc);
+      if (doc == NO_MORE) break;
+
+      if (threshold >= 0) {
+        double bound = below[essential];
+        int at = 0;
+        for (int i = essential; i < cs.length; i++) {
+          if (cs[i].doc == doc) {
+            bound += cs[i].blockBound;
+            at++;
+          }
+        }
+        if (bound <= threshold) {
+          // with a single list in play, nothing else in its current block can qualify either
+          for (int i = essential; i < cs.length; i++) {
+            if (cs[i].doc != doc) continue;
+            if (at == 1 && essential == cs.length - 1) cs[i].nextBlock(); else cs[i].next();
+          }
+          continue;
+        }
+      }
+
+      Chunk chunk = table[doc >>> CHUNK_BITS];
+      int length = chunk.lengths()[doc & (CHUNK - 1)];
+      double score = 0;
+      for (int i = essential; i < cs.length; i++) {
+        if (cs[i].doc == doc) {
+          score += cs[i].score(length);
+          cs[i].next();
+        }
+      }
+      for (int i = essential - 1; i >= 0; i--) {
+        if (threshold >= 0 && score + below[i + 1] <= threshold) break;
+        cs[i].advanceTo(doc);
+        if (cs[i].doc == doc) score += cs[i].score(length);
+      }
+
+      // docs arrive in ascending order, so a tie with the current weakest never beats it
+      if (threshold >= 0 && score <= threshold) continue;
+      String id = chunk.ids().get(doc & (CHUNK - 1));
+      if (id == null) continue;
+      if (top.size() == k) top.poll();
+      top.add(new Scored(doc, id, score));
+      if (top.size() == k) {
+        threshold = top.peek().score();
+        while (essential < cs.length && below[essential + 1] <= threshold) essential++;
+      }
+    }
+
+    var best = new ArrayList<>(top);
+    best.sort(WEAKEST_FIRST.reversed());
+    var out = new ArrayList<Hit>(best.size());
+    for (Scored s : best) out.add(new Hit(s.id(), s.score()));
+    return out;
+  }
+
+  int size() {
+    return (int) liveDocs.get();
+  }
+
+  /** Lowercased letter/digit runs of two or more characters, minus stopwords, with a plural "s" dropped. */
+  static Map<String, Integer> terms(String text) {
+    var out = new LinkedHashMap<String, Integer>();
+    if (text == null) return out;
+    int n = text.length();
+    int i = 0;
+    while (i < n) {
+      while (i < n && !Character.isLetterOrDigit(text.charAt(i))) i++;
+      int start = i;
+      while (i < n && Character.isLetterOrDigit(text.charAt(i))) i++;
+      if (i - start < 2) continue;
+      String t = text.substring(start, i).toLowerCase(Locale.ROOT);
+      if (STOPWORDS.contains(t)) continue;
+      if (t.length() > 3 && t.endsWith("s") && !t.endsWith("ss")) t = t.substring(0, t.length() - 1);
+      out.merge(t, 1, Integer::sum);
+    }
+    return out;
+  }
+
+  private static double weight(int tf, int length, double avgLength) {
+    return tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / avgLength));
+  }
+
+  private void removeLocked(String id, Map<String, Integer> terms) {
+    Integer doc = docOf.remove(id);
+    if (doc == null) return;
+    Generation g = gen;
+    for (String t : terms.keySet()) {
+      Postings p = g.postings.get(t);
+      if (p != null) {
+        g.postings.put(t, new Postings(p.data(), p.length(), p.skip(), p.blocks(), p.entries(), p.live() - 1, p.lastDoc()));
+      }
+    }
+    Chunk c = g.chunks[doc >>> CHUNK_BITS];
+    c.ids().set(doc & (CHUNK - 1), null);
+    liveDocs.decrementAndGet();
+    liveTokens.addAndGet(-c.lengths()[doc & (CHUNK - 1)]);
+  }
+
+  private static Chunk chunk(Generation g, int doc) {
+    int i = doc >>> CHUNK_BITS;
+    Chunk[] table = g.chunks;
+    if (i < table.length) return table[i];
+    table = Arrays.copyOf(table, i + 1);
+    table[i] = new Chunk(new AtomicReferenceArray<>(CHUNK), new int[CHUNK]);
+    g.chunks = table;
+    return table[i];
+  }
+
+  private static void append(Generation g, String term, int doc, int tf, int length) {
+    Postings p = g.postings.get(term);
+    Builder b = p == null ? new Builder(16) : new Builder(p);
+    // growth point: rewrite without dead docs into arrays sized for at least as many again
+    if (p != null && b.full()) b = compact(g, p);
+    b.add(doc, tf, length);
+    g.postings.put(term, b.build());
+  }
+
+  /**
+   * Numbers the live docs 0, 1, ... in their current order and rebuilds every posting list for
+   * the new numbers, then publishes it all at once. Searches still on the old generation finish
+   * there; ties keep breaking the same way since the order is unchanged.
+   */
+  private void renumber() {
+    Generation old = gen, next = new Generation();
+    Chunk[] table = old.chunks;
+    int[] renamed = new int[nextDoc];
+    int live = 0;
+    for (int d = 0; d < nextDoc; d++) {
+      Chunk from = table[d >>> CHUNK_BITS];
+      String id = from.ids().get(d & (CHUNK - 1));
+      if (id == null) {
+        renamed[d] = -1;
+        continue;
+      }
+      Chunk to = chunk(next, live);
+      to.lengths()[live & (CHUNK - 1)] = from.lengths()[d & (CHUNK - 1)];
+      to.ids().set(live & (CHUNK - 1), id);
+      docOf.put(id, live);
+      renamed[d] = live++;
+    }
+    Chunk[] lengths = next.chunks;
+    for (var e : old.postings.entrySet()) {
+      Builder b = null;
+      var c = new Cursor(e.getValue(), 0, 1);
+      while (c.next()) {
+        int doc = renamed[c.doc];
+        if (doc < 0) continue;
+        if (b == null) b = new Builder(16);
+        b.add(doc, c.tf, lengths[doc >>> CHUNK_BITS].lengths()[doc & (CHUNK - 1)]);
+      }
+      if (b != null) next.postings.put(e.getKey(), b.build());
+    }
+    System.out.printf("[search] renumbered %d live of %d description docs%n", live, nextDoc);
+    nextDoc = live;
+    gen = next;
+  }
+
+  private static Builder compact(Generation g, Postings p) {
+    var b = new Builder(p.length() * 2 + 16);
+    Chunk[] table = g.chunks;
+    var c = new Cursor(p, 0, 1);
+    while (c.next()) {
+      Chunk chunk = table[c.doc >>> CHUNK_BITS];
+      if (chunk.ids().get(c.doc & (CHUNK - 1)) != null) b.add(c.doc, c.tf, chunk.lengths()[c.doc & (CHUNK - 1)]);
+    }
+    return b;
+  }
+
+  /** Appends to a posting list, in place while the arrays have room, otherwise into grown copies. */
+  private static final class Builder {
+    byte[] data;
+    int[] skip;
+    int length, blocks, entries, live, lastDoc;
+
+    Builder(int capacity) {
+      data = new byte[capacity];
+      skip = new int[Math.max(8, 4 * (capacity / (2 * BLOCK) + 1))];
+    }
+
+    Builder(Postings p) {
+      data = p.data();
+      skip = p.skip();
+      length = p.length();
+      blocks = p.blocks();
+      entries = p.entries();
+      live = p.live();
+      lastDoc = p.lastDoc();
+    }
+
+    boolean full() {
+      return length + 10 > data.length || (entries % BLOCK == 0 && 4 * blocks + 4 > skip.length);
+    }
+
+    void add(int doc, int tf, int docLength) {
+      if (length + 10 > data.length) data = Arrays.copyOf(data, data.length * 2 + 10);
+      if (entries % BLOCK == 0) {
+        if (4 * blocks + 4 > skip.length) skip = Arrays.copyOf(skip, skip.length * 2);
+        int s = 4 * blocks++;
+        skip[s] = lastDoc;
+        skip[s + 1] = length;
+        skip[s + 2] = tf;
+        skip[s + 3] = docLength;
+      } else {
+        int s = 4 * (blocks - 1);
+        if (tf > skip[s + 2]) skip[s + 2] = tf;
+        if (docLength < skip[s + 3]) skip[s + 3] = docLength;
+      }
+      length = writeVarint(data, writeVarint(data, length, doc - lastDoc), tf);
+      lastDoc = doc;
+      entries++;
+      live++;
+    }
+
+    Postings build() {
+      return new Postings(data, length, skip, blocks, entries, live, lastDoc);
+    }
+  }
+
+  private static int writeVarint(byte[] out, int pos, int v) {
+    while ((v & ~0x7f) != 0) {
+      out[pos++] = (byte) ((v & 0x7f) | 0x80);
+      v >>>= 7;
+    }
+    out[pos++] = (byte) v;
+    return pos;
+  }
+
+  /** Walks one posting list; {@link #doc} is {@link #NO_MORE} once it is exhausted. */
+  private static final class Cursor {
+    final Postings p;
+    final double idf;
+    final double avgLength;
+    final double bound;
+    double blockBound;
+    int block = -1;
+    int blockEnd;
+    int pos;
+    int doc;
+    int tf;
+
+    Cursor(Postings p, double idf, double avgLength) {
+      this.p = p;
+      this.idf = idf;
+      this.avgLength = avgLength;
+      double max = 0;
+      for (int b = 0; b < p.blocks(); b++) max = Math.max(max, bound(b));
+      this.bound = max;
+    }
+
+    boolean next() {
+      if (pos >= p.length()) {
+        doc = NO_MORE;
+        return false;
+      }
+      if (pos == blockEnd) enter(block + 1);
+      doc += readVarint();
+      tf = readVarint();
+      return true;
+    }
+
+    void nextBlock() {
+      if (block + 1 >= p.blocks()) {
+        doc = NO_MORE;
+        return;
+      }
+      enter(block + 1);
+      next();
+    }
+
+    /** Moves to the first doc {@code >= target}, jumping over blocks that end before it. */
+    void advanceTo(int target) {
+      if (doc >= target) return;
+      int b = block;
+      while (lastDoc(b) < target) {
+        if (b + 1 >= p.blocks()) {
+          doc = NO_MORE;
+          return;
+        }
+        b++;
+      }
+      if (b != block) enter(b);
+      while (doc < target && next()) { }
+    }
+
+    double score(int length) {
+      return idf * weight(tf, length, avgLength);
+    }
+
+    private double bound(int b) {
+      return idf * weight(p.skip()[4 * b + 2], p.skip()[4 * b + 3], avgLength);
+    }
+
+    private int lastDoc(int b) {
+      return b + 1 < p.blocks() ? p.skip()[4 * (b + 1)] : p.lastDoc();
+    }
+
+    private void enter(int b) {
+      block = b;
+      doc = p.skip()[4 * b];
+      pos = p.skip()[4 * b + 1];
+      blockEnd = b + 1 < p.blocks() ? p.skip()[4 * (b + 1) + 1] : p.length();
+      blockBound = bound(b);
+    }
+
+    private int readVarint() {
+      byte[] d = p.data();
+      int v = 0, shift = 0;
+      byte b;
+      do {
+        b = d[pos++];
+        v |= (b & 0x7f) << shift;
+        shift += 7;
+      } while (b < 0);
+      return v;
+    }
+  }
+}
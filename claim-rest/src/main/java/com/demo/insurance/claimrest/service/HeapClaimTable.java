@@ -0,0 +1,63 @@
+package com.demo.insurance.claimrest.service;
+
+import com.demo.insurance.claimrest.model.Claim;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/** Claims kept as live {@link Claim} objects; mutations update them in place. */
+final class HeapClaimTable implements ClaimTable {
+
+  private final ConcurrentHashMap<String, Claim> claims = new ConcurrentHashMap<>();
+  private final StripedLocks locks = new StripedLocks(1024);
+
+  @Override
+  public Claim get(String id) {
+    return claims.get(id);
+  }
+
+  @Override
+  public void put(Claim c) {
+    claims.put(c.id, c);
+  }
+
+  @Override
+  public Claim compute(String id, BiFunction<String, Claim, Claim> fn) {
+    ReentrantLock lock = locks.of(id);
+    lock.lock();
+    try {
+      Claim cur = claims.get(id);
+      Claim next = fn.apply(id, cur);
+      if (next == null) {
+        if (cur != null) claims.remove(id);
+      } else if (next != cur) {
+        claims.put(id, next);
+      }
+      return next;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void forEach(Consumer<Claim> action) {
+    // claims are mutated in place, so read each one under its lock
+    for (String id : claims.keySet()) {
+      ReentrantLock lock = locks.of(id);
+      lock.lock();
+      try {
+        Claim c = claims.get(id);
+        if (c != null) action.accept(c);
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  @Override
+  public int size() {
+    return claims.size();
+  }
+}
@@ -0,0 +1,599 @@
+package com.demo.insurance.claimrest.service;
+
+import com.demo.insurance.claimrest.model.*;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Claims stored in a SQL database (embedded H2 by default, Postgres in production): one row per
+ * claim in {@code claims} and one per history event in {@code claim_history}.
+ *
+ * <p>Mutations run under a per-id stripe lock, update the cache and queue a write. A single
+ * writer thread drains the queue every {@code commit-interval-micros}, folds several writes of the
+ * same claim into one and sends the rest as JDBC batches in one transaction; callers wait for that
+ * commit in {@link #awaitDurable}, so one transaction acknowledges many requests. A database that
+ * is down stalls the writer until it is back; a write the database rejects for good (a constraint
+ * violation, a value too long) is dropped and reported by {@link #awaitDurable} for its ticket. The
+ * claim then goes back to its committed state, together with every write queued on top of the
+ * rejected one, and the {@link Revert} callback brings what the store derived from it along.
+ *
+ * <p>Reads go through a cache of hot claims bounded by {@code cache-size} with CLOCK eviction.
+ * Entries whose write is not committed yet (including delete tombstones) are never evicted, so a
+ * cache miss can always read the database.
+ */
+final class JdbcClaimTable implements ClaimTable {
+
+  private static final String CREATE_CLAIMS = """
+      CREATE TABLE IF NOT EXISTS claims (
+        id VARCHAR(64) PRIMARY KEY,
+        customer_id VARCHAR,
+        full_name VARCHAR,
+        policy_number VARCHAR,
+        claim_type VARCHAR(32),
+        claimed_amount NUMERIC,
+        description VARCHAR,
+        status VARCHAR(32),
+        created_at TIMESTAMP WITH TIME ZONE,
+        version BIGINT NOT NULL,
+        lsn BIGINT NOT NULL
+      )""";
+  private static final String CREATE_HISTORY = """
+      CREATE TABLE IF NOT EXISTS claim_history (
+        claim_id VARCHAR(64) NOT NULL,
+        seq BIGINT NOT NULL,
+        event_at TIMESTAMP WITH TIME ZONE,
+        status VARCHAR(32),
+        message VARCHAR,
+        PRIMARY KEY (claim_id, seq)
+      )""";
+
+  private static final String COLUMNS =
+      "c.id, c.customer_id, c.full_name, c.policy_number, c.claim_type, c.claimed_amount,"
+          + " c.description, c.status, c.created_at, c.version, c.lsn";
+  private static final String INSERT_CLAIM =
+      "INSERT INTO claims (customer_id, full_name, policy_number, claim_type, claimed_amount,"
+          + " description, status, created_at, version, lsn, id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+  private static final String UPDATE_CLAIM =
+      "UPDATE claims SET customer_id = ?, full_name = ?, policy_number = ?, claim_type = ?, claimed_amount = ?,"
+          + " description = ?, status = ?, created_at = ?, version = ?, lsn = ? WHERE id = ?";
+  private static final String INSERT_EVENT =
+      "INSERT INTO claim_history (claim_id, seq, event_at, status, message) VALUES (?, ?, ?, ?, ?)";
+  private static final String DELETE_EVENTS = "DELETE FROM claim_history WHERE claim_id = ?";
+  private static final String DELETE_CLAIM = "DELETE FROM claims WHERE id = ?";
+  private static final String SELECT_CLAIM = "SELECT " + COLUMNS + " FROM claims c WHERE c.id = ?";
+  private static final String SELECT_EVENTS =
+      "SELECT seq, event_at, status, message FROM claim_history WHERE claim_id = ? ORDER BY seq";
+  // one pass over both tables; rows of a claim are adjacent
+  private static final String SCAN = "SELECT " + COLUMNS + ", h.seq, h.event_at, h.status AS event_status, h.message"
+      + " FROM claims c LEFT JOIN claim_history h ON h.claim_id = c.id ORDER BY c.id, h.seq";
+
+  private static final int STRIPES = 256;
+  private static final int SCAN_FETCH_SIZE = 1_000;
+  // a rejection nobody awaits (its caller failed before awaitDurable) is forgotten this many writes later
+  private static final long REJECTION_WINDOW = 1 << 20;
+
+  private enum Kind { INSERT, UPDATE, DELETE }
+
+  // column values captured when the write was queued; the live claim may change again before the flush
+  private record Row(String id, String customerId, String fullName, String policyNumber, ClaimType claimType,
+                     BigDecimal claimedAmount, String description, ClaimStatus status, Instant createdAt,
+                     long version, long lsn) {
+    static Row of(Claim c) {
+      return new Row(c.id, c.customerId, c.fullName, c.policyNumber, c.claimType, c.claimedAmount,
+          c.description, c.status, c.createdAt, c.version, c.lsn);
+    }
+  }
+
+  private record Write(long ticket, String id, Kind kind, Row row, List<ClaimHistoryEvent> events) {}
+
+  // the claim's writes up to ticket upTo were queued on top of one the database rejected with cause
+  private record Poisoned(long upTo, Exception cause) {}
+
+  /**
+   * Called under the claim's stripe lock when a rejected write is undone: claim {@code id} goes
+   * from {@code rejected}, the state the rejected writes produced, back to {@code committed}, what
+   * the database holds. Either is {@code null} for no claim.
+   */
+  @FunctionalInterface
+  interface Revert {
+    void reverted(String id, Claim rejected, Claim committed);
+  }
+
+  // claim == null is a delete tombstone; ticket is the write that produced this state
+  private static final class Cached {
+    final String id;
+    final Claim claim;
+    final long ticket;
+    volatile boolean referenced = true;
+
+    Cached(String id, Claim claim, long ticket) {
+      this.id = id;
+      this.claim = claim;
+      this.ticket = ticket;
+    }
+  }
+
+  private final ClaimStoreProperties.Jdbc cfg;
+  private final Revert onRevert;
+  private final HikariDataSource pool;
+  private final StripedLocks stripes = new StripedLocks(STRIPES);
+  private final ConcurrentHashMap<String, Cached> cache = new ConcurrentHashMap<>();
+  private final ReentrantLock evictLock = new ReentrantLock();
+  private Iterator<Cached> hand;
+  private final AtomicInteger rows = new AtomicInteger();
+
+  private final ConcurrentLinkedQueue<Write> queue = new ConcurrentLinkedQueue<>();
+  private final ReentrantLock enqueueLock = new ReentrantLock();
+  private final ReentrantLock commitLock = new ReentrantLock();
+  private final Condition committed = commitLock.newCondition();
+  private volatile long enqueued;
+  private volatile long durable;
+  private volatile boolean running = true;
+  private final Thread writer;
+  // writes the database rejected, by ticket; reported by awaitDurable of that ticket
+  private final ConcurrentHashMap<Long, Exception> rejected = new ConcurrentHashMap<>();
+  // ticket of the write the calling thread's last compute queued, 0 for none
+  private final ThreadLocal<long[]> lastWrite = ThreadLocal.withInitial(() -> new long[1]);
+  // by claim id; writer thread only
+  private final Map<String, Poisoned> poisoned = new HashMap<>();
+
+  JdbcClaimTable(ClaimStoreProperties.Jdbc cfg, Revert onRevert) {
+    this.cfg = cfg;
+    this.onRevert = onRevert;
+
+    var hikari = new HikariConfig();
+    hikari.setPoolName("claims-jdbc");
+    hikari.setJdbcUrl(cfg.getUrl());
+    hikari.setUsername(cfg.getUsername());
+    hikari.setPassword(cfg.getPassword());
+    hikari.setMaximumPoolSize(cfg.getPoolSize());
+    this.pool = new HikariDataSource(hikari);
+
+    try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+      st.execute(CREATE_CLAIMS);
+      st.execute(CREATE_HISTORY);
+      try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM claims")) {
+        rs.next();
+        rows.set(rs.getInt(1));
+      }
+    } catch (SQLException e) {
+      pool.close();
+      throw new IllegalStateException("cannot open claim database " + cfg.getUrl(), e);
+    }
+
+    writer = new Thread(this::writeLoop, "claim-jdbc-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  @Override
+  public Claim get(String id) {
+    Cached e = cache.get(id);
+    if (e != null) {
+      if (!e.referenced) e.referenced = true;
+      return e.claim;
+    }
+    ReentrantLock lock = stripe(id);
+    lock.lock();
+    try {
+      // a writer may have cached the claim while we waited
+      e = cache.get(id);
+      if (e != null) return e.claim;
+      Claim c = load(id);
+      if (c != null) cache.put(id, new Cached(id, c, 0));
+      return c;
+    } finally {
+      lock.unlock();
+      evict();
+    }
+  }
+
+  @Override
+  public void put(Claim c) {
+    compute(c.id, (id, cur) -> c);
+  }
+
+  @Override
+  public Claim compute(String id, BiFunction<String, Claim, Claim> fn) {
+    ReentrantLock lock = stripe(id);
+    lock.lock();
+    try {
+      Cached e = cache.get(id);
+      Claim cur = e != null ? e.claim : load(id);
+      // the function may append to cur's history in place
+      long seenSeq = cur == null ? 0 : cur.history.lastSeq();
+      lastWrite.get()[0] = 0;
+      Claim next = fn.apply(id, cur);
+      if (cur == null && next == null) return null;
+
+      long ticket;
+      if (next == null) {
+        ticket = enqueue(id, Kind.DELETE, null, List.of());
+        rows.decrementAndGet();
+      } else if (cur == null) {
+        ticket = enqueue(id, Kind.INSERT, Row.of(next), next.history.since(0));
+        rows.incrementAndGet();
+      } else {
+        ticket = enqueue(id, Kind.UPDATE, Row.of(next), next.history.since(seenSeq));
+      }
+      cache.put(id, new Cached(id, next, ticket));
+      lastWrite.get()[0] = ticket;
+      return next;
+    } finally {
+      lock.unlock();
+      evict();
+    }
+  }
+
+  /** Visits the committed state of every claim in one streaming pass; the cache is left alone. */
+  @Override
+  public void forEach(Consumer<Claim> action) {
+    try (Connection c = pool.getConnection()) {
+      c.setAutoCommit(false); // lets the Postgres driver stream with a cursor
+      try (PreparedStatement st = c.prepareStatement(SCAN)) {
+        st.setFetchSize(SCAN_FETCH_SIZE);
+        try (ResultSet rs = st.executeQuery()) {
+          Claim current = null;
+          while (rs.next()) {
+            String id = rs.getString("id");
+            if (current == null || !current.id.equals(id)) {
+              if (current != null) action.accept(current);
+              current = readClaim(rs);
+            }
+            if (rs.getObject("seq") != null) {
+              current.history.add(new ClaimHistoryEvent(
+                  instant(rs, "event_at"), status(rs.getString("event_status")), rs.getString("message")));
+            }
+          }
+          if (current != null) action.accept(current);
+        }
+      } finally {
+        c.rollback();
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("claim scan failed", e);
+    }
+  }
+
+  @Override
+  public int size() {
+    return rows.get();
+  }
+
+  @Override
+  public boolean isPersistent() {
+    return true;
+  }
+
+  @Override
+  public long lastWrite() {
+    return lastWrite.get()[0];
+  }
+
+  @Override
+  public void awaitDurable(long ticket) {
+    if (durable < ticket) {
+      commitLock.lock();
+      try {
+        while (durable < ticket && running) {
+          committed.await(10, TimeUnit.MILLISECONDS);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        commitLock.unlock();
+      }
+    }
+    Exception e = rejected.isEmpty() ? null : rejected.remove(ticket);
+    if (e != null) throw new IllegalStateException("claim write rejected by the database: " + e.getMessage(), e);
+  }
+
+  @Override
+  public void close() {
+    if (!running) return;
+    running = false;
+    LockSupport.unpark(writer);
+    try {
+      // the writer drains what is queued before it exits
+      writer.join(10_000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    pool.close();
+  }
+
+  private ReentrantLock stripe(String id) {
+    return stripes.of(id);
+  }
+
+  // tickets are handed out under a lock so queue order and ticket order agree
+  private long enqueue(String id, Kind kind, Row row, List<ClaimHistoryEvent> events) {
+    enqueueLock.lock();
+    try {
+      long ticket = enqueued + 1;
+      queue.add(new Write(ticket, id, kind, row, events));
+      enqueued = ticket;
+      return ticket;
+    } finally {
+      enqueueLock.unlock();
+    }
+  }
+
+  /** CLOCK sweep: referenced entries get a second chance, committed unreferenced ones are dropped. */
+  private void evict() {
+    if (cache.size() <= cfg.getCacheSize() || !evictLock.tryLock()) return;
+    try {
+      int budget = 2 * cache.size();
+      while (cache.size() > cfg.getCacheSize() && budget-- > 0) {
+        if (hand == null || !hand.hasNext()) hand = cache.values().iterator();
+        if (!hand.hasNext()) return;
+        Cached e = hand.next();
+        if (e.referenced) {
+          e.referenced = false;
+        } else if (e.ticket <= durable) {
+          cache.remove(e.id, e);
+        }
+      }
+    } finally {
+      evictLock.unlock();
+    }
+  }
+
+  private Claim load(String id) {
+    try (Connection c = pool.getConnection()) {
+      Claim claim;
+      try (PreparedStatement st = c.prepareStatement(SELECT_CLAIM)) {
+        st.setString(1, id);
+        try (ResultSet rs = st.executeQuery()) {
+          if (!rs.next()) return null;
+          claim = readClaim(rs);
+        }
+      }
+      try (PreparedStatement st = c.prepareStatement(SELECT_EVENTS)) {
+        st.setString(1, id);
+        try (ResultSet rs = st.executeQuery()) {
+          while (rs.next()) {
+            claim.history.add(new ClaimHistoryEvent(
+                instant(rs, "event_at"), status(rs.getString("status")), rs.getString("message")));
+          }
+        }
+      }
+      return claim;
+    } catch (SQLException e) {
+      throw new IllegalStateException("cannot read claim " + id, e);
+    }
+  }
+
+  private void writeLoop() {
+    long intervalNanos = TimeUnit.MICROSECONDS.toNanos(cfg.getCommitIntervalMicros());
+    var batch = new ArrayList<Write>(cfg.getBatchSize());
+    while (running || !queue.isEmpty()) {
+      Write w;
+      while (batch.size() < cfg.getBatchSize() && (w = queue.poll()) != null) batch.add(w);
+      if (batch.isEmpty()) {
+        LockSupport.parkNanos(intervalNanos);
+        continue;
+      }
+      try {
+        flushWithRetry(batch);
+      } catch (RuntimeException e) {
+        // never expected, but a writer that dies leaves every later awaitDurable waiting forever
+        reject(batch, e);
+      }
+      durable = batch.get(batch.size() - 1).ticket();
+      batch.clear();
+      commitLock.lock();
+      try {
+        committed.signalAll();
+      } finally {
+        commitLock.unlock();
+      }
+    }
+  }
+
+  // acknowledged writes must not be lost, so a failing database stalls writers until it is back
+  private void flushWithRetry(List<Write> batch) {
+    // a write queued on top of a rejected one builds on a state the database never held
+    var fresh = new ArrayList<Write>(batch.size());
+    for (Write w : batch) {
+      Poisoned p = poisoned.get(w.id());
+      if (p != null && w.ticket() <= p.upTo()) reject(List.of(w), p.cause()); else fresh.add(w);
+    }
+    // several writes of one claim in a batch collapse into one row write plus their new events
+    var byClaim = new LinkedHashMap<String, Write>();
+    for (Write w : fresh) byClaim.merge(w.id(), w, JdbcClaimTable::fold);
+    if (byClaim.isEmpty() || flushWithRetry(byClaim.values(), fresh.size()) == null) return;
+    // some write can never succeed: commit the others claim by claim and reject that one
+    for (Write w : byClaim.values()) {
+      Exception error = flushWithRetry(List.of(w), 1);
+      if (error != null) reject(fresh.stream().filter(b -> b.id().equals(w.id())).toList(), error);
+    }
+  }
+
+  // null once committed, else the error that retrying cannot fix
+  private Exception flushWithRetry(Collection<Write> writes, int size) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        flush(writes);
+        return null;
+      } catch (SQLException | RuntimeException e) {
+        if (!(e instanceof SQLException sql) || !isTransient(sql)) {
+          System.err.printf("[jdbc] batch of %d writes rejected: %s%n", size, e.getMessage());
+          return e;
+        }
+        System.err.printf("[jdbc] batch of %d writes failed (attempt %d): %s%n", size, attempt, e.getMessage());
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Math.min(5_000, 100L * attempt)));
+      }
+    }
+  }
+
+  // a lost connection, a timeout, a deadlock or a serialization failure clears up on retry; bad data never does.
+  // an error without a SQLState says neither, and retrying it could stall the writer for good
+  private static boolean isTransient(SQLException e) {
+    if (e instanceof SQLTransientException || e instanceof SQLRecoverableException) return true;
+    String state = e.getSQLState();
+    return state != null && (state.startsWith("08") || state.startsWith("40") || state.startsWith("53") || state.startsWith("57"));
+  }
+
+  /**
+   * Gives up on {@code writes}: awaitDurable of their tickets throws {@code error}, and their claims
+   * go back to what the database holds. Writes of the claim queued after a rejected one are given
+   * up too when the writer reaches them, since each was made on top of the state being undone.
+   */
+  private void reject(List<Write> writes, Exception error) {
+    for (Write w : writes) {
+      rejected.put(w.ticket(), error);
+      rejected.keySet().removeIf(t -> t < w.ticket() - REJECTION_WINDOW);
+      if (w.kind() == Kind.INSERT) rows.decrementAndGet();
+      else if (w.kind() == Kind.DELETE) rows.incrementAndGet();
+      Poisoned p = poisoned.get(w.id());
+      if (p != null && w.ticket() <= p.upTo()) {
+        // reverted with the write it was queued on
+        if (w.ticket() == p.upTo()) poisoned.remove(w.id());
+        continue;
+      }
+      revert(w, error);
+    }
+  }
+
+  private void revert(Write w, Exception error) {
+    ReentrantLock lock = stripe(w.id());
+    lock.lock();
+    try {
+      // uncommitted entries are never evicted: this is the rejected write's or a later one's
+      Cached e = cache.get(w.id());
+      if (e == null || e.ticket < w.ticket()) return;
+      cache.remove(w.id(), e);
+      if (e.ticket > w.ticket()) poisoned.put(w.id(), new Poisoned(e.ticket, error));
+      Claim committed;
+      try {
+        committed = load(w.id());
+      } catch (IllegalStateException ex) {
+        System.err.printf("[jdbc] claim %s not reverted, cannot read it back: %s%n", w.id(), ex.getMessage());
+        return;
+      }
+      if (e.claim != null || committed != null) onRevert.reverted(w.id(), e.claim, committed);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void flush(Collection<Write> writes) throws SQLException {
+    try (Connection c = pool.getConnection()) {
+      c.setAutoCommit(false);
+      try (PreparedStatement insert = c.prepareStatement(INSERT_CLAIM);
+           PreparedStatement update = c.prepareStatement(UPDATE_CLAIM);
+           PreparedStatement events = c.prepareStatement(INSERT_EVENT);
+           PreparedStatement deleteEvents = c.prepareStatement(DELETE_EVENTS);
+           PreparedStatement delete = c.prepareStatement(DELETE_CLAIM)) {
+        int inserts = 0, updates = 0, added = 0, deletes = 0;
+        for (Write w : writes) {
+          switch (w.kind()) {
+            case INSERT -> { bindRow(insert, w.row()); insert.addBatch(); inserts++; }
+            case UPDATE -> { bindRow(update, w.row()); update.addBatch(); updates++; }
+            case DELETE -> {
+              deleteEvents.setString(1, w.id());
+              deleteEvents.addBatch();
+              delete.setString(1, w.id());
+              delete.addBatch();
+              deletes++;
+            }
+          }
+          for (ClaimHistoryEvent e : w.events()) {
+            events.setString(1, w.id());
+            events.setLong(2, e.seq);
+            events.setObject(3, timestamp(e.at));
+            events.setString(4, e.status == null ? null : e.status.name());
+            events.setString(5, e.message);
+            events.addBatch();
+            added++;
+          }
+        }
+        if (inserts > 0) insert.executeBatch();
+        if (updates > 0) update.executeBatch();
+        if (added > 0) events.executeBatch();
+        if (deletes > 0) {
+          deleteEvents.executeBatch();
+          delete.executeBatch();
+        }
+        c.commit();
+      } catch (SQLException e) {
+        c.rollback();
+        throw e;
+      }
+    }
+  }
+
+  private static Write fold(Write first, Write then) {
+    if (then.kind() == Kind.DELETE) {
+      // created and deleted within one batch: nothing reaches the database
+      return first.kind() == Kind.INSERT ? null : then;
+    }
+    var events = new ArrayList<>(first.events());
+    events.addAll(then.events());
+    return new Write(then.ticket(), then.id(), first.kind() == Kind.INSERT ? Kind.INSERT : Kind.UPDATE, then.row(), events);
+  }
+
+  // INSERT_CLAIM and UPDATE_CLAIM share the parameter order, id last
+  private static void bindRow(PreparedStatement st, Row r) throws SQLException {
+    st.setString(1, r.customerId());
+    st.setString(2, r.fullName());
+    st.setString(3, r.policyNumber());
+    st.setString(4, r.claimType() == null ? null : r.claimType().name());
+    st.setBigDecimal(5, r.claimedAmount());
+    st.setString(6, r.description());
+    st.setString(7, r.status() == null ? null : r.status().name());
+    st.setObject(8, timestamp(r.createdAt()));
+    st.setLong(9, r.version());
+    st.setLong(10, r.lsn());
+    st.setString(11, r.id());
+  }
+
+  private static Claim readClaim(ResultSet rs) throws SQLException {
+    Claim c = new Claim();
+    c.id = rs.getString("id");
+    c.customerId = rs.getString("customer_id");
+    c.fullName = rs.getString("full_name");
+    c.policyNumber = rs.getString("policy_number");
+    String type = rs.getString("claim_type");
+    c.claimType = type == null ? null : ClaimType.valueOf(type);
+    BigDecimal amount = rs.getBigDecimal("claimed_amount");
+    // H2 normalizes 100 to 1E+2
+    c.claimedAmount = amount != null && amount.scale() < 0 ? amount.setScale(0) : amount;
+    c.description = rs.getString("description");
+    c.status = status(rs.getString("status"));
+    c.createdAt = instant(rs, "created_at");
+    c.version = rs.getLong("version");
+    c.lsn = rs.getLong("lsn");
+    return c;
+  }
+
+  private static ClaimStatus status(String s) {
+    return s == null ? null : ClaimStatus.valueOf(s);
+  }
+
+  private static OffsetDateTime timestamp(Instant t) {
+    return t == null ? null : t.atOffset(ZoneOffset.UTC);
+  }
+
+  private static Instant instant(ResultSet rs, String column) throws SQLException {
+    OffsetDateTime t = rs.getObject(column, OffsetDateTime.class);
+    return t == null ? null : t.toInstant();
+  }
+}
@@ -0,0 +1,111 @@
+package com.demo.insurance.claimrest.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Spreads recovery work over several threads without reordering the work of any one claim: a
+ * task goes to the worker its key hashes to, so the events of a claim are still applied one after
+ * another in journal order while different claims are applied in parallel. Tasks are handed over
+ * in batches so queue traffic stays small next to the work itself.
+ *
+ * <p>With one thread everything runs inline on the caller. The first task to fail stops further
+ * submissions, and {@link #close} rethrows it once all workers have finished.
+ */
+final class ParallelReplay implements AutoCloseable {
+
+  private static final int BATCH = 256;
+  private static final int QUEUED_BATCHES = 16;
+  private static final List<Runnable> DONE = List.of();
+
+  private final Thread[] workers;
+  private final List<BlockingQueue<List<Runnable>>> queues = new ArrayList<>();
+  private final List<List<Runnable>> pending = new ArrayList<>();
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+  ParallelReplay(int threads) {
+    this.workers = new Thread[threads > 1 ? threads : 0];
+    for (int i = 0; i < workers.length; i++) {
+      BlockingQueue<List<Runnable>> queue = new ArrayBlockingQueue<>(QUEUED_BATCHES);
+      queues.add(queue);
+      pending.add(new ArrayList<>(BATCH));
+      workers[i] = new Thread(() -> work(queue), "claim-replay-" + i);
+      workers[i].setDaemon(true);
+      workers[i].start();
+    }
+  }
+
+  int threads() {
+    return Math.max(1, workers.length);
+  }
+
+  void submit(String key, Runnable task) {
+    if (workers.length == 0) {
+      task.run();
+      return;
+    }
+    int h = key.hashCode();
+    int w = Math.floorMod(h ^ (h >>> 16), workers.length);
+    List<Runnable> batch = pending.get(w);
+    batch.add(task);
+    if (batch.size() >= BATCH) {
+      hand(w, batch);
+      pending.set(w, new ArrayList<>(BATCH));
+    }
+  }
+
+  /** Waits until every submitted task has run. */
+  @Override
+  public void close() {
+    if (workers.length == 0) return;
+    for (int w = 0; w < workers.length; w++) {
+      if (!pending.get(w).isEmpty()) put(w, pending.get(w));
+      put(w, DONE);
+    }
+    for (Thread t : workers) {
+      try {
+        t.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("interrupted while waiting for replay", e);
+      }
+    }
+    Throwable t = failure.get();
+    if (t != null) throw new IllegalStateException("journal replay failed", t);
+  }
+
+  private void hand(int w, List<Runnable> batch) {
+    Throwable t = failure.get();
+    if (t != null) throw new IllegalStateException("journal replay failed", t);
+    put(w, batch);
+  }
+
+  private void put(int w, List<Runnable> batch) {
+    try {
+      queues.get(w).put(batch);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while replaying", e);
+    }
+  }
+
+  // after a failure the worker keeps draining so the submitter never blocks on a full queue
+  private void work(BlockingQueue<List<Runnable>> queue) {
+    try {
+      List<Runnable> batch;
+      while ((batch = queue.take()) != DONE) {
+        if (failure.get() != null) continue;
+        try {
+          for (Runnable task : batch) task.run();
+        } catch (Throwable e) {
+          failure.compareAndSet(null, e);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package com.demo.insurance.claimrest.service;
+
+import com.demo.insurance.claimrest.model.*;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-policy claim counts and claimed amounts, overall and per status. A {@link ClaimProjection}:
+ * the totals are saved with each journal snapshot and follow the live events after a start.
+ */
+@Component
+public class PolicyTotalsProjection implements ClaimProjection<PolicyTotalsProjection.Entry> {
+
+  record Entry(String policyNumber, ClaimStatus status, long cents) {}
+
+  private static final ClaimStatus[] STATUSES = ClaimStatus.values();
+
+  private static final class Totals {
+    final LongAdder[] count = adders();
+    final LongAdder[] cents = adders();
+
+    private static LongAdder[] adders() {
+      var out = new LongAdder[STATUSES.length];
+      for (int i = 0; i < out.length; i++) out[i] = new LongAdder();
+      return out;
+    }
+  }
+
+  // policies stay once seen; there are far fewer of them than claims
+  private final ConcurrentHashMap<String, Totals> byPolicy = new ConcurrentHashMap<>();
+
+  @Override
+  public Entry key(Claim c) {
+    return c == null || c.policyNumber == null || c.status == null
+        ? null
+        : new Entry(c.policyNumber, c.status, ClaimStats.toCents(c.claimedAmount));
+  }
+
+  @Override
+  public void update(String id, ClaimMutation event, Entry before, Entry after) {
+    if (before != null && before.equals(after)) return;
+    if (before != null) add(before, -1);
+    if (after != null) add(after, 1);
+  }
+
+  @Override
+  public void reset() {
+    byPolicy.clear();
+  }
+
+  @Override
+  public String name() {
+    return "policy-totals";
+  }
+
+  // policy count, then per policy: number, non-empty status count, then (status name, count, cents) each
+  @Override
+  public void writeState(DataOutputStream out) throws IOException {
+    var policies = new ArrayList<>(byPolicy.entrySet());
+    out.writeInt(policies.size());
+    for (var e : policies) {
+      Totals t = e.getValue();
+      out.writeUTF(e.getKey());
+      var used = new ArrayList<ClaimStatus>();
+      for (ClaimStatus s : STATUSES) {
+        if (t.count[s.ordinal()].sum() != 0 || t.cents[s.ordinal()].sum() != 0) used.add(s);
+      }
+      out.writeInt(used.size());
+      for (ClaimStatus s : used) {
+        out.writeUTF(s.name());
+        out.writeLong(t.count[s.ordinal()].sum());
+        out.writeLong(t.cents[s.ordinal()].sum());
+      }
+    }
+  }
+
+  @Override
+  public void readState(DataInputStream in) throws IOException {
+    byPolicy.clear();
+    for (int n = in.readInt(); n > 0; n--) {
+      Totals t = byPolicy.computeIfAbsent(in.readUTF(), k -> new Totals());
+      for (int m = in.readInt(); m > 0; m--) {
+        int s = ClaimStatus.valueOf(in.readUTF()).ordinal();
+        t.count[s].add(in.readLong());
+        t.cents[s].add(in.readLong());
+      }
+    }
+  }
+
+  /** Totals of {@code policyNumber} on this node; all zero for a policy without claims. */
+  public PolicyTotals totals(String policyNumber) {
+    Totals t = byPolicy.get(policyNumber);
+    long claims = 0, cents = 0;
+    var status = new EnumMap<ClaimStatus, ClaimStatistics.Group>(ClaimStatus.class);
+    if (t != null) {
+      for (ClaimStatus s : STATUSES) {
+        long n = t.count[s.ordinal()].sum();
+        if (n == 0) continue;
+        long c = t.cents[s.ordinal()].sum();
+        status.put(s, new ClaimStatistics.Group(n, ClaimStats.amount(c)));
+        claims += n;
+        cents += c;
+      }
+    }
+    return new PolicyTotals(policyNumber, claims, ClaimStats.amount(cents), status);
+  }
+
+  private void add(Entry e, int sign) {
+    Totals t = byPolicy.computeIfAbsent(e.policyNumber(), k -> new Totals());
+    t.count[e.status().ordinal()].add(sign);
+    t.cents[e.status().ordinal()].add(sign * e.cents());
+  }
+}
@@ -0,0 +1,43 @@
+package com.demo.insurance.claimrest.service;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent mapping from an attribute value to the ids of the claims carrying it.
+ * Empty posting sets are dropped so the index never outgrows the live key space.
+ */
+final class SecondaryIndex<K> {
+
+  private final ConcurrentHashMap<K, Set<String>> postings = new ConcurrentHashMap<>();
+
+  void add(K key, String id) {
+    if (key == null) return;
+    postings.compute(key, (k, ids) -> {
+      if (ids == null) ids = ConcurrentHashMap.newKeySet();
+      ids.add(id);
+      return ids;
+    });
+  }
+
+  void remove(K key, String id) {
+    if (key == null) return;
+    postings.computeIfPresent(key, (k, ids) -> {
+      ids.remove(id);
+      return ids.isEmpty() ? null : ids;
+    });
+  }
+
+  void move(K from, K to, String id) {
+    if (Objects.equals(from, to)) return;
+    remove(from, id);
+    add(to, id);
+  }
+
+  /** Live view of the ids for {@code key}; may change while being iterated. */
+  Set<String> get(K key) {
+    Set<String> ids = postings.get(key);
+    return ids == null ? Set.of() : ids;
+  }
+}
@@ -0,0 +1,17 @@
+package com.demo.insurance.claimrest.service;
+
+import com.demo.insurance.claimrest.model.ClaimStatus;
+
+/** One status change of a batch; {@code expectedVersion} as for {@link ClaimStore#updateStatus}. */
+public record StatusTransition(String claimId, ClaimStatus status, String message, long expectedVersion) {
+
+  public enum Outcome { APPLIED, NOT_FOUND, CONFLICT, INVALID, UNAVAILABLE }
+
+  /** What became of one transition: the claim's status and version after it, or why it was not applied. */
+  public record Result(String id, Outcome outcome, ClaimStatus status, Long version, String error) {
+
+    public static Result failed(String id, Outcome outcome, String error) {
+      return new Result(id, outcome, null, null, error);
+    }
+  }
+}
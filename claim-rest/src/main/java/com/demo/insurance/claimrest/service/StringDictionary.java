@@ -0,0 +1,64 @@
+package com.demo.insurance.claimrest.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only dictionary that maps repeated strings (customer ids, policy numbers) to
+ * dense int codes. Only for low-cardinality values: entries are never reclaimed. Code {@code -1} stands for {@code null}.
+ * Decoding is a lock-free array read; codes are never reused.
+ */
+final class StringDictionary {
+
+  private static final int PAGE_BITS = 14;
+  private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+  private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+  private volatile AtomicReferenceArray<String>[] pages = newPages(16);
+  private final ReentrantLock assignLock = new ReentrantLock();
+  private int next;
+
+  int encode(String s) {
+    if (s == null) return -1;
+    Integer code = codes.get(s);
+    if (code != null) return code;
+    assignLock.lock();
+    try {
+      code = codes.get(s);
+      return code != null ? code : assign(s);
+    } finally {
+      assignLock.unlock();
+    }
+  }
+
+  String decode(int code) {
+    if (code < 0) return null;
+    return pages[code >>> PAGE_BITS].get(code & (PAGE_SIZE - 1));
+  }
+
+  int size() {
+    return codes.size();
+  }
+
+  // called under assignLock; the code only escapes after the value is published
+  private int assign(String s) {
+    int code = next++;
+    int page = code >>> PAGE_BITS;
+    var current = pages;
+    if (page >= current.length) {
+      var grown = newPages(current.length * 2);
+      System.arraycopy(current, 0, grown, 0, current.length);
+      pages = current = grown;
+    }
+    if (current[page] == null) current[page] = new AtomicReferenceArray<>(PAGE_SIZE);
+    current[page].set(code & (PAGE_SIZE - 1), s);
+    codes.put(s, code);
+    return code;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static AtomicReferenceArray<String>[] newPages(int n) {
+    return (AtomicReferenceArray<String>[]) new AtomicReferenceArray<?>[n];
+  }
+}
@@ -0,0 +1,24 @@
+package com.demo.insurance.claimrest.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of {@link ReentrantLock}s picked by key hash, for per-claim mutual exclusion. Unlike
+ * a {@code synchronized} block or a {@code ConcurrentHashMap.compute} bin lock, a virtual thread
+ * that parks while holding one (journal append, group commit, database I/O) releases its carrier.
+ */
+final class StripedLocks {
+
+  private final ReentrantLock[] locks;
+
+  StripedLocks(int stripes) {
+    if (Integer.bitCount(stripes) != 1) throw new IllegalArgumentException("stripes must be a power of two");
+    locks = new ReentrantLock[stripes];
+    for (int i = 0; i < stripes; i++) locks[i] = new ReentrantLock();
+  }
+
+  ReentrantLock of(String key) {
+    int h = key.hashCode();
+    return locks[(h ^ (h >>> 16)) & (locks.length - 1)];
+  }
+}
@@ -803,6 +803,8 @@ function useWorkspace(session: Session) {
   const [startRes, setStartRes] = useState<WorkflowStartRes | null>(null);
   const [claim, setClaim] = useState<Claim | null>(null);
   const [history, setHistory] = useState<ClaimHistoryEvent[]>([]);
+  // last history seq loaded for a claim, so polling only fetches new events
+  const historySeq = useRef<{ id: string; seq: number }>({ id: "", seq: 0 });
   const [wf, setWf] = useState<WorkflowState | null>(null);
   const [tasks, setTasks] = useState<TaskDto[]>([]);
   const [autoRefresh, setAutoRefresh] = useState(true);
@@ -846,9 +848,18 @@ function useWorkspace(session: Session) {
 
     setErr("");
     try {
-      const [c, h, w, t] = await Promise.all([claimGet(id), claimHistory(id), wfState(id), wfTasksByClaim(id)]);
+      const since = historySeq.current.id === id ? historySeq.current.seq : 0;
+      const [c, h, w, t] = await Promise.all([claimGet(id), claimHistory(id, since), wfState(id), wfTasksByClaim(id)]);
+      const fresh = Array.isArray(h) ? h : [];
       setClaim(c);
-      setHistory(Array.isArray(h) ? h : []); 
+      setHistory((prev) => {
+        if (since === 0) return fresh;
+        const last = prev.length > 0 ? prev[prev.length - 1].seq : 0;
+        return [...prev, ...fresh.filter((e) => e.seq > last)];
+      });
+      if (fresh.length > 0 || since === 0) {
+        historySeq.current = { id, seq: fresh.length > 0 ? fresh[fresh.length - 1].seq : 0 };
+      }
       setWf(w);
       setTasks(Array.isArray(t) ? t : []);
     } catch (e: any) {
@@ -1018,6 +1029,7 @@ function useWorkspace(session: Session) {
       setSelectedClaimId("");
       setClaim(null);
       setHistory([]);
+      historySeq.current = { id: "", seq: 0 };
       setWf(null);
       setTasks([]);
     }
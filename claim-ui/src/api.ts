@@ -31,6 +31,7 @@ export interface WorkflowStartRes {
 }
 
 export interface ClaimHistoryEvent {
+  seq: number;
   at: string;
   status: ClaimStatus;
   message: string;
@@ -114,8 +115,11 @@ export function claimGet(claimId: string) {
   return fetchJson<Claim>(`/claim/claims/${encodeURIComponent(claimId)}`);
 }
 
-export function claimHistory(claimId: string) {
-  return fetchJson<ClaimHistoryEvent[]>(`/claim/claims/${encodeURIComponent(claimId)}/history`);
+// since = last seq already held by the caller; only newer events are returned
+export function claimHistory(claimId: string, since = 0) {
+  return fetchJson<ClaimHistoryEvent[]>(
+    `/claim/claims/${encodeURIComponent(claimId)}/history?since=${since}`
+  );
 }
 
 export type ActiveTaskDto = {
@@ -0,0 +1,14 @@
+package com.demo.insurance.identitysoap;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlType;
+
+/** One entry of a {@code verifyIdentities} request: the arguments of a single {@code verifyIdentity}. */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "IdentityCheck")
+public class IdentityCheck {
+  public String customerId;
+  public String fullName;
+  public String policyNumber;
+}
@@ -1,26 +1,118 @@
 package com.demo.insurance.identitysoap;
 
+import com.demo.insurance.identitysoap.registry.Identity;
+import com.demo.insurance.identitysoap.registry.IdentityRegistry;
+import com.demo.insurance.identitysoap.registry.IdentitySnapshot;
+import com.demo.insurance.identitysoap.registry.NameFeatures;
 import jakarta.jws.WebMethod;
 import jakarta.jws.WebParam;
+import jakarta.jws.WebResult;
 import jakarta.jws.WebService;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 @WebService(serviceName = "IdentityVerificationService")
 public class IdentityVerificationService {
 
+  // entries verified by one task of a verifyIdentities call
+  private static final int CHUNK = 256;
+
+  private final IdentityRegistry registry;
+  private final Executor batchExecutor;
+  private final int maxBatchEntries;
+
+  public IdentityVerificationService(IdentityRegistry registry, Executor batchExecutor, int maxBatchEntries) {
+    this.registry = registry;
+    this.batchExecutor = batchExecutor;
+    this.maxBatchEntries = maxBatchEntries;
+  }
+
   @WebMethod
   public VerificationResult verifyIdentity(
       @WebParam(name = "customerId") String customerId,
       @WebParam(name = "fullName") String fullName,
       @WebParam(name = "policyNumber") String policyNumber
   ) {
+    return verify(registry.current(), registry.minNameScore(), customerId, fullName, policyNumber);
+  }
+
+  /**
+   * Verifies every entry like {@link #verifyIdentity} and returns one result per entry, in
+   * request order and carrying the entry's customerId. Entries are verified in chunks on the
+   * batch executor; the response is marshalled straight onto the connection once all are done.
+   */
+  @WebMethod
+  @WebResult(name = "result")
+  public List<VerificationResult> verifyIdentities(@WebParam(name = "entry") List<IdentityCheck> entries) {
+    if (entries == null || entries.isEmpty()) return List.of();
+    if (entries.size() > maxBatchEntries) {
+      throw new IllegalArgumentException("at most " + maxBatchEntries + " entries per verifyIdentities call, got " + entries.size());
+    }
+
+    // the whole call sees one roster, even if a new snapshot is swapped in meanwhile
+    IdentitySnapshot roster = registry.current();
+    int minScore = registry.minNameScore();
+    VerificationResult[] results = new VerificationResult[entries.size()];
+    if (entries.size() <= CHUNK) {
+      verifyRange(roster, minScore, entries, results, 0, entries.size());
+      return Arrays.asList(results);
+    }
+    var chunks = new ArrayList<CompletableFuture<Void>>();
+    for (int from = 0; from < entries.size(); from += CHUNK) {
+      int start = from, end = Math.min(entries.size(), from + CHUNK);
+      chunks.add(CompletableFuture.runAsync(() -> verifyRange(roster, minScore, entries, results, start, end), batchExecutor));
+    }
+    CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).join();
+    return Arrays.asList(results);
+  }
+
+  private static void verifyRange(IdentitySnapshot roster, int minScore, List<IdentityCheck> entries, VerificationResult[] results, int from, int to) {
+    for (int i = from; i < to; i++) {
+      IdentityCheck e = entries.get(i);
+      VerificationResult res = e == null ? verify(roster, minScore, null, null, null) : verify(roster, minScore, e.customerId, e.fullName, e.policyNumber);
+      res.customerId = e == null ? null : e.customerId;
+      results[i] = res;
+    }
+  }
+
+  /**
+   * Checks the caller's data against the roster: the customer must be registered under
+   * {@code customerId} with exactly this policy number, and {@code fullName} must score at least
+   * {@code minScore} against the registered name. The registered name's features come precomputed
+   * with the record and the caller's are bounded in length, so a check costs the same whatever the
+   * roster size or the spelling. Only the same words verify as an exact match with 100; any other
+   * spelling scores at most 99. Without a roster the simulation rule decides.
+   */
+  static VerificationResult verify(IdentitySnapshot roster, int minScore, String customerId, String fullName, String policyNumber) {
+    if (roster == null) return simulate(policyNumber);
+
+    Identity known = roster.find(customerId == null ? null : customerId.trim());
+    if (known == null) return result(false, "CUSTOMER_NOT_FOUND", 0);
+    if (policyNumber == null || !known.policyNumber().equals(policyNumber.trim())) return result(false, "POLICY_MISMATCH", 0);
+    if (NameFeatures.sameWords(known.fullName(), fullName)) return result(true, "IDENTITY_VERIFIED", 100);
+    int score = Math.min(99, known.name().score(NameFeatures.of(fullName)));
+    if (score >= minScore) return result(true, "NAME_FUZZY_MATCH", score);
+    return result(false, "NAME_MISMATCH", score);
+  }
+
+  private static VerificationResult simulate(String policyNumber) {
     // SIMULATION RULE (demo-friendly):
     // - if policyNumber ends with "0" => fail
     // - else verified
     boolean ok = policyNumber != null && !policyNumber.trim().endsWith("0");
 
+    return result(ok, ok ? "IDENTITY_VERIFIED" : "IDENTITY_VERIFICATION_FAILED", null);
+  }
+
+  private static VerificationResult result(boolean verified, String reason, Integer score) {
     VerificationResult res = new VerificationResult();
-    res.verified = ok;
-    res.reason = ok ? "IDENTITY_VERIFIED" : "IDENTITY_VERIFICATION_FAILED";
+    res.verified = verified;
+    res.reason = reason;
+    res.score = score;
     return res;
   }
 }
@@ -0,0 +1,149 @@
+package com.demo.insurance.identitysoap;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Counts SOAP requests and records their latency, from the start of the handler to the last byte
+ * of the response, and serves both in Prometheus text format. Latencies go into a log-linear
+ * histogram (8 buckets per power of two microseconds, so percentiles are within 12.5%) that is
+ * updated with one atomic add per request and never reset.
+ *
+ * <p>It also turns requests away with 503 and {@code Connection: close} while {@code refuse} holds.
+ * The request is counted in flight before that check, so whoever sets the condition and then
+ * waits for {@link #inFlight()} to reach zero cannot miss a request that got past it.
+ */
+final class RequestMetrics extends Filter implements HttpHandler {
+
+  private static final int SUB_BUCKETS = 8;
+  private static final int BUCKETS = 64 * SUB_BUCKETS;
+  private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder totalMicros = new LongAdder();
+  private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+  private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final BooleanSupplier refuse;
+
+  RequestMetrics(BooleanSupplier refuse) {
+    this.refuse = refuse;
+  }
+
+  @Override
+  public String description() {
+    return "request count and latency, rejects requests while refusing";
+  }
+
+  @Override
+  public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+    long start = System.nanoTime();
+    inFlight.incrementAndGet();
+    boolean failed = true;
+    try {
+      if (refuse.getAsBoolean()) {
+        exchange.getResponseHeaders().set("Connection", "close");
+        exchange.sendResponseHeaders(503, -1);
+        exchange.close();
+        return;
+      }
+      chain.doFilter(exchange);
+      failed = exchange.getResponseCode() >= 500;
+    } finally {
+      inFlight.decrementAndGet();
+      record((System.nanoTime() - start) / 1_000, failed);
+    }
+  }
+
+  void record(long micros, boolean failed) {
+    requests.increment();
+    if (failed) errors.increment();
+    totalMicros.add(micros);
+    maxMicros.accumulate(micros);
+    histogram.incrementAndGet(bucket(micros));
+  }
+
+  int inFlight() {
+    return inFlight.get();
+  }
+
+  @Override
+  public void handle(HttpExchange exchange) throws IOException {
+    byte[] body = render().getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  String render() {
+    long[] counts = new long[BUCKETS];
+    long n = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = histogram.get(i);
+      n += counts[i];
+    }
+    var sb = new StringBuilder(512);
+    sb.append("# TYPE identity_soap_requests_total counter\n");
+    sb.append("identity_soap_requests_total ").append(requests.sum()).append('\n');
+    sb.append("# TYPE identity_soap_errors_total counter\n");
+    sb.append("identity_soap_errors_total ").append(errors.sum()).append('\n');
+    sb.append("# TYPE identity_soap_in_flight gauge\n");
+    sb.append("identity_soap_in_flight ").append(inFlight.get()).append('\n');
+    sb.append("# TYPE identity_soap_latency_seconds summary\n");
+    long max = maxMicros.get();
+    for (double q : QUANTILES) {
+      // a bucket's upper bound may lie above the largest value actually seen
+      sb.append("identity_soap_latency_seconds{quantile=\"").append(q).append("\"} ")
+          .append(seconds(Math.min(max, quantile(counts, n, q)))).append('\n');
+    }
+    sb.append("identity_soap_latency_seconds_sum ").append(seconds(totalMicros.sum())).append('\n');
+    sb.append("identity_soap_latency_seconds_count ").append(n).append('\n');
+    sb.append("# TYPE identity_soap_latency_seconds_max gauge\n");
+    sb.append("identity_soap_latency_seconds_max ").append(seconds(max)).append('\n');
+    return sb.toString();
+  }
+
+  // upper bound of the bucket holding the q-th latency
+  private static long quantile(long[] counts, long n, double q) {
+    if (n == 0) return 0;
+    long rank = (long) Math.ceil(q * n);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank) return upperBound(i);
+    }
+    return upperBound(BUCKETS - 1);
+  }
+
+  // values below SUB_BUCKETS map to themselves; above, 8 linear buckets per power of two
+  static int bucket(long micros) {
+    if (micros < SUB_BUCKETS) return (int) Math.max(0, micros);
+    int exp = 63 - Long.numberOfLeadingZeros(micros);
+    int sub = (int) (micros >>> (exp - 3)) & (SUB_BUCKETS - 1);
+    return Math.min(BUCKETS - 1, (exp - 2) * SUB_BUCKETS + sub);
+  }
+
+  static long upperBound(int bucket) {
+    if (bucket < SUB_BUCKETS) return bucket;
+    int exp = bucket / SUB_BUCKETS + 2;
+    int sub = bucket % SUB_BUCKETS;
+    return ((long) (SUB_BUCKETS + sub + 1) << (exp - 3)) - 1;
+  }
+
+  private static String seconds(long micros) {
+    return Double.toString(micros / 1e6);
+  }
+}
@@ -0,0 +1,86 @@
+package com.demo.insurance.identitysoap;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Caps the size of a request body before the SOAP runtime unmarshals it, so the entry limit of
+ * {@code verifyIdentities} is not the first check a huge request meets. A declared
+ * {@code Content-Length} above the cap is answered with 413 straight away; a chunked body is read
+ * through a stream that fails once it passes the cap.
+ */
+final class RequestSizeLimit extends Filter {
+
+  private final long maxBytes;
+
+  RequestSizeLimit(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  @Override
+  public String description() {
+    return "rejects request bodies over " + maxBytes + " bytes";
+  }
+
+  @Override
+  public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+    String declared = exchange.getRequestHeaders().getFirst("Content-Length");
+    if (declared != null && parse(declared) > maxBytes) {
+      exchange.getResponseHeaders().set("Connection", "close");
+      exchange.sendResponseHeaders(413, -1);
+      exchange.close();
+      return;
+    }
+    exchange.setStreams(new Bounded(exchange.getRequestBody(), maxBytes), null);
+    chain.doFilter(exchange);
+  }
+
+  // an unparseable length is left to the server, which rejects it itself
+  private static long parse(String contentLength) {
+    try {
+      return Long.parseLong(contentLength.trim());
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static final class Bounded extends FilterInputStream {
+
+    private long left;
+
+    Bounded(InputStream in, long maxBytes) {
+      super(in);
+      this.left = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) count(1);
+      return b;
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) throws IOException {
+      int n = super.read(buf, off, len);
+      if (n > 0) count(n);
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      count(skipped);
+      return skipped;
+    }
+
+    private void count(long n) throws IOException {
+      left -= n;
+      if (left < 0) throw new IOException("request body exceeds the limit of identity.soap.max-request-bytes");
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package com.demo.insurance.identitysoap;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "identity.soap")
+public class SoapProperties {
+
+  public enum ExecutorType {
+    // fixed pool of platform threads with a bounded queue
+    PLATFORM,
+    // one virtual thread per request; needs a JDK 21 at runtime
+    VIRTUAL
+  }
+
+  private String host = "0.0.0.0";
+  private int port = 8082;
+  private String path = "/ws/identity";
+  private ExecutorType executor = ExecutorType.PLATFORM;
+  // PLATFORM pool size; 0 = two per available processor
+  private int threads = 0;
+  // requests waiting for a PLATFORM thread; beyond that they are answered with 503
+  private int queueCapacity = 1_000;
+  // pending TCP connections; 0 = the JDK default
+  private int backlog = 1_024;
+  // in-flight requests get this long to finish on shutdown
+  private int drainSeconds = 10;
+  // request counts and latency percentiles in Prometheus text format, on the same port
+  private String metricsPath = "/metrics";
+  // threads verifying the entries of verifyIdentities calls, shared by all calls; 0 = one per available processor
+  private int batchParallelism = 0;
+  // verifyIdentities calls with more entries are rejected with a fault
+  private int maxBatchEntries = 50_000;
+  // larger request bodies get a 413 before anything is parsed; must leave room for max-batch-entries entries
+  private long maxRequestBytes = 16L << 20;
+  private final KeepAlive keepAlive = new KeepAlive();
+
+  public String getHost() { return host; }
+  public void setHost(String host) { this.host = host; }
+
+  public int getPort() { return port; }
+  public void setPort(int port) { this.port = port; }
+
+  public String getPath() { return path; }
+  public void setPath(String path) { this.path = path; }
+
+  public ExecutorType getExecutor() { return executor; }
+  public void setExecutor(ExecutorType executor) { this.executor = executor; }
+
+  public int getThreads() { return threads; }
+  public void setThreads(int threads) { this.threads = threads; }
+
+  public int getQueueCapacity() { return queueCapacity; }
+  public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+
+  public int getBacklog() { return backlog; }
+  public void setBacklog(int backlog) { this.backlog = backlog; }
+
+  public int getDrainSeconds() { return drainSeconds; }
+  public void setDrainSeconds(int drainSeconds) { this.drainSeconds = drainSeconds; }
+
+  public String getMetricsPath() { return metricsPath; }
+  public void setMetricsPath(String metricsPath) { this.metricsPath = metricsPath; }
+
+  public int getBatchParallelism() { return batchParallelism; }
+  public void setBatchParallelism(int batchParallelism) { this.batchParallelism = batchParallelism; }
+
+  public int getMaxBatchEntries() { return maxBatchEntries; }
+  public void setMaxBatchEntries(int maxBatchEntries) { this.maxBatchEntries = maxBatchEntries; }
+
+  public long getMaxRequestBytes() { return maxRequestBytes; }
+  public void setMaxRequestBytes(long maxRequestBytes) { this.maxRequestBytes = maxRequestBytes; }
+
+  public KeepAlive getKeepAlive() { return keepAlive; }
+
+  /** Connection reuse of the JDK HTTP server (its {@code sun.net.httpserver.*} settings). */
+  public static class KeepAlive {
+
+    // an idle persistent connection is closed after this long
+    private int idleSeconds = 30;
+    // idle persistent connections kept open at most
+    private int maxIdleConnections = 200;
+
+    public int getIdleSeconds() { return idleSeconds; }
+    public void setIdleSeconds(int idleSeconds) { this.idleSeconds = idleSeconds; }
+
+    public int getMaxIdleConnections() { return maxIdleConnections; }
+    public void setMaxIdleConnections(int maxIdleConnections) { this.maxIdleConnections = maxIdleConnections; }
+  }
+}
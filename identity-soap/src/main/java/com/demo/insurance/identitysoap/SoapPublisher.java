@@ -1,17 +1,138 @@
 package com.demo.insurance.identitysoap;
 
+import com.demo.insurance.identitysoap.registry.IdentityRegistry;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PreDestroy;
 import jakarta.xml.ws.Endpoint;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes the SOAP endpoint on a JDK HTTP server of our own rather than through
+ * {@code Endpoint.publish(address, ...)}, which leaves the server without an executor so every
+ * request runs on its single dispatcher thread. Requests are handed to a worker executor (see
+ * {@code identity.soap.*}) and their latencies recorded by {@link RequestMetrics}. Once the worker
+ * queue is full, further requests are answered with 503 by a separate overload thread, so the
+ * dispatcher thread never runs a handler and keeps accepting.
+ *
+ * <p>On shutdown new requests are answered with 503 and {@code Connection: close} while the ones
+ * in flight get up to {@code drain-seconds} to finish; then the server stops. (The JDK 17 server's
+ * own {@code stop(delay)} always waits out the full delay, even when nothing is running.)
+ */
 @Component
 public class SoapPublisher implements CommandLineRunner {
 
+  // set on the overload thread: the requests it runs were rejected by the worker pool
+  private static final ThreadLocal<Boolean> OVERLOAD = ThreadLocal.withInitial(() -> false);
+
+  private final SoapProperties props;
+  private final IdentityRegistry registry;
+  private volatile boolean draining;
+  private final RequestMetrics metrics = new RequestMetrics(() -> draining || OVERLOAD.get());
+  private HttpServer server;
+  private ExecutorService executor;
+  private ExecutorService overload;
+  private ForkJoinPool batchPool;
+  private Endpoint endpoint;
+
+  public SoapPublisher(SoapProperties props, IdentityRegistry registry) {
+    this.props = props;
+    this.registry = registry;
+  }
+
   @Override
-  public void run(String... args) {
-    String address = "http://0.0.0.0:8082/ws/identity";
-    Endpoint.publish(address, new IdentityVerificationService());
+  public void run(String... args) throws IOException {
+    keepAlive(props.getKeepAlive());
+    executor = executor();
+
+    server = HttpServer.create(new InetSocketAddress(props.getHost(), props.getPort()), props.getBacklog());
+    server.setExecutor(executor);
+    HttpContext context = server.createContext(props.getPath());
+    context.getFilters().add(metrics);
+    context.getFilters().add(new RequestSizeLimit(props.getMaxRequestBytes()));
+    batchPool = new ForkJoinPool(props.getBatchParallelism() > 0
+        ? props.getBatchParallelism() : Runtime.getRuntime().availableProcessors());
+    endpoint = Endpoint.create(new IdentityVerificationService(registry, batchPool, props.getMaxBatchEntries()));
+    endpoint.publish(context);
+    server.createContext(props.getMetricsPath(), metrics);
+    server.start();
+
+    String address = "http://" + props.getHost() + ":" + props.getPort() + props.getPath();
     System.out.println("[SOAP] IdentityVerificationService published at: " + address);
     System.out.println("[SOAP] WSDL available at: " + address + "?wsdl");
+    System.out.println("[SOAP] " + describe() + ", metrics at " + props.getMetricsPath());
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    if (server == null) return;
+    int inFlight = metrics.inFlight();
+    draining = true;
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(props.getDrainSeconds());
+    while (metrics.inFlight() > 0 && System.nanoTime() < deadline) Thread.sleep(10);
+    int cutOff = metrics.inFlight();
+    server.stop(0);
+    if (endpoint != null) endpoint.stop();
+    executor.shutdownNow();
+    if (overload != null) overload.shutdownNow();
+    batchPool.shutdownNow();
+    System.out.println("[SOAP] stopped (" + inFlight + " requests in flight at shutdown, " + cutOff + " cut off)");
+    server = null;
+  }
+
+  private ExecutorService executor() {
+    if (props.getExecutor() == SoapProperties.ExecutorType.VIRTUAL) {
+      try {
+        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException("identity.soap.executor=VIRTUAL needs a JDK 21, running on "
+            + System.getProperty("java.version"), e);
+      }
+    }
+    int threads = threads();
+    AtomicInteger n = new AtomicInteger();
+    ThreadFactory factory = r -> {
+      Thread t = new Thread(r, "soap-worker-" + n.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    };
+    // past a full queue a request only has its headers read and gets a 503; should even that thread
+    // fall behind, the dispatcher closes the connection
+    overload = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(props.getQueueCapacity()), r -> {
+      Thread t = new Thread(() -> {
+        OVERLOAD.set(true);
+        r.run();
+      }, "soap-overload");
+      t.setDaemon(true);
+      return t;
+    });
+    return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(props.getQueueCapacity()), factory, (r, pool) -> overload.execute(r));
+  }
+
+  private int threads() {
+    return props.getThreads() > 0 ? props.getThreads() : 2 * Runtime.getRuntime().availableProcessors();
+  }
+
+  private String describe() {
+    return props.getExecutor() == SoapProperties.ExecutorType.VIRTUAL
+        ? "virtual thread per request"
+        : threads() + " worker threads, queue " + props.getQueueCapacity();
+  }
+
+  // read once by the JDK server when its first instance is created; explicit -D settings win
+  private static void keepAlive(SoapProperties.KeepAlive cfg) {
+    if (System.getProperty("sun.net.httpserver.idleInterval") == null) {
+      System.setProperty("sun.net.httpserver.idleInterval", Integer.toString(cfg.getIdleSeconds()));
+    }
+    if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+      System.setProperty("sun.net.httpserver.maxIdleConnections", Integer.toString(cfg.getMaxIdleConnections()));
+    }
   }
 }
@@ -9,4 +9,8 @@ import jakarta.xml.bind.annotation.XmlType;
 public class VerificationResult {
   public boolean verified;
   public String reason;
+  // how well fullName matched the registered name, 0-100; left out of the XML when no roster is loaded
+  public Integer score;
+  // only set by verifyIdentities, to tie each result to its entry; left out of the XML when null
+  public String customerId;
 }
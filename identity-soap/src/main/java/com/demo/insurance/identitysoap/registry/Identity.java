@@ -0,0 +1,4 @@
+package com.demo.insurance.identitysoap.registry;
+
+/** A customer as registered in the roster, with the precomputed features of their name. */
+public record Identity(String customerId, String fullName, String policyNumber, NameFeatures name) {}
@@ -0,0 +1,101 @@
+package com.demo.insurance.identitysoap.registry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The customer roster that {@code verifyIdentity} checks against: the {@link IdentitySnapshot} at
+ * {@code identity.registry.snapshot}. A background check picks up a new file renamed over the old
+ * one, opens it and swaps it in with a single volatile write. A lookup uses whichever snapshot it
+ * read at its start, so lookups never wait for a reload and never see two rosters mixed. The old
+ * mapping is released by the garbage collector once no lookup holds it any more (unmapping it
+ * eagerly could crash a reader still on it).
+ */
+@Component
+public class IdentityRegistry {
+
+  private record Version(Object fileKey, FileTime modified, long size) {}
+
+  private final RegistryProperties props;
+  private volatile IdentitySnapshot current;
+  private Version version;
+  private ScheduledExecutorService watcher;
+
+  public IdentityRegistry(RegistryProperties props) {
+    this.props = props;
+  }
+
+  @PostConstruct
+  void start() throws IOException {
+    if (props.getSnapshot().isBlank()) {
+      System.out.println("[registry] no identity.registry.snapshot configured, verifyIdentity uses the simulation rule");
+      return;
+    }
+    if (!reload()) throw new IOException("identity snapshot not found: " + props.getSnapshot());
+    if (props.getReloadSeconds() > 0) {
+      watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "identity-registry-reload");
+        t.setDaemon(true);
+        return t;
+      });
+      watcher.scheduleWithFixedDelay(this::reloadQuietly, props.getReloadSeconds(), props.getReloadSeconds(), TimeUnit.SECONDS);
+    }
+  }
+
+  @PreDestroy
+  void stop() {
+    if (watcher != null) watcher.shutdownNow();
+  }
+
+  /** The roster in use, or {@code null} when none is configured. */
+  public IdentitySnapshot current() {
+    return current;
+  }
+
+  /** Lowest name score that still verifies; see {@link NameFeatures#score}. */
+  public int minNameScore() {
+    return props.getMinNameScore();
+  }
+
+  /**
+   * Swaps in the snapshot file if it changed since it was last loaded. Returns whether a snapshot
+   * is in use afterwards; a file that cannot be opened throws and leaves the current one in place.
+   */
+  public synchronized boolean reload() throws IOException {
+    Path path = Path.of(props.getSnapshot());
+    if (!Files.exists(path)) return current != null;
+    BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+    Version seen = new Version(attrs.fileKey(), attrs.lastModifiedTime(), attrs.size());
+    if (Objects.equals(seen, version)) return current != null;
+
+    long t0 = System.nanoTime();
+    // a broken file is reported once, not on every check until it is replaced
+    version = seen;
+    IdentitySnapshot next = IdentitySnapshot.open(path);
+    IdentitySnapshot previous = current;
+    current = next;
+    System.out.printf("[registry] %s %d identities from %s (%d MB mapped) in %d ms%n",
+        previous == null ? "loaded" : "swapped in", next.size(), path, attrs.size() >> 20,
+        (System.nanoTime() - t0) / 1_000_000);
+    return true;
+  }
+
+  private void reloadQuietly() {
+    try {
+      reload();
+    } catch (IOException | RuntimeException e) {
+      System.out.println("[registry] keeping the current snapshot, reload failed: " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package com.demo.insurance.identitysoap.registry;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One immutable customer roster, read straight from a memory-mapped snapshot file written by
+ * {@link IdentitySnapshotWriter}. Opening a snapshot only maps it and checks its header: the hash
+ * index is part of the file, so nothing is parsed or copied onto the heap and the OS pages the
+ * roster in as lookups touch it.
+ *
+ * <p>File layout, big-endian:
+ * <pre>
+ *   header   64 bytes: magic, identities, slots, table start, file length
+ *   records  per identity: u16 length + UTF-8 bytes of customerId, fullName, policyNumber,
+ *            then the fullName's {@link NameFeatures} as three longs
+ *   table    slots x 8 bytes, open addressing with linear probing, at most half full;
+ *            a slot is 0 when empty, else (top 24 bits of the key hash) &lt;&lt; 40 | record position
+ * </pre>
+ */
+public final class IdentitySnapshot {
+
+  static final long MAGIC = 0x4944524547303031L; // "IDREG001"
+  static final int HEADER = 64;
+  // longest customerId, fullName or policyNumber in bytes; a record always fits in one MappedRegion read
+  static final int MAX_FIELD = 4_096;
+  // NameFeatures at the end of each record
+  static final int FEATURES = 24;
+  static final int TAG_SHIFT = 40;
+  static final long POSITION_MASK = (1L << TAG_SHIFT) - 1;
+
+  private final Path path;
+  private final MappedRegion region;
+  private final long identities;
+  private final long mask;
+  private final long tableStart;
+
+  private IdentitySnapshot(Path path, MappedRegion region, long identities, long slots, long tableStart) {
+    this.path = path;
+    this.region = region;
+    this.identities = identities;
+    this.mask = slots - 1;
+    this.tableStart = tableStart;
+  }
+
+  public static IdentitySnapshot open(Path path) throws IOException {
+    try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = ch.size();
+      if (size < HEADER) throw new IOException(path + " is not an identity snapshot (" + size + " bytes)");
+      MappedRegion region = new MappedRegion(ch, size, FileChannel.MapMode.READ_ONLY);
+      long magic = region.getLong(0);
+      if (magic != MAGIC) throw new IOException(path + " is not an identity snapshot (bad magic)");
+      long identities = region.getLong(8);
+      long slots = region.getLong(16);
+      long tableStart = region.getLong(24);
+      long length = region.getLong(32);
+      if (length != size || Long.bitCount(slots) != 1 || tableStart < HEADER || tableStart + slots * 8 != size
+          || identities > slots / 2) {
+        throw new IOException(path + " is truncated or corrupt (header says " + length + " bytes, "
+            + slots + " slots at " + tableStart + ", file has " + size + ")");
+      }
+      return new IdentitySnapshot(path, region, identities, slots, tableStart);
+    }
+  }
+
+  public Path path() {
+    return path;
+  }
+
+  public long size() {
+    return identities;
+  }
+
+  /**
+   * The identity registered under {@code customerId}, or {@code null}. The probe visits each slot
+   * at most once, so even a corrupt table without an empty slot ends; a slot pointing outside the
+   * records throws.
+   */
+  public Identity find(String customerId) {
+    if (customerId == null) return null;
+    byte[] key = customerId.getBytes(StandardCharsets.UTF_8);
+    long h = hash(key);
+    long tag = h >>> TAG_SHIFT;
+    long i = h & mask;
+    for (long probes = 0; probes <= mask; probes++, i = (i + 1) & mask) {
+      long slot = region.getLong(tableStart + (i << 3));
+      if (slot == 0) return null;
+      if (slot >>> TAG_SHIFT == tag) {
+        long pos = slot & POSITION_MASK;
+        if (pos < HEADER || pos >= tableStart) {
+          throw new IllegalStateException(path + " is corrupt: slot " + i + " points at " + pos
+              + ", outside the records at " + HEADER + ".." + tableStart);
+        }
+        if (region.getUnsignedShort(pos) == key.length && region.equalsAt(pos + 2, key)) return read(pos);
+      }
+    }
+    return null;
+  }
+
+  private Identity read(long pos) {
+    String customerId = string(pos);
+    pos += 2 + region.getUnsignedShort(pos);
+    String fullName = string(pos);
+    pos += 2 + region.getUnsignedShort(pos);
+    String policyNumber = string(pos);
+    pos += 2 + region.getUnsignedShort(pos);
+    var name = new NameFeatures(region.getLong(pos), region.getLong(pos + 8), region.getLong(pos + 16));
+    return new Identity(customerId, fullName, policyNumber, name);
+  }
+
+  private String string(long pos) {
+    return new String(region.getBytes(pos + 2, region.getUnsignedShort(pos)), StandardCharsets.UTF_8);
+  }
+
+  // FNV-1a, then the murmur3 finalizer so the low bits (the slot) and top bits (the tag) are both well mixed
+  static long hash(byte[] key) {
+    long h = 0xcbf29ce484222325L;
+    for (byte b : key) {
+      h ^= b & 0xFF;
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
@@ -0,0 +1,136 @@
+package com.demo.insurance.identitysoap.registry;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Builds an {@link IdentitySnapshot} file from a roster export, one
+ * {@code customerId,policyNumber,fullName} line per customer (the name comes last so it may contain
+ * commas; a leading header line is skipped). A customerId listed twice keeps its last line. The
+ * {@link NameFeatures} of every name are computed here, once, rather than per verification.
+ *
+ * <p>Records are streamed to disk in one pass, then the index is built in the mapped table region
+ * from the records just written, so memory use does not grow with the roster. The file is written
+ * under a temporary name and renamed into place, so a running registry never sees it half written.
+ *
+ * <p>Usage: {@code java -cp identity-soap/target/classes
+ * com.demo.insurance.identitysoap.registry.IdentitySnapshotWriter roster.csv|- registry.snap}
+ */
+public final class IdentitySnapshotWriter {
+
+  public record Stats(long identities, long duplicates, long bytes) {}
+
+  private IdentitySnapshotWriter() {}
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("usage: IdentitySnapshotWriter <roster.csv|-> <snapshot>");
+      System.exit(2);
+    }
+    long t0 = System.nanoTime();
+    Stats stats;
+    try (BufferedReader in = new BufferedReader("-".equals(args[0])
+        ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+        : Files.newBufferedReader(Path.of(args[0]), StandardCharsets.UTF_8), 1 << 16)) {
+      stats = write(in, Path.of(args[1]));
+    }
+    System.out.printf("[registry] wrote %d identities (%d duplicate rows replaced), %d MB, to %s in %d ms%n",
+        stats.identities(), stats.duplicates(), stats.bytes() >> 20, args[1], (System.nanoTime() - t0) / 1_000_000);
+  }
+
+  public static Stats write(BufferedReader in, Path out) throws IOException {
+    Path tmp = out.resolveSibling(out.getFileName() + ".tmp");
+    Stats stats;
+    try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      ch.position(IdentitySnapshot.HEADER);
+      var records = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(ch), 1 << 20));
+      long rows = 0;
+      long written = 0;
+      long lineNo = 0;
+      String line;
+      while ((line = in.readLine()) != null) {
+        lineNo++;
+        if (line.isBlank() || (lineNo == 1 && line.startsWith("customerId,"))) continue;
+        String[] f = line.split(",", 3);
+        if (f.length != 3 || f[0].isBlank()) {
+          throw new IOException("line " + lineNo + ": expected customerId,policyNumber,fullName");
+        }
+        written += writeField(records, f[0].trim(), lineNo)
+            + writeField(records, f[2].trim(), lineNo)
+            + writeField(records, f[1].trim(), lineNo);
+        NameFeatures name = NameFeatures.of(f[2]);
+        records.writeLong(name.gramsHi());
+        records.writeLong(name.gramsLo());
+        records.writeLong(name.phonetic());
+        written += IdentitySnapshot.FEATURES;
+        rows++;
+      }
+      records.flush();
+      long recordsEnd = IdentitySnapshot.HEADER + written;
+      if (recordsEnd > IdentitySnapshot.POSITION_MASK) throw new IOException("roster too large: " + recordsEnd + " bytes");
+
+      long slots = Long.highestOneBit(Math.max(8, rows) * 2 - 1) << 1;
+      long tableStart = (recordsEnd + 7) & ~7L;
+      long length = tableStart + slots * 8;
+      MappedRegion region = new MappedRegion(ch, length, FileChannel.MapMode.READ_WRITE);
+      // mapping grows the file, but the spec leaves the new bytes undefined
+      for (long p = tableStart; p < length; p += 8) region.putLong(p, 0);
+      long mask = slots - 1;
+      long identities = 0;
+      long duplicates = 0;
+      for (long pos = IdentitySnapshot.HEADER; pos < recordsEnd; ) {
+        int idLength = region.getUnsignedShort(pos);
+        byte[] key = region.getBytes(pos + 2, idLength);
+        long h = IdentitySnapshot.hash(key);
+        long tag = h >>> IdentitySnapshot.TAG_SHIFT;
+        for (long i = h & mask; ; i = (i + 1) & mask) {
+          long slotPos = tableStart + (i << 3);
+          long slot = region.getLong(slotPos);
+          if (slot == 0) {
+            identities++;
+          } else if (slot >>> IdentitySnapshot.TAG_SHIFT != tag || !sameKey(region, slot & IdentitySnapshot.POSITION_MASK, key)) {
+            continue;
+          } else {
+            duplicates++;
+          }
+          region.putLong(slotPos, tag << IdentitySnapshot.TAG_SHIFT | pos);
+          break;
+        }
+        long name = pos + 2 + idLength;
+        long policy = name + 2 + region.getUnsignedShort(name);
+        pos = policy + 2 + region.getUnsignedShort(policy) + IdentitySnapshot.FEATURES;
+      }
+
+      region.putLong(0, IdentitySnapshot.MAGIC);
+      region.putLong(8, identities);
+      region.putLong(16, slots);
+      region.putLong(24, tableStart);
+      region.putLong(32, length);
+      region.force();
+      stats = new Stats(identities, duplicates, length);
+    }
+    Files.move(tmp, out, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    return stats;
+  }
+
+  private static boolean sameKey(MappedRegion region, long pos, byte[] key) {
+    return region.getUnsignedShort(pos) == key.length && region.equalsAt(pos + 2, key);
+  }
+
+  private static int writeField(DataOutputStream out, String value, long lineNo) throws IOException {
+    byte[] b = value.getBytes(StandardCharsets.UTF_8);
+    if (b.length > IdentitySnapshot.MAX_FIELD) {
+      throw new IOException("line " + lineNo + ": field longer than " + IdentitySnapshot.MAX_FIELD + " bytes");
+    }
+    out.writeShort(b.length);
+    out.write(b);
+    return 2 + b.length;
+  }
+}
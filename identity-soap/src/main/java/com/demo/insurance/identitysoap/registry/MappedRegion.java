@@ -0,0 +1,74 @@
+package com.demo.insurance.identitysoap.registry;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A file mapped into memory as a sequence of 1 GiB buffers, addressed with {@code long}
+ * positions. Each buffer overlaps the next by {@link #MAX_READ} bytes, so any read of up to that
+ * many bytes is served by the buffer its first byte falls in. Reads use absolute positions only and
+ * are safe from any number of threads.
+ */
+final class MappedRegion {
+
+  static final int MAX_READ = 1 << 16;
+  private static final int CHUNK_BITS = 30;
+  private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+  private final MappedByteBuffer[] chunks;
+  private final long size;
+
+  MappedRegion(FileChannel channel, long size, FileChannel.MapMode mode) throws IOException {
+    this.size = size;
+    this.chunks = new MappedByteBuffer[(int) ((size + CHUNK_MASK) >>> CHUNK_BITS)];
+    for (int i = 0; i < chunks.length; i++) {
+      long start = (long) i << CHUNK_BITS;
+      chunks[i] = channel.map(mode, start, Math.min(CHUNK_MASK + 1 + MAX_READ, size - start));
+    }
+  }
+
+  long size() {
+    return size;
+  }
+
+  long getLong(long pos) {
+    return chunk(pos).getLong(offset(pos));
+  }
+
+  void putLong(long pos, long value) {
+    chunk(pos).putLong(offset(pos), value);
+  }
+
+  int getUnsignedShort(long pos) {
+    return chunk(pos).getShort(offset(pos)) & 0xFFFF;
+  }
+
+  byte[] getBytes(long pos, int length) {
+    byte[] dst = new byte[length];
+    chunk(pos).get(offset(pos), dst);
+    return dst;
+  }
+
+  /** Whether the {@code key.length} bytes at {@code pos} equal {@code key}. */
+  boolean equalsAt(long pos, byte[] key) {
+    MappedByteBuffer b = chunk(pos);
+    int at = offset(pos);
+    for (int i = 0; i < key.length; i++) {
+      if (b.get(at + i) != key[i]) return false;
+    }
+    return true;
+  }
+
+  void force() {
+    for (MappedByteBuffer b : chunks) b.force();
+  }
+
+  private MappedByteBuffer chunk(long pos) {
+    return chunks[(int) (pos >>> CHUNK_BITS)];
+  }
+
+  private static int offset(long pos) {
+    return (int) (pos & CHUNK_MASK);
+  }
+}
@@ -0,0 +1,126 @@
+package com.demo.insurance.identitysoap.registry;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * What name matching needs of a full name, in 24 bytes: the Soundex codes of its first four words
+ * and a 128-bit signature of its first 40 character trigrams. The snapshot stores them for every
+ * registered name, so comparing a caller's spelling with it costs a few bit operations rather than
+ * an edit distance, however long the names. Both parts ignore case, accents, punctuation and word
+ * order. Being a lossy summary, they cannot tell whether two names are the same; {@link #sameWords}
+ * can.
+ *
+ * @param gramsHi  upper half of the trigram signature
+ * @param gramsLo  lower half of the trigram signature
+ * @param phonetic up to four 16-bit Soundex codes, 0 for an unused one
+ */
+public record NameFeatures(long gramsHi, long gramsLo, long phonetic) {
+
+  // longest name considered, so a query's cost stays bounded whatever the caller sends
+  static final int MAX_NAME = 128;
+  private static final int MAX_WORDS = 4;
+  // trigrams set in the signature; more would fill its 128 bits until unrelated names share most of them
+  private static final int MAX_GRAMS = 40;
+  // per letter: b f p v w 1, c g j k q s x z 2, d t 3, l 4, m n 5, r 6, vowels and h 0 (h is skipped)
+  private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+  private static final Pattern NON_LETTERS = Pattern.compile("[^a-z]+");
+  private static final String SOUNDEX = "01230120022455012623011202";
+
+  public static NameFeatures of(String name) {
+    String[] words = words(name);
+    long hi = 0, lo = 0, phonetic = 0;
+    int coded = 0, grams = 0;
+    for (String w : words) {
+      String padded = "^" + w + "$";
+      for (int i = 0; i + 3 <= padded.length() && grams < MAX_GRAMS; i++, grams++) {
+        int bit = gramBit(padded.charAt(i), padded.charAt(i + 1), padded.charAt(i + 2));
+        if (bit < 64) lo |= 1L << bit;
+        else hi |= 1L << (bit - 64);
+      }
+      if (coded < MAX_WORDS) {
+        int code = soundex(w);
+        if (!hasCode(phonetic, code)) phonetic |= (long) code << (16 * coded++);
+      }
+    }
+    return new NameFeatures(hi, lo, phonetic);
+  }
+
+  /**
+   * How well {@code other} matches this name, from 0 to 100: the mean of the Dice coefficient of
+   * the trigram signatures and the share of Soundex codes the two names have in common. The same
+   * words up to case, accents, punctuation and order score 100, but so may names that only share
+   * their features (a repeated word, a fifth word, a signature collision).
+   */
+  public int score(NameFeatures other) {
+    int a = Long.bitCount(gramsHi) + Long.bitCount(gramsLo);
+    int b = Long.bitCount(other.gramsHi) + Long.bitCount(other.gramsLo);
+    if (a == 0 || b == 0) return 0;
+    int common = Long.bitCount(gramsHi & other.gramsHi) + Long.bitCount(gramsLo & other.gramsLo);
+    double dice = 2.0 * common / (a + b);
+
+    int mine = 0, theirs = 0, shared = 0;
+    for (int i = 0; i < MAX_WORDS; i++) {
+      int code = (int) (phonetic >>> (16 * i)) & 0xFFFF;
+      if (code != 0) {
+        mine++;
+        if (hasCode(other.phonetic, code)) shared++;
+      }
+      if ((other.phonetic >>> (16 * i) & 0xFFFF) != 0) theirs++;
+    }
+    double sounds = Math.max(mine, theirs) == 0 ? 0 : (double) shared / Math.max(mine, theirs);
+    return (int) Math.round(50 * (dice + sounds));
+  }
+
+  /** Whether both names have the same words, up to case, accents, punctuation and order. */
+  public static boolean sameWords(String a, String b) {
+    String[] x = words(a), y = words(b);
+    if (x.length == 0 || x.length != y.length) return false;
+    Arrays.sort(x);
+    Arrays.sort(y);
+    return Arrays.equals(x, y);
+  }
+
+  // lower-case ASCII letters only: accents stripped, everything else separates words
+  static String[] words(String name) {
+    if (name == null) return new String[0];
+    String s = name.length() > MAX_NAME ? name.substring(0, MAX_NAME) : name;
+    s = MARKS.matcher(Normalizer.normalize(s, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    s = NON_LETTERS.matcher(s).replaceAll(" ").trim();
+    return s.isEmpty() ? new String[0] : s.split(" ");
+  }
+
+  /**
+   * Soundex with two changes for names: the first letter is kept as its sound class rather than
+   * literally, so Katherine and Catherine agree, and w sounds like v (Nowak, Novak). The class
+   * plus one sits in the top bits, then three digits of 3 bits each.
+   */
+  private static int soundex(String word) {
+    int last = SOUNDEX.charAt(word.charAt(0) - 'a') - '0';
+    int code = (last + 1) << 9;
+    int digits = 0;
+    for (int i = 1; i < word.length() && digits < 3; i++) {
+      char c = word.charAt(i);
+      if (c == 'h') continue;
+      int d = SOUNDEX.charAt(c - 'a') - '0';
+      if (d != 0 && d != last) code |= d << (3 * (2 - digits++));
+      last = d;
+    }
+    return code;
+  }
+
+  private static boolean hasCode(long phonetic, int code) {
+    for (int i = 0; i < MAX_WORDS; i++) {
+      if ((phonetic >>> (16 * i) & 0xFFFF) == code) return true;
+    }
+    return false;
+  }
+
+  private static int gramBit(char a, char b, char c) {
+    int h = (a * 31 + b) * 31 + c;
+    h *= 0x9E3779B1;
+    return h >>> 25;
+  }
+}
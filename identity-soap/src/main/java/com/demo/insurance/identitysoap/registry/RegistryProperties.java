@@ -0,0 +1,25 @@
+package com.demo.insurance.identitysoap.registry;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "identity.registry")
+public class RegistryProperties {
+
+  // snapshot written by IdentitySnapshotWriter; empty = no roster, verifyIdentity keeps its simulation rule
+  private String snapshot = "";
+  // how often the snapshot file is checked for a replacement; 0 = load once
+  private int reloadSeconds = 30;
+  // a fullName scoring at least this (0-100) against the registered one still verifies, as NAME_FUZZY_MATCH
+  private int minNameScore = 60;
+
+  public String getSnapshot() { return snapshot; }
+  public void setSnapshot(String snapshot) { this.snapshot = snapshot; }
+
+  public int getReloadSeconds() { return reloadSeconds; }
+  public void setReloadSeconds(int reloadSeconds) { this.reloadSeconds = reloadSeconds; }
+
+  public int getMinNameScore() { return minNameScore; }
+  public void setMinNameScore(int minNameScore) { this.minNameScore = minNameScore; }
+}
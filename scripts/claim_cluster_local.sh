@@ -0,0 +1,40 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+# Starts N claim-rest nodes on one machine (ports 8081, 8082, ...) as one hash-partitioned cluster.
+# Usage: scripts/claim_cluster_local.sh [nodes]    Ctrl-C stops all of them.
+
+N=${1:-3}
+BASE_PORT=8081
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+
+NODES=""
+for i in $(seq 0 $((N - 1))); do
+  NODES="${NODES:+$NODES,}http://localhost:$((BASE_PORT + i))"
+done
+
+cd "$ROOT/claim-rest"
+mvn -q -DskipTests compile
+
+PIDS=()
+trap 'kill "${PIDS[@]}" 2>/dev/null || true' EXIT INT TERM
+
+for i in $(seq 0 $((N - 1))); do
+  PORT=$((BASE_PORT + i))
+  mkdir -p "data/node-$i"
+  mvn -q spring-boot:run -Dspring-boot.run.arguments="\
+--server.port=$PORT \
+--claims.store.journal.data-dir=data/node-$i \
+--claims.cluster.enabled=true \
+--claims.cluster.self=http://localhost:$PORT \
+--claims.cluster.nodes=$NODES" > "data/node-$i/node.log" 2>&1 &
+  PIDS+=($!)
+  echo "node $i -> http://localhost:$PORT (log: claim-rest/data/node-$i/node.log)"
+done
+
+for i in $(seq 0 $((N - 1))); do
+  PORT=$((BASE_PORT + i))
+  until curl -s "http://localhost:$PORT/health" >/dev/null; do sleep 1; done
+done
+echo "== cluster up: $NODES =="
+wait
@@ -0,0 +1,83 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+# claim-rest under many concurrent clients: Tomcat's platform thread pool vs one virtual thread per
+# request. Status updates wait for the journal group commit, so in-flight requests are mostly parked.
+# Usage: scripts/claim_load_test.sh [requests] [concurrency]
+# Virtual mode needs a JDK 21: JAVA21_HOME defaults to JAVA_HOME, and the run is skipped below 21.
+# When a JDK 21 is found both modes run on it, so only the thread model differs.
+
+N=${1:-40000}
+CONCURRENCY=${2:-800}
+CLIENTS=${CLIENTS:-8}
+PORT=${PORT:-18091}
+BASE="http://localhost:$PORT"
+JAVA21_HOME=${JAVA21_HOME:-${JAVA_HOME:-}}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+WORK=$(mktemp -d)
+trap 'kill "${APP:-}" 2>/dev/null || true; rm -rf "$WORK"' EXIT
+
+cd "$ROOT/claim-rest"
+
+for i in $(seq 1 2000); do
+  printf '{"customerId":"C-%d","fullName":"Load %d","policyNumber":"P-%d","claimType":"ACCIDENT","claimedAmount":%d.50,"description":"load"}\n' \
+    $((i % 500)) "$i" $((i % 50)) $((i % 5000))
+done > "$WORK/claims.ndjson"
+
+now_ms() { date +%s%3N; }
+
+# CLIENTS curl processes, each keeping CONCURRENCY/CLIENTS requests open; one latency per line
+load() {
+  local per=$((CONCURRENCY / CLIENTS)) c pids=()
+  for c in $(seq 0 $((CLIENTS - 1))); do
+    awk -v c="$c" -v k="$CLIENTS" -v base="$BASE" 'NR % k == c { print "url = " base $0; print "output = /dev/null" }' "$WORK/paths" |
+      curl -s --no-progress-meter -Z --parallel-max "$per" -K - -w '%{http_code} %{time_total}\n' \
+        "$@" > "$WORK/lat.$c" 2>/dev/null &
+    pids+=($!)
+  done
+  wait "${pids[@]}"
+}
+
+report() {
+  local name=$1 ms=$2
+  cat "$WORK"/lat.* | sort -k2 -g | awk -v name="$name" -v ms="$ms" '
+    { n++; if ($1 !~ /^2/) err++; t[n] = $2 * 1000 }
+    END {
+      printf "%-9s %8d req in %6d ms = %8.0f req/s  p50 %7.1f ms  p99 %7.1f ms  max %7.1f ms  errors %d\n",
+        name, n, ms, n * 1000 / (ms > 0 ? ms : 1), t[int(n * 0.50)], t[int(n * 0.99)], t[n], err
+    }'
+  rm -f "$WORK"/lat.*
+}
+
+run() {
+  local name=$1 home=$2; shift 2
+  rm -rf "$WORK/journal"
+  JAVA_HOME=$home mvn -q clean spring-boot:run -Dspring-boot.run.arguments="--server.port=$PORT --claims.admission.enabled=false --claims.store.journal.data-dir=$WORK/journal" \
+    "$@" > "$WORK/$name.log" 2>&1 &
+  APP=$!
+  until curl -s "$BASE/health" > /dev/null; do sleep 1; done
+
+  curl -s -X POST "$BASE/claims:batch" -H 'Content-Type: application/x-ndjson' --data-binary @"$WORK/claims.ndjson" > /dev/null
+  curl -s "$BASE/claims?limit=1000" | grep -o '"id":"[^"]*"' | cut -d'"' -f4 > "$WORK/ids"
+  # a short warm-up so both modes are measured with a compiled hot path
+  sed 's#^#/claims/#' "$WORK/ids" > "$WORK/paths"
+  load; rm -f "$WORK"/lat.*
+
+  awk -v n="$N" '{ id[NR] = $0 } END { for (i = 0; i < n; i++) print "/claims/" id[i % NR + 1] "/status" }' "$WORK/ids" > "$WORK/paths"
+  local t0 t1
+  t0=$(now_ms)
+  load -X POST -H 'Content-Type: application/json' -d '{"status":"IN_REVIEW","message":"load"}'
+  t1=$(now_ms); report "$name" $((t1 - t0))
+
+  kill "$APP"; wait "$APP" 2>/dev/null || true
+  APP=
+}
+
+echo "== $N status updates, $CONCURRENCY concurrent =="
+if [ -n "$JAVA21_HOME" ] && "$JAVA21_HOME/bin/java" -version 2>&1 | grep -qE 'version "(2[1-9]|[3-9][0-9])'; then
+  run platform "$JAVA21_HOME"
+  run virtual "$JAVA21_HOME" -Pjava21
+else
+  run platform "${JAVA_HOME:-}"
+  echo "virtual   skipped: set JAVA21_HOME to a JDK 21"
+fi
@@ -0,0 +1,77 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+# Throughput of the claim-rest storage backends: in-memory + journal (HEAP) vs JDBC.
+# Usage: scripts/claim_store_bench.sh [claims] [concurrency]
+# JDBC runs against embedded H2 unless JDBC_URL/JDBC_USER/JDBC_PASSWORD point elsewhere, e.g.
+#   docker compose -f docker-compose.infra.yml up -d postgres
+#   JDBC_URL=jdbc:postgresql://localhost:5432/insurance JDBC_USER=insurance JDBC_PASSWORD=insurance scripts/claim_store_bench.sh
+
+N=${1:-20000}
+CONCURRENCY=${2:-16}
+SINGLE=$((N / 10))
+PORT=${PORT:-18090}
+BASE="http://localhost:$PORT"
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+WORK=$(mktemp -d)
+trap 'kill "${APP:-}" 2>/dev/null || true; rm -rf "$WORK"' EXIT
+
+cd "$ROOT/claim-rest"
+mvn -q -DskipTests compile
+
+for i in $(seq 1 "$N"); do
+  printf '{"customerId":"C-%d","fullName":"Bench %d","policyNumber":"P-%d","claimType":"ACCIDENT","claimedAmount":%d.50,"description":"bench"}\n' \
+    $((i % 500)) "$i" $((i % 50)) $((i % 5000))
+done > "$WORK/claims.ndjson"
+printf '{"customerId":"C-1","fullName":"Bench","policyNumber":"P-1","claimType":"THEFT","claimedAmount":10}' > "$WORK/one.json"
+
+# many requests from one curl process over reused connections; urls come from a config file
+burst() { curl -s --no-progress-meter -Z --parallel-max "$CONCURRENCY" "$@" > /dev/null 2>&1; }
+urls() { sed "s#^#url = $BASE#" "$1"; }
+
+rate() { awk -v n="$1" -v ms="$2" 'BEGIN { printf "%8d ops in %6d ms = %8.0f ops/s\n", n, ms, n * 1000 / (ms > 0 ? ms : 1) }'; }
+now_ms() { date +%s%3N; }
+
+run() {
+  local name=$1; shift
+  # admission control would cap the very load this measures
+  mvn -q spring-boot:run -Dspring-boot.run.arguments="--server.port=$PORT --claims.admission.enabled=false $*" > "$WORK/$name.log" 2>&1 &
+  APP=$!
+  until curl -s "$BASE/health" > /dev/null; do sleep 1; done
+
+  echo "== $name =="
+  local t0 t1
+  t0=$(now_ms)
+  curl -s -X POST "$BASE/claims:batch" -H 'Content-Type: application/x-ndjson' --data-binary @"$WORK/claims.ndjson" > /dev/null
+  t1=$(now_ms); printf "batch insert  "; rate "$N" $((t1 - t0))
+
+  seq "$SINGLE" | sed 's#.*#/claims#' > "$WORK/paths"
+  t0=$(now_ms)
+  urls "$WORK/paths" | burst -K - -X POST -H 'Content-Type: application/json' --data-binary @"$WORK/one.json"
+  t1=$(now_ms); printf "single insert "; rate "$SINGLE" $((t1 - t0))
+
+  curl -s "$BASE/claims?limit=1000" | grep -o '"id":"[^"]*"' | cut -d'"' -f4 > "$WORK/ids"
+  local n; n=$(wc -l < "$WORK/ids")
+  sed 's#^#/claims/#; s#$#/status#' "$WORK/ids" > "$WORK/paths"
+  t0=$(now_ms)
+  urls "$WORK/paths" | burst -K - -X POST -H 'Content-Type: application/json' -d '{"status":"IN_REVIEW","message":"bench"}'
+  t1=$(now_ms); printf "status update "; rate "$n" $((t1 - t0))
+
+  sed 's#^#/claims/#' "$WORK/ids" > "$WORK/paths"
+  t0=$(now_ms)
+  urls "$WORK/paths" | burst -K -
+  t1=$(now_ms); printf "get by id     "; rate "$n" $((t1 - t0))
+
+  kill "$APP"; wait "$APP" 2>/dev/null || true
+  APP=
+}
+
+run heap-journal \
+  --claims.store.mode=HEAP \
+  --claims.store.journal.data-dir="$WORK/journal"
+
+run jdbc \
+  --claims.store.mode=JDBC \
+  --claims.store.jdbc.url="${JDBC_URL:-jdbc:h2:file:$WORK/h2/claims;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;WRITE_DELAY=0}" \
+  --claims.store.jdbc.username="${JDBC_USER:-sa}" \
+  --claims.store.jdbc.password="${JDBC_PASSWORD:-}"
@@ -0,0 +1,92 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+# identity-soap throughput as the server gets more cores. The server is pinned to the first C cores
+# (taskset) for each C in CORES; the curl clients run on the remaining ones when there are any left.
+# A run with a single worker thread on the largest C shows the old one-thread-per-server behaviour.
+# Usage: scripts/identity_load_test.sh [requests] [concurrency]
+#   CORES="1 2 4" (default: powers of two up to half the machine), EXECUTOR=PLATFORM|VIRTUAL
+
+N=${1:-20000}
+CONCURRENCY=${2:-64}
+CLIENTS=${CLIENTS:-4}
+PORT=${PORT:-18092}
+EXECUTOR=${EXECUTOR:-PLATFORM}
+URL="http://localhost:$PORT/ws/identity"
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+WORK=$(mktemp -d)
+trap 'kill "${APP:-}" 2>/dev/null || true; rm -rf "$WORK"' EXIT
+
+NPROC=$(nproc)
+if [ -z "${CORES:-}" ]; then
+  CORES=1
+  c=2
+  while [ $((c * 2)) -le "$NPROC" ]; do CORES="$CORES $c"; c=$((c * 2)); done
+fi
+
+cat > "$WORK/request.xml" <<'EOF'
+<soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/" xmlns:ids="http://identitysoap.insurance.demo.com/">
+  <soapenv:Body>
+    <ids:verifyIdentity><customerId>C-1</customerId><fullName>Load Test</fullName><policyNumber>P-1</policyNumber></ids:verifyIdentity>
+  </soapenv:Body>
+</soapenv:Envelope>
+EOF
+
+now_ms() { date +%s%3N; }
+
+# CLIENTS curl processes, each keeping CONCURRENCY/CLIENTS requests open; one latency per line
+load() {
+  local n=$1 pin=$2 per=$((CONCURRENCY / CLIENTS)) c pids=()
+  for c in $(seq 0 $((CLIENTS - 1))); do
+    awk -v n="$n" -v c="$c" -v k="$CLIENTS" -v url="$URL" 'BEGIN { for (i = c; i < n; i += k) { print "url = " url; print "output = /dev/null" } }' |
+      $pin curl -s --no-progress-meter -Z --parallel-max "$per" -K - -w '%{http_code} %{time_total}\n' \
+        -H 'Content-Type: text/xml; charset=utf-8' --data-binary @"$WORK/request.xml" > "$WORK/lat.$c" 2>/dev/null &
+    pids+=($!)
+  done
+  wait "${pids[@]}"
+}
+
+report() {
+  local name=$1 ms=$2
+  cat "$WORK"/lat.* | sort -k2 -g | awk -v name="$name" -v ms="$ms" '
+    { n++; if ($1 !~ /^2/) err++; t[n] = $2 * 1000 }
+    END {
+      printf "%-22s %7d req in %6d ms = %7.0f req/s  p50 %6.1f ms  p99 %6.1f ms  errors %d\n",
+        name, n, ms, n * 1000 / (ms > 0 ? ms : 1), t[int(n * 0.50)], t[int(n * 0.99)], err
+    }'
+  rm -f "$WORK"/lat.*
+}
+
+run() {
+  local name=$1 cores=$2 threads=$3
+  local server="taskset -c 0-$((cores - 1))" clients=""
+  [ "$cores" -lt "$NPROC" ] && clients="taskset -c $cores-$((NPROC - 1))"
+  $server mvn -q spring-boot:run \
+    -Dspring-boot.run.jvmArguments="-XX:ActiveProcessorCount=$cores" \
+    -Dspring-boot.run.arguments="--identity.soap.port=$PORT --identity.soap.executor=$EXECUTOR --identity.soap.threads=$threads" \
+    > "$WORK/$name.log" 2>&1 &
+  APP=$!
+  until curl -s "http://localhost:$PORT/metrics" > /dev/null; do sleep 1; done
+
+  # warm-up, so every run is measured with a compiled hot path
+  load $((N / 4)) "$clients"; rm -f "$WORK"/lat.*
+  local t0 t1
+  t0=$(now_ms)
+  load "$N" "$clients"
+  t1=$(now_ms); report "$name" $((t1 - t0))
+  curl -s "http://localhost:$PORT/metrics" | grep -E '^identity_soap_latency_seconds(\{quantile="0.99"|_max )' | sed 's/^/    server /'
+
+  kill "$APP"; wait "$APP" 2>/dev/null || true
+  APP=
+}
+
+cd "$ROOT/identity-soap"
+mvn -q compile
+
+echo "== $N verifyIdentity calls, $CONCURRENCY concurrent, executor $EXECUTOR, $NPROC cores on this machine =="
+last=1
+for c in $CORES; do
+  run "$c core(s)" "$c" 0
+  last=$c
+done
+run "$last core(s), 1 thread" "$last" 1
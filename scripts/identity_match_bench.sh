@@ -0,0 +1,79 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+# Fuzzy name matching throughput of identity-soap against a generated roster of N customers.
+# A third of the queries spell the registered name exactly, a third with a typo (two letters
+# swapped, one dropped or one doubled) and a third give another customer's name. They are sent as
+# verifyIdentities batches from CONCURRENCY clients.
+# Usage: scripts/identity_match_bench.sh [names] [queries]   (BATCH=1000 CONCURRENCY=4)
+
+N=${1:-10000000}
+Q=${2:-200000}
+BATCH=${BATCH:-1000}
+CONCURRENCY=${CONCURRENCY:-4}
+PORT=${PORT:-18093}
+URL="http://localhost:$PORT/ws/identity"
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+WORK=$(mktemp -d)
+trap 'kill "${APP:-}" 2>/dev/null || true; rm -rf "$WORK"' EXIT
+
+now_ms() { date +%s%3N; }
+
+echo "== roster of $N names =="
+awk -v n="$N" 'BEGIN {
+  split("an be ca da el fa ga hu in jo ka le ma no om pa ri sa te vi", s, " ")
+  split("son ez ski er i ov ano ard", end, " ")
+  srand(7)
+  for (i = 1; i <= n; i++) {
+    f = s[1 + int(rand() * 20)] s[1 + int(rand() * 20)]
+    if (rand() < 0.5) f = f s[1 + int(rand() * 20)]
+    l = s[1 + int(rand() * 20)] s[1 + int(rand() * 20)] s[1 + int(rand() * 20)] end[1 + int(rand() * 8)]
+    printf "CUST-%d,P-%d,%s %s\n", i, 100000 + i, toupper(substr(f, 1, 1)) substr(f, 2), toupper(substr(l, 1, 1)) substr(l, 2)
+  }
+}' > "$WORK/roster.csv"
+"$ROOT/scripts/identity_snapshot.sh" "$WORK/roster.csv" "$WORK/roster.snap"
+
+# queries as "customerId,policyNumber,fullName", one SOAP body per BATCH of them
+shuf -n "$Q" --random-source=<(yes) "$WORK/roster.csv" | awk -F, -v batch="$BATCH" -v dir="$WORK" '
+  function typo(name,   i, k) {
+    i = 2 + int(rand() * (length(name) - 2)); k = int(rand() * 3)
+    if (k == 0) return substr(name, 1, i - 1) substr(name, i + 1, 1) substr(name, i, 1) substr(name, i + 2)
+    if (k == 1) return substr(name, 1, i - 1) substr(name, i + 1)
+    return substr(name, 1, i) substr(name, i)
+  }
+  BEGIN { srand(11) }
+  {
+    name = $3
+    if (NR % 3 == 1) name = typo(name)
+    else if (NR % 3 == 2) name = (prev == "" ? "Nobody Known" : prev)
+    prev = $3
+    if ((NR - 1) % batch == 0) {
+      if (out) { print "</ids:verifyIdentities></soapenv:Body></soapenv:Envelope>" > out; close(out) }
+      out = sprintf("%s/batch.%06d.xml", dir, ++b)
+      print "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\" xmlns:ids=\"http://identitysoap.insurance.demo.com/\"><soapenv:Body><ids:verifyIdentities>" > out
+    }
+    printf "<entry><customerId>%s</customerId><fullName>%s</fullName><policyNumber>%s</policyNumber></entry>\n", $1, name, $2 > out
+  }
+  END { if (out) print "</ids:verifyIdentities></soapenv:Body></soapenv:Envelope>" > out }'
+
+cd "$ROOT/identity-soap"
+mvn -q spring-boot:run -Dspring-boot.run.arguments="--identity.soap.port=$PORT --identity.registry.snapshot=$WORK/roster.snap" \
+  > "$WORK/server.log" 2>&1 &
+APP=$!
+until curl -s "http://localhost:$PORT/metrics" > /dev/null; do sleep 1; done
+grep '\[registry\]' "$WORK/server.log"
+
+send() {
+  ls "$WORK"/batch.*.xml | xargs -P "$CONCURRENCY" -I{} \
+    curl -s -H 'Content-Type: text/xml; charset=utf-8' --data-binary @{} -o {}.out "$URL"
+}
+
+send # warm-up
+t0=$(now_ms)
+send
+t1=$(now_ms)
+echo "== $Q queries in batches of $BATCH from $CONCURRENCY clients against $N names =="
+awk -v q="$Q" -v ms=$((t1 - t0)) 'BEGIN { printf "%d queries in %d ms = %.0f queries/s\n", q, ms, q * 1000 / (ms > 0 ? ms : 1) }'
+cat "$WORK"/batch.*.out | grep -o '<reason>[A-Z_]*</reason><score>[0-9]*' | sed 's/<[a-z]*>//g; s#</reason># #' |
+  awk '{ n[$1]++; s[$1] += $2 } END { for (r in n) printf "  %-20s %7d  mean score %5.1f\n", r, n[r], s[r] / n[r] }'
+curl -s "http://localhost:$PORT/metrics" | grep -E '^identity_soap_latency_seconds(\{quantile="0.99"|_max )' | sed 's/^/  per batch, server /'
@@ -0,0 +1,29 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+# Builds the identity-soap customer roster snapshot (identity.registry.snapshot) from a CSV export,
+# one customerId,policyNumber,fullName line per customer.
+# Usage: scripts/identity_snapshot.sh <roster.csv|-> <snapshot>
+#        SYNTHETIC=1000000 scripts/identity_snapshot.sh - <snapshot>   (generated roster CUST-1..N)
+# Replacing the file under a running identity-soap swaps the new roster in within reload-seconds.
+
+if [ $# -ne 2 ]; then
+  echo "usage: $0 <roster.csv|-> <snapshot>" >&2
+  exit 2
+fi
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+(cd "$ROOT/identity-soap" && mvn -q compile)
+
+writer() {
+  java -cp "$ROOT/identity-soap/target/classes" com.demo.insurance.identitysoap.registry.IdentitySnapshotWriter "$@"
+}
+
+if [ -n "${SYNTHETIC:-}" ]; then
+  awk -v n="$SYNTHETIC" 'BEGIN {
+    split("Anna Ben Carla David Elena Farid Greta Hugo Ines Jonas Karim Lena Marco Nora Omar Paula", first, " ")
+    split("Rossi Meyer Dubois Novak Silva Jensen Costa Weber Moreau Russo Kowalski Fischer Martin Ferrari Schulz Lopez", last, " ")
+    for (i = 1; i <= n; i++) printf "CUST-%d,P-%d,%s %s\n", i, 100000 + i, first[1 + i % 16], last[1 + int(i / 16) % 16]
+  }' | writer - "$2"
+else
+  writer "$1" "$2"
+fi
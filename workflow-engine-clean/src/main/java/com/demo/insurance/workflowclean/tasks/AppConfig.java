@@ -1,13 +1,26 @@
 package com.demo.insurance.workflowclean.tasks;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
 
 @Component
 @ConfigurationProperties(prefix = "app")
 public class AppConfig {
 
   private String claimBaseUrl;
+  // sent as X-Client-Id: claim-rest admits the workflow's callbacks ahead of bulk reads
+  private String claimClientId = "workflow-engine";
+  // sent as X-Client-Key: claim-rest grants the priority only with the key configured for the id;
+  // blank = not sent, the engine is admitted like any other client
+  private String claimClientKey = "";
+  // status callbacks queued while one is in flight go out together as one POST /claims/status:batch
+  private boolean statusBatching = true;
+  private int statusBatchMax = 200;
+  // calls to claim-rest (submission, status callbacks) give up after these
+  private int claimConnectTimeoutMs = 2_000;
+  private int claimReadTimeoutMs = 10_000;
   private String soapIdentityUrl;
   private String graphqlUrl;
   private String grpcHost;
@@ -16,6 +29,24 @@ public class AppConfig {
   public String getClaimBaseUrl() { return claimBaseUrl; }
   public void setClaimBaseUrl(String claimBaseUrl) { this.claimBaseUrl = claimBaseUrl; }
 
+  public String getClaimClientId() { return claimClientId; }
+  public void setClaimClientId(String claimClientId) { this.claimClientId = claimClientId; }
+
+  public String getClaimClientKey() { return claimClientKey; }
+  public void setClaimClientKey(String claimClientKey) { this.claimClientKey = claimClientKey; }
+
+  public boolean isStatusBatching() { return statusBatching; }
+  public void setStatusBatching(boolean statusBatching) { this.statusBatching = statusBatching; }
+
+  public int getStatusBatchMax() { return statusBatchMax; }
+  public void setStatusBatchMax(int statusBatchMax) { this.statusBatchMax = statusBatchMax; }
+
+  public int getClaimConnectTimeoutMs() { return claimConnectTimeoutMs; }
+  public void setClaimConnectTimeoutMs(int claimConnectTimeoutMs) { this.claimConnectTimeoutMs = claimConnectTimeoutMs; }
+
+  public int getClaimReadTimeoutMs() { return claimReadTimeoutMs; }
+  public void setClaimReadTimeoutMs(int claimReadTimeoutMs) { this.claimReadTimeoutMs = claimReadTimeoutMs; }
+
   public String getSoapIdentityUrl() { return soapIdentityUrl; }
   public void setSoapIdentityUrl(String soapIdentityUrl) { this.soapIdentityUrl = soapIdentityUrl; }
 
@@ -27,4 +58,12 @@ public class AppConfig {
 
   public int getGrpcPort() { return grpcPort; }
   public void setGrpcPort(int grpcPort) { this.grpcPort = grpcPort; }
+
+  // a hung claim-rest must fail the call with ResourceAccessException, not block the task thread
+  RestTemplate claimRestTemplate() {
+    var timeouts = new SimpleClientHttpRequestFactory();
+    timeouts.setConnectTimeout(claimConnectTimeoutMs);
+    timeouts.setReadTimeout(claimReadTimeoutMs);
+    return new RestTemplate(timeouts);
+  }
 }
@@ -0,0 +1,128 @@
+package com.demo.insurance.workflowclean.tasks;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.*;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Status callbacks to claim-rest. Concurrent process instances post their transitions through
+ * one sender that sends whatever has queued up since its last request as a single
+ * {@code POST /claims/status:batch}: an idle engine still sends each transition right away, a
+ * busy one makes one round trip per batch instead of one per transition. The calling task waits
+ * for its own result, so a failed transition still fails its step.
+ *
+ * <p>With {@code app.statusBatching=false} every transition is its own
+ * {@code POST /claims/{id}/status}, as before.
+ */
+@Component
+public class ClaimStatusClient {
+
+  private record Pending(Map<String, String> item, CompletableFuture<Map<?, ?>> result) {}
+
+  // body of POST /claims/status:batch
+  record BatchResponse(int applied, int failed, List<Map<String, Object>> results) {}
+
+  private final AppConfig cfg;
+  private final RestTemplate http;
+  private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+  private final Thread sender;
+  private volatile boolean running = true;
+
+  public ClaimStatusClient(AppConfig cfg) {
+    this.cfg = cfg;
+    this.http = cfg.claimRestTemplate();
+    this.sender = new Thread(this::sendLoop, "claim-status-batcher");
+    sender.setDaemon(true);
+    if (cfg.isStatusBatching()) sender.start();
+  }
+
+  /** Sets the status of {@code claimId}; throws if claim-rest did not apply it. */
+  public void updateStatus(String claimId, String status, String message) {
+    String msg = message == null ? "" : message;
+    if (!cfg.isStatusBatching()) {
+      http.exchange(
+        cfg.getClaimBaseUrl() + "/claims/" + claimId + "/status",
+        HttpMethod.POST,
+        new HttpEntity<>(Map.of("status", status, "message", msg), jsonHeaders()),
+        Object.class
+      );
+      return;
+    }
+
+    if (!running) throw new IllegalStateException("status client is closed, not updating " + claimId);
+    var p = new Pending(Map.of("id", claimId, "status", status, "message", msg), new CompletableFuture<>());
+    queue.add(p);
+    // the batch in flight ahead of this one may take a full round trip, then this one's own
+    long waitMs = 2L * (cfg.getClaimConnectTimeoutMs() + cfg.getClaimReadTimeoutMs());
+    Map<?, ?> result;
+    try {
+      result = p.result().get(waitMs, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      queue.remove(p);
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("interrupted while updating status of " + claimId, e);
+    } catch (TimeoutException e) {
+      queue.remove(p);
+      throw new RuntimeException("no result for the status update of " + claimId + " within " + waitMs + " ms", e);
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+    }
+    if (!"APPLIED".equals(result.get("outcome"))) {
+      throw new RuntimeException("status update of " + claimId + " failed: " + result.get("outcome") + " " + result.get("error"));
+    }
+  }
+
+  @PreDestroy
+  public void close() {
+    running = false;
+    sender.interrupt();
+    var unsent = new ArrayList<Pending>();
+    queue.drainTo(unsent);
+    for (Pending p : unsent) p.result().completeExceptionally(new IllegalStateException("status client closed before sending"));
+  }
+
+  private void sendLoop() {
+    var batch = new ArrayList<Pending>();
+    while (running) {
+      try {
+        batch.add(queue.take());
+      } catch (InterruptedException e) {
+        break;
+      }
+      queue.drainTo(batch, cfg.getStatusBatchMax() - 1);
+      send(batch);
+      batch.clear();
+    }
+  }
+
+  private void send(List<Pending> batch) {
+    try {
+      ResponseEntity<BatchResponse> res = http.exchange(
+        cfg.getClaimBaseUrl() + "/claims/status:batch",
+        HttpMethod.POST,
+        new HttpEntity<>(batch.stream().map(Pending::item).toList(), jsonHeaders()),
+        BatchResponse.class
+      );
+      List<Map<String, Object>> results = res.getBody() == null || res.getBody().results() == null
+          ? List.of() : res.getBody().results();
+      for (int i = 0; i < batch.size(); i++) {
+        if (i < results.size()) batch.get(i).result().complete(results.get(i));
+        else batch.get(i).result().completeExceptionally(new RuntimeException("claim-rest returned no result"));
+      }
+    } catch (RuntimeException e) {
+      for (Pending p : batch) p.result().completeExceptionally(e);
+    }
+  }
+
+  private HttpHeaders jsonHeaders() {
+    HttpHeaders h = new HttpHeaders();
+    h.setContentType(MediaType.APPLICATION_JSON);
+    h.set("X-Client-Id", cfg.getClaimClientId());
+    if (!cfg.getClaimClientKey().isBlank()) h.set("X-Client-Key", cfg.getClaimClientKey());
+    return h;
+  }
+}
@@ -2,20 +2,15 @@ package com.demo.insurance.workflowclean.tasks;
 
 import org.flowable.engine.delegate.DelegateExecution;
 import org.flowable.engine.delegate.JavaDelegate;
-import org.springframework.http.*;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
-
-import java.util.Map;
 
 @Component("claimStatusUpdateTask")
 public class ClaimStatusUpdateTask implements JavaDelegate {
 
-  private final AppConfig cfg;
-  private final RestTemplate http = new RestTemplate();
+  private final ClaimStatusClient claims;
 
-  public ClaimStatusUpdateTask(AppConfig cfg) {
-    this.cfg = cfg;
+  public ClaimStatusUpdateTask(ClaimStatusClient claims) {
+    this.claims = claims;
   }
 
   @Override
@@ -24,22 +19,6 @@ public class ClaimStatusUpdateTask implements JavaDelegate {
     String status = String.valueOf(ex.getVariable("claimStatus"));
     String message = String.valueOf(ex.getVariable("claimStatusMessage"));
 
-    String url = cfg.getClaimBaseUrl() + "/claims/" + claimId + "/status";
-
-    http.exchange(
-      url,
-      HttpMethod.POST,
-      new HttpEntity<>(Map.of(
-        "status", status,
-        "message", message == null ? "" : message
-      ), jsonHeaders()),
-      Object.class
-    );
-  }
-
-  private HttpHeaders jsonHeaders() {
-    HttpHeaders h = new HttpHeaders();
-    h.setContentType(MediaType.APPLICATION_JSON);
-    return h;
+    claims.updateStatus(claimId, status, message);
   }
 }
@@ -5,6 +5,8 @@ import org.flowable.engine.delegate.DelegateExecution;
 import org.flowable.engine.delegate.JavaDelegate;
 import org.springframework.http.*;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.*;
@@ -12,12 +14,15 @@ import java.util.*;
 @Component("submitClaimTask")
 public class SubmitClaimTask implements JavaDelegate {
 
+  private static final int ATTEMPTS = 3;
+
   private final AppConfig cfg;
-  private final RestTemplate http = new RestTemplate();
+  private final RestTemplate http;
   private final RuntimeService runtimeService;
 
   public SubmitClaimTask(AppConfig cfg, RuntimeService runtimeService) {
     this.cfg = cfg;
+    this.http = cfg.claimRestTemplate();
     this.runtimeService = runtimeService;
   }
 
@@ -35,8 +40,12 @@ public class SubmitClaimTask implements JavaDelegate {
 
     HttpHeaders headers = new HttpHeaders();
     headers.setContentType(MediaType.APPLICATION_JSON);
+    headers.set("X-Client-Id", cfg.getClaimClientId());
+    if (!cfg.getClaimClientKey().isBlank()) headers.set("X-Client-Key", cfg.getClaimClientKey());
+    // same key for every attempt (and for a job retry of this step): claim-rest creates the claim once
+    headers.set("Idempotency-Key", "submit-" + ex.getProcessInstanceId() + "-" + ex.getCurrentActivityId());
 
-    ResponseEntity<Map> res = http.exchange(url, HttpMethod.POST, new HttpEntity<>(body, headers), Map.class);
+    ResponseEntity<Map> res = post(url, new HttpEntity<>(body, headers));
     Map<?, ?> claim = res.getBody();
     if (claim == null || claim.get("id") == null) throw new RuntimeException("claim-rest returned no id");
 
@@ -46,4 +55,38 @@ public class SubmitClaimTask implements JavaDelegate {
     // set businessKey = claimId (so /claims/{id}/tasks works)
     runtimeService.updateBusinessKey(ex.getProcessInstanceId(), claimId);
   }
+
+  // a timeout leaves it unknown whether the claim was created; the key makes the retry safe.
+  // a 429 is retried after the Retry-After claim-rest asks for
+  private ResponseEntity<Map> post(String url, HttpEntity<?> req) {
+    for (int attempt = 1; ; attempt++) {
+      long backoffMs;
+      RuntimeException failure;
+      try {
+        return http.exchange(url, HttpMethod.POST, req, Map.class);
+      } catch (ResourceAccessException e) {
+        failure = e;
+        backoffMs = 200L * attempt;
+      } catch (HttpClientErrorException.TooManyRequests e) {
+        failure = e;
+        backoffMs = retryAfterMs(e.getResponseHeaders(), 200L * attempt);
+      }
+      if (attempt == ATTEMPTS) throw failure;
+      try {
+        Thread.sleep(backoffMs);
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+        throw failure;
+      }
+    }
+  }
+
+  private static long retryAfterMs(HttpHeaders headers, long fallback) {
+    String v = headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+    try {
+      return v == null ? fallback : Long.parseLong(v.trim()) * 1000;
+    } catch (NumberFormatException e) {
+      return fallback;
+    }
+  }
 }
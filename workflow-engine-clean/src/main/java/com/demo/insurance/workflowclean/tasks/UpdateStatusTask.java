@@ -3,24 +3,19 @@ package com.demo.insurance.workflowclean.tasks;
 import org.flowable.common.engine.api.delegate.Expression;
 import org.flowable.engine.delegate.DelegateExecution;
 import org.flowable.engine.delegate.JavaDelegate;
-import org.springframework.http.*;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
-
-import java.util.Map;
 
 @Component("updateStatusTask")
 public class UpdateStatusTask implements JavaDelegate {
 
-  private final AppConfig cfg;
-  private final RestTemplate http = new RestTemplate();
+  private final ClaimStatusClient claims;
 
   // injected from BPMN <flowable:field ...><flowable:string>...</flowable:string>
   private Expression status;
   private Expression message;
 
-  public UpdateStatusTask(AppConfig cfg) {
-    this.cfg = cfg;
+  public UpdateStatusTask(ClaimStatusClient claims) {
+    this.claims = claims;
   }
 
   public void setStatus(Expression status) { this.status = status; }
@@ -34,16 +29,6 @@ public class UpdateStatusTask implements JavaDelegate {
     String st = status != null ? String.valueOf(status.getValue(ex)) : "IN_REVIEW";
     String msg = message != null ? String.valueOf(message.getValue(ex)) : "";
 
-    String url = cfg.getClaimBaseUrl() + "/claims/" + claimId + "/status";
-
-    HttpHeaders h = new HttpHeaders();
-    h.setContentType(MediaType.APPLICATION_JSON);
-
-    http.exchange(
-      url,
-      HttpMethod.POST,
-      new HttpEntity<>(Map.of("status", st, "message", msg), h),
-      Object.class
-    );
+    claims.updateStatus(claimId, st, msg);
   }
 }